@@ -60,6 +60,9 @@ public class BlockInfo
 	@CheckForNull
 	protected NamespaceID oreBase;
 	
+	/** Export this block as an instance of a shared model when instancing is enabled */
+	protected boolean instanced;
+	
 
 	/** @return Block id */
 	public NamespaceID getId() {
@@ -94,10 +97,14 @@ public class BlockInfo
 	public NamespaceID getOreBase() {
 		return oreBase;
 	}
+	
+	public boolean isInstanced() {
+		return instanced;
+	}
 
 	
 	/** Convenience constructor */
-	BlockInfo(NamespaceID id, String name, @CheckForNull BlockMaterial materials, Occlusion occlusion, @CheckForNull BlockModel model, boolean alwaysWaterlogged, NamespaceID oreBase)
+	BlockInfo(NamespaceID id, String name, @CheckForNull BlockMaterial materials, Occlusion occlusion, @CheckForNull BlockModel model, boolean alwaysWaterlogged, NamespaceID oreBase, boolean instanced)
 	{
 		this.id = id;
 		this.name = name;
@@ -114,6 +121,7 @@ public class BlockInfo
 		}
 		this.actWaterlogged = alwaysWaterlogged;
 		this.oreBase = oreBase;
+		this.instanced = instanced;
 	}
 	
 
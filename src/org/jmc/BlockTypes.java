@@ -1,16 +1,17 @@
 package org.jmc;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nonnull;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathFactory;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.filefilter.WildcardFileFilter;
 import org.jmc.BlockInfo.Occlusion;
 import org.jmc.geom.Transform;
@@ -47,7 +48,7 @@ public class BlockTypes
 			BlockstateEntry bs = Registries.getBlockstate(key);
 			if (bs != null) {
 				Log.info(String.format("Found unknown block '%s', using default properties.", key));
-				return new BlockInfo(key, key.toString(), new RegistryBlockMaterial(bs.id), Occlusion.FULL, new Registry(), false, null);
+				return new BlockInfo(key, key.toString(), new RegistryBlockMaterial(bs.id), Occlusion.FULL, new Registry(), false, null, false);
 			} else {
 				return null;
 			}
@@ -58,23 +59,29 @@ public class BlockTypes
 	
 	private static BlockInfo unknownBlock;
 	private static BlockInfo nullBlock;
+	
+	private static volatile String fingerprint = "";
 
 
-	private static void readConfig(CachedGetter<NamespaceID, BlockInfo> blockTable, String filePath) throws Exception
+	/**
+	 * @return the contents of the file
+	 */
+	private static byte[] readConfig(CachedGetter<NamespaceID, BlockInfo> blockTable, String filePath) throws Exception
 	{
-		Document doc;
+		byte[] contents;
 		try (JmcConfFile confFile = new JmcConfFile(filePath)) {
 			if (!confFile.hasStream())
 				throw new Exception("Cannot open configuration file " + filePath);
 			
-			doc = Xml.loadDocument(confFile.getInputStream());
+			contents = IOUtils.toByteArray(confFile.getInputStream());
 		}
-		XPath xpath = XPathFactory.newInstance().newXPath();
-
-		NodeList blockNodes = (NodeList)xpath.evaluate("/blocks/block", doc, XPathConstants.NODESET);
-		for (int i = 0; i < blockNodes.getLength(); i++)
+		Document doc = Xml.loadDocument(new ByteArrayInputStream(contents));
+		// the elements are read directly, XPath is slow over this many blocks
+		List<Node> blockNodes = Xml.getChildElements(doc.getDocumentElement(), "block");
+		for (Node blockElem : blockNodes)
 		{
-			Node blockNode = blockNodes.item(i).cloneNode(true);
+			// models keep their node, a copy detaches it from the lazily expanded document
+			Node blockNode = blockElem.cloneNode(true);
 
 			String idAttr = Xml.getAttribute(blockNode, "id");
 			if (idAttr == null) {
@@ -91,7 +98,7 @@ public class BlockTypes
 			BlockMaterial materials = new BlockMaterial();
 
 			String aux;
-			aux = (String)xpath.evaluate("model", blockNode, XPathConstants.STRING);
+			aux = Xml.getChildText(blockNode, "model");
 			if (aux != null && aux.length() > 0)
 			{
 				modelName = aux;
@@ -109,7 +116,7 @@ public class BlockTypes
 			model.setBlockId(id);
 			model.setConfigNodes(blockNode);
 			
-			aux = (String)xpath.evaluate("occlusion", blockNode, XPathConstants.STRING);
+			aux = Xml.getChildText(blockNode, "occlusion");
 			if (aux != null && aux.length() > 0)
 			{
 				try {
@@ -119,19 +126,17 @@ public class BlockTypes
 				}
 			}
 			
-			Boolean waterlogged = (Boolean)xpath.evaluate("waterlogged", blockNode, XPathConstants.BOOLEAN);
-			if (waterlogged == null) {
-				waterlogged = false;
-			}
+			// like the XPath boolean, the tag only has to be present
+			boolean waterlogged = !Xml.getChildElements(blockNode, "waterlogged").isEmpty();
 			
-			String oreBaseStr = (String) xpath.evaluate("ore", blockNode, XPathConstants.STRING);
+			boolean instanced = Boolean.parseBoolean(Xml.getChildText(blockNode, "instance").trim());
+			
+			String oreBaseStr = Xml.getChildText(blockNode, "ore");
 			NamespaceID oreBase = oreBaseStr == null || oreBaseStr.isEmpty() ? null : NamespaceID.fromString(oreBaseStr);
 			
 			boolean hasMtl = false;
-			NodeList matNodes = (NodeList)xpath.evaluate("materials", blockNode, XPathConstants.NODESET);
-			for (int j = 0; j < matNodes.getLength(); j++)
+			for (Node matNode : Xml.getChildElements(blockNode, "materials"))
 			{
-				Node matNode = matNodes.item(j);
 				
 				Blockstate state = new Blockstate();
 				NamespaceID biome = NamespaceID.NULL;
@@ -202,10 +207,8 @@ public class BlockTypes
 			{
 				Mesh mesh=(Mesh)model;
 				
-				NodeList meshNodes = (NodeList)xpath.evaluate("mesh", blockNode, XPathConstants.NODESET);
-				for (int j = 0; j < meshNodes.getLength(); j++)
+				for (Node meshNode : Xml.getChildElements(blockNode, "mesh"))
 				{
-					Node meshNode = meshNodes.item(j);
 					try {
 						parseMeshNode(meshNode,mesh);
 					}catch (Exception e) {
@@ -215,10 +218,8 @@ public class BlockTypes
 					}
 				}
 				
-				NodeList trasNodes = (NodeList)xpath.evaluate("translate", blockNode, XPathConstants.NODESET);
-				for (int j = 0; j < trasNodes.getLength(); j++)
+				for (Node transNode : Xml.getChildElements(blockNode, "translate"))
 				{
-					Node transNode = trasNodes.item(j);
 					try {
 						parseTransNode(transNode,mesh);
 					}catch (RuntimeException e) {
@@ -228,10 +229,8 @@ public class BlockTypes
 					}
 				}
 				
-				NodeList rotNodes = (NodeList)xpath.evaluate("rotate", blockNode, XPathConstants.NODESET);
-				for (int j = 0; j < rotNodes.getLength(); j++)
+				for (Node transNode : Xml.getChildElements(blockNode, "rotate"))
 				{
-					Node transNode = rotNodes.item(j);
 					try {
 						parseTransNode(transNode,mesh);
 					}catch (RuntimeException e) {
@@ -241,10 +240,8 @@ public class BlockTypes
 					}
 				}
 				
-				NodeList scaleNodes = (NodeList)xpath.evaluate("scale", blockNode, XPathConstants.NODESET);
-				for (int j = 0; j < scaleNodes.getLength(); j++)
+				for (Node transNode : Xml.getChildElements(blockNode, "scale"))
 				{
-					Node transNode = scaleNodes.item(j);
 					try {
 						parseTransNode(transNode,mesh);
 					}catch (RuntimeException e) {
@@ -256,8 +253,9 @@ public class BlockTypes
 				
 				mesh.propagateProperties();
 			}
-			blockTable.put(id, new BlockInfo(id, name, materials, occlusion, model, waterlogged, oreBase));
+			blockTable.put(id, new BlockInfo(id, name, materials, occlusion, model, waterlogged, oreBase, instanced));
 		}
+		return contents;
 	}
 
 	private static void parseAttributes(Node meshNode, Mesh mesh) throws RuntimeException
@@ -458,7 +456,8 @@ public class BlockTypes
 		// create the blocks table
 		Log.info("Reading blocks configuration file...");
 
-		readConfig(blockTable, CONFIG_FILE);
+		List<byte[]> configs = new ArrayList<>();
+		configs.add(readConfig(blockTable, CONFIG_FILE));
 		
 		try {
 			FileFilter ff = new WildcardFileFilter(CONFIG_FILE_EXTRA);
@@ -467,17 +466,28 @@ public class BlockTypes
 				for (File file : files) {
 					String extraPath = Filesystem.getDatafilesDir().toPath().relativize(file.toPath()).toString();
 					Log.debug(String.format("Loading extra config file: %s", extraPath));
-					readConfig(blockTable, extraPath);
+					configs.add(readConfig(blockTable, extraPath));
 				}
 			}
 		} catch (Exception e) {
 			Log.error("Error loading extra block configs!", e);
 		}
+		fingerprint = Filesystem.getSha256(configs.toArray(new byte[0][]));
 
 		Log.info("Loaded " + blockTable.size() + " block definitions.");
 	}
 
 
+	/**
+	 * @return hash of the loaded configuration files, changes whenever one
+	 *         of them does
+	 */
+	public static String getFingerprint()
+	{
+		return fingerprint;
+	}
+
+
 	/**
 	 * Gets the block information for the given block id.
 	 * If the block id is not found, returns a default BlockInfo structure for 
@@ -503,6 +513,14 @@ public class BlockTypes
 		return bi;
 	}
 	
+	/**
+	 * @return lookup statistics of the block table
+	 */
+	public static String getCacheStats()
+	{
+		return blockTable.getStats();
+	}
+	
 	public static Map<NamespaceID, BlockInfo> getAll()
 	{
 		return blockTable.getAll();
@@ -514,7 +514,7 @@ public class Chunk {
 		return ret;
 	}
 	
-	private int bitsForInt(int value) {
+	private static int bitsForInt(int value) {
 		int bits = 0;
 		while (value > 0) {
 			bits++;
@@ -589,14 +589,14 @@ public class Chunk {
 		gh.setColor(Color.black);
 		gh.fillRect(0, 0, width, height);
 
-		Blocks bd=getBlocks();
+		int ymax=getYMax();
 
 		int drawYMax = ceiling;
 		int drawYMin = floor;
-		if(floor>bd.ymax)
+		if(floor>ymax)
 			return;
-		if(ceiling>bd.ymax)
-			ceiling=bd.ymax;
+		if(ceiling>ymax)
+			ceiling=ymax;
 		if(floor>=ceiling)
 			floor=ceiling-1;
 
@@ -607,29 +607,12 @@ public class Chunk {
 		
 		Arrays.fill(himage, drawYMin);
 		
-		int x,y,z;
-		for(z = 0; z < 16; z++)
-		{
-			for(x = 0; x < 16; x++)
-			{
-				for(y = floor; y < ceiling; y++)
-				{
-					if (Thread.currentThread().isInterrupted())
-						return;
-					
-					NamespaceID blockBiome = bd.getBiome(x, y, z);
-					BlockData blockData = bd.getBlockData(x, y, z);
-					
-					if(blockData != null && !BlockTypes.get(blockData).getOcclusion().equals(Occlusion.NONE))
-					{
-						topBlocks[z*16+x] = blockData;
-						biome[z*16+x]=blockBiome;
-						himage[z*16+x]=y;
-					}
-				}
-			}
-		}
+		if (!findTopBlocksFromHeightmap(floor, ceiling, topBlocks, biome, himage))
+			findTopBlocks(floor, ceiling, topBlocks, biome, himage);
+		if (Thread.currentThread().isInterrupted())
+			return;
 
+		int x,z;
 
 		for(z = 0; z < 16; z++)
 		{
@@ -669,6 +652,194 @@ public class Chunk {
 		}
 	}
 
+	/**
+	 * Finds the topmost visible block of each column by decoding the whole
+	 * chunk and going through every block between floor and ceiling.
+	 */
+	private void findTopBlocks(int floor, int ceiling, BlockData[] topBlocks, NamespaceID[] biome, int[] himage)
+	{
+		Blocks bd=getBlocks();
+		for(int z = 0; z < 16; z++)
+		{
+			for(int x = 0; x < 16; x++)
+			{
+				for(int y = floor; y < ceiling; y++)
+				{
+					if (Thread.currentThread().isInterrupted())
+						return;
+					
+					BlockData blockData = bd.getBlockData(x, y, z);
+					
+					if(blockData != null && !BlockTypes.get(blockData).getOcclusion().equals(Occlusion.NONE))
+					{
+						topBlocks[z*16+x] = blockData;
+						biome[z*16+x]=bd.getBiome(x, y, z);
+						himage[z*16+x]=y;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the topmost visible block of each column using the WORLD_SURFACE
+	 * heightmap of the chunk. Everything above the heightmap is air, so each
+	 * column is searched downwards from there and usually only its top block
+	 * is looked at. Of each section only the palette entries that are hit
+	 * are decoded.
+	 * @return false if the chunk is older than 21w37a or has no heightmap,
+	 * then {@link #findTopBlocks} has to be used
+	 */
+	private boolean findTopBlocksFromHeightmap(int floor, int ceiling, BlockData[] topBlocks, NamespaceID[] biome, int[] himage)
+	{
+		if (!is_anvil || chunkVer < 2834)// < 21w37a
+			return false;
+		TAG_Compound level = chunkVer >= 2844 ? root : (TAG_Compound) root.getElement("Level");
+		TAG_Compound heightmaps = (TAG_Compound) level.getElement("Heightmaps");
+		TAG_List sections = (TAG_List) level.getElement(chunkVer >= 2844 ? "sections" : "Sections");
+		if (heightmaps == null || sections == null)
+			return false;
+		TAG_Long_Array surface = (TAG_Long_Array) heightmaps.getElement("WORLD_SURFACE");
+		if (surface == null || surface.data.length == 0)
+			return false;
+		
+		// heights are counted from the bottom of the world, yPos is the lowest section
+		TAG_Int yPos = (TAG_Int) level.getElement("yPos");
+		int worldMin = yPos != null ? yPos.value * 16 : getYMin();
+		
+		SectionPalette[] palettes = new SectionPalette[sections.elements.length];
+		int minSection = worldMin >> 4;
+		// sections with only light can be saved above the world, so its top
+		// is the highest section with blocks
+		int maxSection = minSection - 1;
+		for (NBT_Tag section : sections.elements) {
+			TAG_Compound c_section = (TAG_Compound) section;
+			int sectionY = ((TAG_Byte) c_section.getElement("Y")).value;
+			int index = sectionY - minSection;
+			if (index >= 0 && index < palettes.length)
+				palettes[index] = new SectionPalette(c_section);
+			if (c_section.getElement("block_states") != null)
+				maxSection = Math.max(maxSection, sectionY);
+		}
+		
+		// heights go from 0 to the world height, each takes as many bits as
+		// that needs and a long holds as many whole heights as fit in it
+		int bits = bitsForInt((maxSection - minSection + 1) * 16);
+		if (bits == 0)
+			return false;
+		int perLong = 64 / bits;
+		if ((256 + perLong - 1) / perLong != surface.data.length)
+			return false;
+		long mask = -1l >>> (64 - bits);
+		for (int z = 0; z < 16; z++)
+		{
+			for (int x = 0; x < 16; x++)
+			{
+				if (Thread.currentThread().isInterrupted())
+					return true;
+				
+				int i = z*16 + x;
+				int height = (int) ((surface.data[i / perLong] >>> ((i % perLong) * bits)) & mask);
+				for (int y = Math.min(worldMin + height - 1, ceiling - 1); y >= floor; y--)
+				{
+					int index = (y >> 4) - minSection;
+					if (index < 0 || index >= palettes.length || palettes[index] == null)
+						continue;
+					BlockData blockData = palettes[index].getBlock(x, y & 15, z);
+					if (blockData != null && !BlockTypes.get(blockData).getOcclusion().equals(Occlusion.NONE))
+					{
+						topBlocks[i] = blockData;
+						biome[i] = palettes[index].getBiome(x, y & 15, z);
+						himage[i] = y;
+						break;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Block and biome palettes of a 21w37a+ section, decoding each entry only
+	 * when it's first asked for.
+	 */
+	private static class SectionPalette
+	{
+		private final TAG_List blockPalette;
+		private final long[] blockStates;
+		private final int blockBits;
+		private final BlockData[] blocks;
+		
+		private final TAG_List biomePalette;
+		private final long[] biomeStates;
+		private final int biomeBits;
+		private final NamespaceID[] biomes;
+		
+		SectionPalette(TAG_Compound section)
+		{
+			TAG_Compound blockComp = (TAG_Compound) section.getElement("block_states");
+			blockPalette = blockComp != null ? (TAG_List) blockComp.getElement("palette") : null;
+			TAG_Long_Array blockData = blockComp != null ? (TAG_Long_Array) blockComp.getElement("data") : null;
+			blockStates = blockData != null ? blockData.data : null;
+			blockBits = blockPalette != null ? Math.max(bitsForInt(blockPalette.elements.length - 1), 4) : 0;
+			blocks = new BlockData[blockPalette != null ? blockPalette.elements.length : 0];
+			
+			TAG_Compound biomeComp = (TAG_Compound) section.getElement("biomes");
+			biomePalette = biomeComp != null ? (TAG_List) biomeComp.getElement("palette") : null;
+			TAG_Long_Array biomeData = biomeComp != null ? (TAG_Long_Array) biomeComp.getElement("data") : null;
+			biomeStates = biomeData != null ? biomeData.data : null;
+			biomeBits = biomePalette != null ? bitsForInt(biomePalette.elements.length - 1) : 0;
+			biomes = new NamespaceID[biomePalette != null ? biomePalette.elements.length : 0];
+		}
+		
+		BlockData getBlock(int x, int y, int z)
+		{
+			if (blocks.length == 0)
+				return null;
+			int pid = blockStates == null ? 0 : readIndex(blockStates, x + z*16 + y*16*16, blockBits);
+			if (pid >= blocks.length)
+				return null;
+			BlockData block = blocks[pid];
+			if (block == null) {
+				TAG_Compound blockTag = (TAG_Compound) blockPalette.elements[pid];
+				String blockName = ((TAG_String) blockTag.getElement("Name")).value;
+				if (blockName == null)
+					return null;
+				block = new BlockData(NamespaceID.fromString(blockName));
+				TAG_Compound propertiesTag = (TAG_Compound) blockTag.getElement("Properties");
+				if (propertiesTag != null) {
+					for (NBT_Tag tag : propertiesTag.elements) {
+						TAG_String propTag = (TAG_String) tag;
+						block.state.put(propTag.getName(), propTag.value);
+					}
+				}
+				if (BlockTypes.get(block).getActWaterlogged()) {
+					block.state.putIfAbsent("waterlogged", "true");
+				}
+				blocks[pid] = block;
+			}
+			return block;
+		}
+		
+		NamespaceID getBiome(int x, int y, int z)
+		{
+			if (biomes.length == 0)
+				return new NamespaceID("minecraft", "plains");
+			int pid = biomeStates == null || biomeBits == 0 ? 0 : readIndex(biomeStates, x/4 + (z/4)*4 + (y/4)*4*4, biomeBits);
+			if (pid >= biomes.length)
+				return new NamespaceID("minecraft", "plains");
+			if (biomes[pid] == null)
+				biomes[pid] = NamespaceID.fromString(((TAG_String) biomePalette.elements[pid]).value);
+			return biomes[pid];
+		}
+		
+		private static int readIndex(long[] data, int i, int bits)
+		{
+			int perLong = 64 / bits;
+			return (int) ((data[i / perLong] >>> ((i % perLong) * bits)) & (-1l >>> (64 - bits)));
+		}
+	}
+
 	/**
 	 * Retrieves block image. Must run renderImages first!
 	 * @return image of topmost blocks
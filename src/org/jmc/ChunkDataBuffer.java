@@ -30,7 +30,7 @@ public class ChunkDataBuffer {
 			@Override
 			public Region make(Point p) {
 				try {
-					return Region.findRegion(Options.worldDir, Options.dimension, p);
+					return RegionCache.get(Options.worldDir, Options.dimension, p);
 				} catch (Exception e) {
 					return null;
 				}
@@ -63,6 +63,17 @@ public class ChunkDataBuffer {
 		}
 	}
 	
+	/**
+	 * Loads a chunk ahead of its first {@link #getBlocks(Point)} and keeps it
+	 * in memory until then. Does nothing if the chunk was already loaded or
+	 * is being loaded by another thread.
+	 * @param p chunk coordinates
+	 */
+	public void preload(Point p)
+	{
+		chunks.prefetch(p);
+	}
+	
 	private Blocks makeBlocks(Point p) {
 		Chunk chunk;
 		try {// if chunk exists
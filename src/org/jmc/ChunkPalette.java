@@ -0,0 +1,143 @@
+package org.jmc;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+import org.jmc.registry.NamespaceID;
+
+/**
+ * Reads the block palettes of a chunk straight from its NBT stream, skipping
+ * over everything else. Nothing but the palette entries is decoded, so it's
+ * much cheaper than {@link Chunk#getBlocks()} when only the set of blocks in
+ * a chunk is needed.
+ * <p>
+ * A palette is any list of compounds named "palette" (21w37a and later) or
+ * "Palette" (1.13 to 21w37a). Chunks from before 1.13 store numeric ids and
+ * have no palettes.
+ */
+class ChunkPalette {
+
+	private static final byte TAG_END = 0;
+	private static final byte TAG_STRING = 8;
+	private static final byte TAG_LIST = 9;
+	private static final byte TAG_COMPOUND = 10;
+
+	/**
+	 * @param is the uncompressed chunk
+	 * @param states receives every entry of every palette, with repeats
+	 */
+	static void read(InputStream is, Consumer<BlockData> states) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+		if (in.readByte() != TAG_COMPOUND)
+			return;
+		in.readUTF();
+		readCompound(in, states);
+	}
+
+	private static void readCompound(DataInputStream in, Consumer<BlockData> states) throws IOException
+	{
+		byte type;
+		while ((type = in.readByte()) != TAG_END) {
+			String name = in.readUTF();
+			if (type == TAG_COMPOUND) {
+				readCompound(in, states);
+			} else if (type == TAG_LIST) {
+				byte elemType = in.readByte();
+				int len = in.readInt();
+				if (elemType != TAG_COMPOUND) {
+					skipList(in, elemType, len);
+				} else if (name.equals("palette") || name.equals("Palette")) {
+					for (int i = 0; i < len; i++)
+						states.accept(readState(in));
+				} else {
+					for (int i = 0; i < len; i++)
+						readCompound(in, states);
+				}
+			} else {
+				skip(in, type);
+			}
+		}
+	}
+
+	private static BlockData readState(DataInputStream in) throws IOException
+	{
+		String blockName = null;
+		Blockstate state = new Blockstate();
+		byte type;
+		while ((type = in.readByte()) != TAG_END) {
+			String name = in.readUTF();
+			if (type == TAG_STRING && name.equals("Name")) {
+				blockName = in.readUTF();
+			} else if (type == TAG_COMPOUND && name.equals("Properties")) {
+				byte propType;
+				while ((propType = in.readByte()) != TAG_END) {
+					String prop = in.readUTF();
+					if (propType == TAG_STRING)
+						state.put(prop, in.readUTF());
+					else
+						skip(in, propType);
+				}
+			} else {
+				skip(in, type);
+			}
+		}
+		if (blockName == null)
+			return new BlockData(NamespaceID.NULL);
+		return new BlockData(NamespaceID.fromString(blockName), state);
+	}
+
+	/**
+	 * Skips the payload of a tag.
+	 */
+	private static void skip(DataInputStream in, byte type) throws IOException
+	{
+		switch (type) {
+		case 1: skipFully(in, 1); break;
+		case 2: skipFully(in, 2); break;
+		case 3: skipFully(in, 4); break;
+		case 4: skipFully(in, 8); break;
+		case 5: skipFully(in, 4); break;
+		case 6: skipFully(in, 8); break;
+		case 7: skipFully(in, in.readInt()); break;
+		case TAG_STRING: skipFully(in, in.readUnsignedShort()); break;
+		case TAG_LIST: skipList(in, in.readByte(), in.readInt()); break;
+		case TAG_COMPOUND: {
+			byte t;
+			while ((t = in.readByte()) != TAG_END) {
+				in.readUTF();
+				skip(in, t);
+			}
+			break;
+		}
+		case 11: skipFully(in, 4L * in.readInt()); break;
+		case 12: skipFully(in, 8L * in.readInt()); break;
+		default:
+			throw new IOException("NBT_Tag type error: " + type);
+		}
+	}
+
+	private static void skipList(DataInputStream in, byte elemType, int len) throws IOException
+	{
+		for (int i = 0; i < len; i++)
+			skip(in, elemType);
+	}
+
+	private static void skipFully(DataInputStream in, long n) throws IOException
+	{
+		while (n > 0) {
+			long skipped = in.skip(n);
+			if (skipped <= 0) {
+				// skip() may stop early without being at the end
+				if (in.read() < 0)
+					throw new EOFException();
+				skipped = 1;
+			}
+			n -= skipped;
+		}
+	}
+}
@@ -200,8 +200,7 @@ public class CloudsExporter {
 			writeThread.start();
 			
 			renderClouds(image, outputQueue);
-			outputQueue.waitUntilEmpty();
-			writeThread.interrupt();
+			outputQueue.finish();
 			writeThread.join();
 			
 			Log.info("Done.");
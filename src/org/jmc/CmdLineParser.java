@@ -4,7 +4,9 @@ import java.io.File;
 import java.util.List;
 
 import org.apache.commons.cli.*;
+import org.jmc.Options.ExportFormat;
 import org.jmc.Options.OffsetType;
+import org.jmc.Options.TextureFormat;
 import org.jmc.util.Filesystem;
 import org.jmc.util.Log;
 
@@ -60,7 +62,18 @@ public class CmdLineParser {
 	private static final Option optBlockRandomization = new Option(null, "block-randomization", false, "Allow resource pack models to randomly pick from blockstate models instead of always the first.");
 	private static final Option optRemoveDuplicates = new Option(null, "remove-dup", false, "Try harder to merge vertexes that have the same coordinates.");
 	private static final Option optOptimizeGeometry = new Option(null, "optimize-geometry", false, "Reduce size of exported files by joining adjacent faces together when possible.");
-	private static final Option optThreads = Option.builder("t").longOpt("threads").hasArg().argName("NUM").desc("Number of threads to use. Default is 8.").build();
+	private static final Option optFormat = Option.builder().longOpt("format").hasArg().argName("obj|glb|tiles|ply|stl").desc("File format to export: obj - Wavefront OBJ with MTL; glb - binary glTF; tiles - folder of glTF tiles with a 3D Tiles tileset.json; ply, stl - binary PLY or STL with only the geometry. Default is obj.").build();
+	private static final Option optFilePerTile = new Option(null, "file-per-tile", false, "Export a separate OBJ and MTL file for each tile of chunks, see --tile-size.");
+	private static final Option optGzip = new Option(null, "gzip", false, "Write the OBJ file gzip compressed, as <name>.obj.gz. The MTL file and textures are not compressed.");
+	private static final Option optInstancing = new Option(null, "instancing", false, "Write the models of blocks marked as instanced in blocks.conf once and record their placements. GLB uses EXT_mesh_gpu_instancing, OBJ writes the models to <name>_instances.obj and the placements to <name>_instances.csv.");
+	private static final Option optTileSize = Option.builder().longOpt("tile-size").hasArg().argName("CHUNKS").desc("Width of the tiles in chunks when exporting tiles or a file per tile. Default is 32 (one region).").build();
+	private static final Option optThreads = Option.builder("t").longOpt("threads").hasArg().argName("NUM").desc("Number of threads building the geometry of the chunks. Default is 8.").build();
+	private static final Option optDecodeThreads = Option.builder().longOpt("decode-threads").hasArg().argName("NUM").desc("Number of threads reading the chunks from the region files. Fewer suit slow or network disks, more suit fast SSDs. Default is 4.").build();
+	private static final Option optAtlas = new Option(null, "atlas", false, "Pack the textures into atlas images and use one material per atlas. Only for OBJ export to a single file, disables --optimize-geometry.");
+	private static final Option optAtlasSize = Option.builder().longOpt("atlas-size").hasArg().argName("PIXELS").desc("Width and height of the texture atlas images. Default is 2048.").build();
+	private static final Option optTextureFormat = Option.builder().longOpt("texture-format").hasArg().argName("png|dds").desc("File format of the exported textures: png - plain PNG images; dds - uncompressed DDS with a full mipmap chain. Default is png.").build();
+	private static final Option optTextureThreads = Option.builder().longOpt("texture-threads").hasArg().argName("NUM").desc("Number of threads to use when writing textures. Default is the number of processors.").build();
+	private static final Option optBenchmark = Option.builder().longOpt("benchmark").hasArg().argName("THREADS").desc("Don't write any files, instead process the selection once with each of the given comma separated numbers of threads (see --threads) and print the chunks per second, e.g. 4,16,64.").build();
 	private static final Option optHelp = new Option("?", "help", false, "Displays this help");
 	
 	private static final org.apache.commons.cli.Options options = new org.apache.commons.cli.Options();
@@ -93,7 +106,18 @@ public class CmdLineParser {
 		options.addOption(optBlockRandomization);
 		options.addOption(optRemoveDuplicates);
 		options.addOption(optOptimizeGeometry);
+		options.addOption(optFormat);
+		options.addOption(optFilePerTile);
+		options.addOption(optTileSize);
+		options.addOption(optGzip);
+		options.addOption(optInstancing);
 		options.addOption(optThreads);
+		options.addOption(optDecodeThreads);
+		options.addOption(optTextureThreads);
+		options.addOption(optAtlas);
+		options.addOption(optAtlasSize);
+		options.addOption(optTextureFormat);
+		options.addOption(optBenchmark);
 		options.addOption(optHelp);
 	}
 	
@@ -245,9 +269,82 @@ public class CmdLineParser {
 			if (checkOption(cmdLine, optOptimizeGeometry)) {
 				Options.optimiseGeometry = true;
 			}
+			if (checkOption(cmdLine, optFormat)) {
+				String arg = cmdLine.getOptionValue(optFormat);
+				switch (arg) {
+					case "obj":
+						Options.exportFormat = ExportFormat.OBJ;
+						break;
+					case "glb":
+						Options.exportFormat = ExportFormat.GLB;
+						break;
+					case "tiles":
+						Options.exportFormat = ExportFormat.TILES;
+						break;
+					case "ply":
+						Options.exportFormat = ExportFormat.PLY;
+						break;
+					case "stl":
+						Options.exportFormat = ExportFormat.STL;
+						break;
+					default:
+						throw new CmdLineException("Invalid argument to option --format: " + arg);
+				}
+			}
+			if (checkOption(cmdLine, optFilePerTile)) {
+				Options.filePerTile = true;
+			}
+			if (checkOption(cmdLine, optTileSize)) {
+				Options.tileSize = Integer.parseInt(cmdLine.getOptionValue(optTileSize));
+				if (Options.tileSize < 1) throw new CmdLineException("Tile size must be at least 1 chunk");
+			}
+			if (checkOption(cmdLine, optGzip)) {
+				Options.gzipObj = true;
+			}
+			if (checkOption(cmdLine, optInstancing)) {
+				Options.instancing = true;
+			}
 			if (checkOption(cmdLine, optThreads)) {
 				Options.exportThreads = Integer.parseInt(cmdLine.getOptionValue(optThreads));
 			}
+			if (checkOption(cmdLine, optDecodeThreads)) {
+				Options.decodeThreads = Integer.parseInt(cmdLine.getOptionValue(optDecodeThreads));
+				if (Options.decodeThreads < 1) throw new CmdLineException("Decode threads must be at least 1");
+			}
+			if (checkOption(cmdLine, optTextureThreads)) {
+				Options.textureThreads = Integer.parseInt(cmdLine.getOptionValue(optTextureThreads));
+				if (Options.textureThreads < 1) throw new CmdLineException("Texture threads must be at least 1");
+			}
+			if (checkOption(cmdLine, optAtlas)) {
+				Options.textureMerge = true;
+				Options.optimiseGeometry = false;
+			}
+			if (checkOption(cmdLine, optAtlasSize)) {
+				Options.atlasSize = Integer.parseInt(cmdLine.getOptionValue(optAtlasSize));
+				if (Options.atlasSize < 16) throw new CmdLineException("Atlas size must be at least 16 pixels");
+			}
+			if (checkOption(cmdLine, optTextureFormat)) {
+				String arg = cmdLine.getOptionValue(optTextureFormat);
+				switch (arg) {
+					case "png":
+						Options.textureFormat = TextureFormat.PNG;
+						break;
+					case "dds":
+						Options.textureFormat = TextureFormat.DDS;
+						break;
+					default:
+						throw new CmdLineException("Invalid argument to option --texture-format: " + arg);
+				}
+			}
+			if (checkOption(cmdLine, optBenchmark)) {
+				String arg = cmdLine.getOptionValue(optBenchmark);
+				String[] parts = arg.split(",");
+				Options.benchmarkThreads = new int[parts.length];
+				for (int i = 0; i < parts.length; i++) {
+					Options.benchmarkThreads[i] = Integer.parseInt(parts[i].trim());
+					if (Options.benchmarkThreads[i] < 1) throw new CmdLineException("Benchmark threads must be at least 1");
+				}
+			}
 			Options.exportWorld = true;
 			List<String> remainingArgs = cmdLine.getArgList();
 			if (remainingArgs.size() == 1) {
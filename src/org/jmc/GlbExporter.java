@@ -0,0 +1,118 @@
+package org.jmc;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+
+import javax.annotation.CheckForNull;
+
+import org.apache.commons.io.FilenameUtils;
+import org.jmc.registry.Registries;
+import org.jmc.threading.ExportPipeline;
+import org.jmc.threading.InstanceLibrary;
+import org.jmc.threading.GlbWriterRunnable;
+import org.jmc.threading.ThreadOutputQueue;
+import org.jmc.util.Log;
+import org.jmc.util.Messages;
+
+/**
+ * Handles the export of Minecraft world geometry to a binary glTF (.glb) file.
+ * Textures are written to the same tex folder as the OBJ export and referenced
+ * from the file.
+ */
+public class GlbExporter {
+	/**
+	 * Do the export. Export settings are taken from the global Options.
+	 * The file is named after {@link Options#objFileName} with a .glb extension.
+	 *
+	 * @param progress
+	 *            If not null, the exporter will invoke this callback to inform
+	 *            on the operation's progress.
+	 * @param writeTex
+	 *            Whether to write the textures to the output folder.
+	 */
+	public static void export(@CheckForNull ProgressCallback progress, boolean writeTex) {
+		Log.debug("Exporting world "+Options.worldDir+" to GLB");
+
+		File glbfile = getOutputFile();
+
+		long exportTimer = System.nanoTime();
+
+		GlbWriterRunnable writeRunner = null;
+		try {
+			Registries.objTextures.clear();
+			InstanceLibrary.clear();
+			ObjExporter.resetErrors();
+
+			if (Options.maxX - Options.minX == 0 || Options.maxY - Options.minY == 0
+					|| Options.maxZ - Options.minZ == 0) {
+				Log.error(Messages.getString("MainPanel.SEL_ERR"), null, true);
+				return;
+			}
+
+			try {
+				glbfile.createNewFile();
+			} catch (IOException e) {
+				Log.error("Cannot write to the chosen location!", e);
+				return;
+			}
+
+			if (progress != null)
+				progress.setMessage(Messages.getString("Progress.GLB"));
+
+			// Calculate the boundaries of the chunks selected by the user
+			Point cs = Chunk.getChunkPos(Options.minX, Options.minZ);
+			Point ce = Chunk.getChunkPos(Options.maxX + 15, Options.maxZ + 15);
+			int chunksToDo = (ce.x - cs.x + 1) * (ce.y - cs.y + 1);
+
+			ChunkDataBuffer chunk_buffer = new ChunkDataBuffer(Options.minX, Options.maxX, Options.minY,
+					Options.maxY, Options.minZ, Options.maxZ);
+
+			ThreadOutputQueue outputQueue = new ThreadOutputQueue(Options.exportThreads);
+
+			writeRunner = new GlbWriterRunnable(outputQueue, glbfile, progress, chunksToDo);
+			ExportPipeline.configureWriter(writeRunner);
+
+			Log.info("Processing chunks...");
+
+			ExportPipeline.run(chunk_buffer, cs, ce, outputQueue, writeRunner);
+
+			chunk_buffer.removeAllChunks();
+
+			if (Thread.interrupted())
+				return;
+			if (writeRunner.getError() != null)
+				throw writeRunner.getError();
+
+			writeRunner.finish();
+
+			if (progress != null)
+				progress.setProgress(1);
+			Log.info("Saved model to " + glbfile.getAbsolutePath());
+
+			if (writeTex) {
+				Log.info("Exporting textures...");
+				synchronized (Registries.objTextures) {
+					TextureExporter.exportTextures(Registries.objTextures, progress);
+				}
+			}
+			Log.info("Export Time:" + (System.nanoTime() - exportTimer)/1000000000d);
+			Log.info("Done!");
+		} catch (InterruptedException e) {
+			Log.debug("Export interrupted!");
+		} catch (Exception e) {
+			Log.error("Error while exporting GLB:", e);
+		} finally {
+			if (writeRunner != null)
+				writeRunner.close();
+			System.gc();
+		}
+	}
+
+	/**
+	 * @return the file the GLB will be written to
+	 */
+	public static File getOutputFile() {
+		return new File(Options.outputDir, FilenameUtils.removeExtension(Options.objFileName) + ".glb");
+	}
+}
@@ -9,6 +9,7 @@ import org.jmc.Options.UIMode;
 import org.jmc.gui.MainWindow;
 import org.jmc.gui.Settings;
 import org.jmc.registry.Registries;
+import org.jmc.threading.ExportBenchmark;
 import org.jmc.util.IDConvert;
 import org.jmc.util.Log;
 
@@ -105,7 +106,14 @@ public class Main
 			System.exit(-2);
 		}
 		
-		if (Options.exportWorld) {
+		if (Options.benchmarkThreads != null) {
+			try {
+				ExportBenchmark.run(Options.benchmarkThreads);
+			} catch (InterruptedException e) {
+				Log.debug("Benchmark interrupted!");
+			}
+		}
+		else if (Options.exportWorld) {
 			ObjExporter.export(new ConsoleProgress(), Options.exportTex);
 		}
 	}
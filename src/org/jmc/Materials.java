@@ -8,9 +8,12 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
 
 import javax.annotation.CheckForNull;
 
+import org.jmc.TextureAtlas.Page;
 import org.jmc.registry.Registries;
 import org.jmc.registry.TextureEntry;
 import org.jmc.util.Filesystem;
@@ -48,29 +51,61 @@ public class Materials
 				Filesystem.writeFile(mtlFile.getInputStream(), dest);
 			}
 		} else*/ {
-			ByteArrayOutputStream matBuffer = new ByteArrayOutputStream();
-			int count = 0;
 			synchronized (Registries.objTextures) {
-				for (TextureEntry textureEntry : Registries.objTextures) {
-					try {
-						String alphaTex = null;
-						if (textureEntry.hasAlpha()) {
-							if (Options.textureAlpha) {
-								alphaTex = textureEntry.getExportFilePathAlpha();
-							} else {
-								alphaTex = textureEntry.getExportFilePath();
-							}
-						}
-						writeMaterial(matBuffer, textureEntry.getMatName(), textureEntry.getAverageColour(), null, textureEntry.getExportFilePath(), alphaTex);
-					} catch (IOException e) {
-						Log.error("Error writing material definition " + textureEntry.id, e);
+				writeMTLFile(dest, Registries.objTextures, "", progress);
+			}
+		}
+	}
+	
+	/**
+	 * Writes a .mtl file with a material for each of the given textures.
+	 * 
+	 * @param dest Destination file
+	 * @param textures Textures to write materials for
+	 * @param texPrefix Prepended to the texture paths, for files not written next to the tex folder
+	 * @param progress 
+	 */
+	public static void writeMTLFile(File dest, Collection<TextureEntry> textures, String texPrefix, ProgressCallback progress) throws IOException
+	{
+		ByteArrayOutputStream matBuffer = new ByteArrayOutputStream();
+		int count = 0;
+		for (TextureEntry textureEntry : textures) {
+			try {
+				String alphaTex = null;
+				if (textureEntry.hasAlpha()) {
+					if (Options.textureAlpha) {
+						alphaTex = texPrefix + textureEntry.getExportFilePathAlpha();
+					} else {
+						alphaTex = texPrefix + textureEntry.getExportFilePath();
 					}
-					if (progress != null)
-						progress.setProgress((float)++count / Registries.objTextures.size());
 				}
+				writeMaterial(matBuffer, textureEntry.getMatName(), textureEntry.getAverageColour(), null, texPrefix + textureEntry.getExportFilePath(), alphaTex);
+			} catch (IOException e) {
+				Log.error("Error writing material definition " + textureEntry.id, e);
+			}
+			if (progress != null)
+				progress.setProgress((float)++count / textures.size());
+		}
+		Files.copy(new ByteArrayInputStream(matBuffer.toByteArray()), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+	/**
+	 * Adds a material for each page of a texture atlas to a .mtl file.
+	 * 
+	 * @param dest The .mtl file
+	 * @param atlas The atlas
+	 */
+	public static void appendAtlasMaterials(File dest, TextureAtlas atlas) throws IOException
+	{
+		ByteArrayOutputStream matBuffer = new ByteArrayOutputStream();
+		for (Page page : atlas.getPages()) {
+			String alphaTex = null;
+			if (page.hasAlpha()) {
+				alphaTex = Options.textureAlpha ? page.getExportFilePathAlpha() : page.getExportFilePath();
 			}
-			Files.copy(new ByteArrayInputStream(matBuffer.toByteArray()), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			writeMaterial(matBuffer, page.getName(), Color.WHITE, null, page.getExportFilePath(), alphaTex);
 		}
+		Files.write(dest.toPath(), matBuffer.toByteArray(), StandardOpenOption.APPEND);
 	}
 	
 	private static void writeMaterial(ByteArrayOutputStream matBuffer, String matName, Color color, Color spec, @CheckForNull String diffTex, @CheckForNull String alphaTex) {
@@ -0,0 +1,129 @@
+package org.jmc;
+
+import java.awt.Point;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+import javax.annotation.CheckForNull;
+
+import org.apache.commons.io.FilenameUtils;
+import org.jmc.Options.ExportFormat;
+import org.jmc.registry.Registries;
+import org.jmc.threading.ChunkWriterRunnable;
+import org.jmc.threading.ExportPipeline;
+import org.jmc.threading.InstanceLibrary;
+import org.jmc.threading.PlyWriterRunnable;
+import org.jmc.threading.StlWriterRunnable;
+import org.jmc.threading.ThreadOutputQueue;
+import org.jmc.util.Log;
+import org.jmc.util.Messages;
+
+/**
+ * Handles the export of Minecraft world geometry to a binary PLY or STL file.
+ * Only the shape is exported, without materials or textures, for tools like
+ * physics engines and slicers that have no use for them.
+ */
+public class MeshExporter {
+	/**
+	 * Do the export. Export settings are taken from the global Options, the
+	 * format from {@link Options#exportFormat}.
+	 * The file is named after {@link Options#objFileName} with a .ply or .stl extension.
+	 *
+	 * @param progress
+	 *            If not null, the exporter will invoke this callback to inform
+	 *            on the operation's progress.
+	 */
+	public static void export(@CheckForNull ProgressCallback progress) {
+		Log.debug("Exporting world "+Options.worldDir+" to "+Options.exportFormat);
+
+		File outfile = getOutputFile();
+
+		long exportTimer = System.nanoTime();
+
+		Closeable cleanup = null;
+		try {
+			// models register the textures they use while processing
+			Registries.objTextures.clear();
+			InstanceLibrary.clear();
+			ObjExporter.resetErrors();
+
+			if (Options.maxX - Options.minX == 0 || Options.maxY - Options.minY == 0
+					|| Options.maxZ - Options.minZ == 0) {
+				Log.error(Messages.getString("MainPanel.SEL_ERR"), null, true);
+				return;
+			}
+
+			try {
+				outfile.createNewFile();
+			} catch (IOException e) {
+				Log.error("Cannot write to the chosen location!", e);
+				return;
+			}
+
+			if (progress != null)
+				progress.setMessage(Messages.getString("Progress.MESH"));
+
+			// Calculate the boundaries of the chunks selected by the user
+			Point cs = Chunk.getChunkPos(Options.minX, Options.minZ);
+			Point ce = Chunk.getChunkPos(Options.maxX + 15, Options.maxZ + 15);
+			int chunksToDo = (ce.x - cs.x + 1) * (ce.y - cs.y + 1);
+
+			ChunkDataBuffer chunk_buffer = new ChunkDataBuffer(Options.minX, Options.maxX, Options.minY,
+					Options.maxY, Options.minZ, Options.maxZ);
+
+			ThreadOutputQueue outputQueue = new ThreadOutputQueue(Options.exportThreads);
+
+			ChunkWriterRunnable writeRunner;
+			if (Options.exportFormat == ExportFormat.STL) {
+				StlWriterRunnable stl = new StlWriterRunnable(outputQueue, outfile, progress, chunksToDo);
+				writeRunner = stl;
+				cleanup = stl;
+			} else {
+				PlyWriterRunnable ply = new PlyWriterRunnable(outputQueue, outfile, progress, chunksToDo);
+				writeRunner = ply;
+				cleanup = ply;
+			}
+			ExportPipeline.configureWriter(writeRunner);
+
+			Log.info("Processing chunks...");
+
+			ExportPipeline.run(chunk_buffer, cs, ce, outputQueue, writeRunner);
+
+			chunk_buffer.removeAllChunks();
+
+			if (Thread.interrupted())
+				return;
+			if (writeRunner.getError() != null)
+				throw writeRunner.getError();
+
+			writeRunner.finish();
+
+			if (progress != null)
+				progress.setProgress(1);
+			Log.info("Saved model to " + outfile.getAbsolutePath());
+			Log.info("Export Time:" + (System.nanoTime() - exportTimer)/1000000000d);
+			Log.info("Done!");
+		} catch (InterruptedException e) {
+			Log.debug("Export interrupted!");
+		} catch (Exception e) {
+			Log.error("Error while exporting " + Options.exportFormat + ":", e);
+		} finally {
+			if (cleanup != null) {
+				try {
+					cleanup.close();
+				} catch (IOException e) {
+				}
+			}
+			System.gc();
+		}
+	}
+
+	/**
+	 * @return the file the mesh will be written to
+	 */
+	public static File getOutputFile() {
+		String ext = Options.exportFormat == ExportFormat.STL ? ".stl" : ".ply";
+		return new File(Options.outputDir, FilenameUtils.removeExtension(Options.objFileName) + ext);
+	}
+}
@@ -16,7 +16,7 @@ public class NullBlockInfo extends BlockInfo
 
 	NullBlockInfo()
 	{
-		super(NamespaceID.NULL, "unknown", null, Occlusion.NONE, null, false, null);
+		super(NamespaceID.NULL, "unknown", null, Occlusion.NONE, null, false, null, false);
 
 		noneModel = new None();
 	}
@@ -2,28 +2,46 @@ package org.jmc;
 
 import java.awt.Point;
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.annotation.CheckForNull;
 
-import org.jmc.Options.OffsetType;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.jmc.Options.ExportFormat;
+import org.jmc.geom.FaceUtils.Face;
+import org.jmc.geom.Vertex;
 import org.jmc.models.Banner;
 import org.jmc.registry.Registries;
-import org.jmc.threading.ReaderRunnable;
-import org.jmc.threading.ThreadInputQueue;
+import org.jmc.threading.ExportPipeline;
+import org.jmc.threading.InstanceLibrary;
+import org.jmc.threading.InstanceLibrary.Model;
 import org.jmc.threading.ThreadOutputQueue;
+import org.jmc.threading.ThreadOutputQueue.ChunkOutput;
+import org.jmc.threading.TilePipeline;
 import org.jmc.threading.WriterRunnable;
 import org.jmc.util.Filesystem;
-import org.jmc.util.Hilbert.HilbertComparator;
 import org.jmc.util.Log;
 import org.jmc.util.Messages;
+import org.jmc.util.ParallelGzipOutputStream;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 
 /**
  * Handles the export of Minecraft world geometry to an .OBJ file (with matching
@@ -49,13 +67,46 @@ public class ObjExporter {
 	 *            on the operation's progress.
 	 * @param writeTex
 	 *            Whether to write the textures to the output folder.
+	 * @see GlbExporter
+	 * @see TilesExporter
+	 * @see MeshExporter
 	 */
 	public static void export(@CheckForNull ProgressCallback progress, boolean writeTex) {
+		switch (Options.exportFormat) {
+		case GLB:
+			GlbExporter.export(progress, writeTex);
+			return;
+		case TILES:
+			TilesExporter.export(progress, writeTex);
+			return;
+		case PLY:
+		case STL:
+			MeshExporter.export(progress);
+			return;
+		default:
+			break;
+		}
+		if (Options.filePerTile) {
+			exportTiles(progress, writeTex);
+			return;
+		}
+		
 		Log.debug("Exporting world "+Options.worldDir);
 		
 		File objfile = new File(Options.outputDir, Options.objFileName);
 		File mtlfile = new File(Options.outputDir, Options.mtlFileName);
-		File tmpdir = new File(Options.outputDir, "temp");
+		File outfile = Options.gzipObj ? new File(Options.outputDir, Options.objFileName + ".gz") : objfile;
+		boolean sort = needsSort();
+		File workdir;
+		try {
+			workdir = createWorkDir(sort);
+		} catch (IOException e) {
+			Log.error("Cannot create temp directory!", e);
+			return;
+		}
+		if (workdir != null)
+			objfile = new File(workdir, Options.objFileName);
+		File tmpdir = new File(workdir != null ? workdir : Options.outputDir, "temp");
 
 		if (tmpdir.exists()) {
 			Log.error("Cannot create directory: " + tmpdir.getAbsolutePath() + "\nSomething is in the way.", null);
@@ -63,20 +114,18 @@ public class ObjExporter {
 		}
 
 		try {
-			objfile.createNewFile();
+			outfile.createNewFile();
 			mtlfile.createNewFile();
 		} catch (IOException e) {
 			Log.error("Cannot write to the chosen location!", e);
 			return;
 		}
 		
-		ArrayList<Thread> threads = new ArrayList<>(Options.exportThreads);
-		Thread writeThread = null;
-		
 		long exportTimer = System.nanoTime();
 
 		try {
 			Registries.objTextures.clear();
+			InstanceLibrary.clear();
 			resetErrors();
 			
 			if (Options.maxX - Options.minX == 0 || Options.maxY - Options.minY == 0
@@ -85,7 +134,7 @@ public class ObjExporter {
 				return;
 			}
 
-			PrintWriter obj_writer = new PrintWriter(objfile, StandardCharsets.UTF_8.name());
+			PrintWriter obj_writer = openObjWriter(sort ? objfile : outfile);
 			
 			if (progress != null)
 				progress.setMessage(Messages.getString("Progress.OBJ"));
@@ -93,23 +142,6 @@ public class ObjExporter {
 			// Calculate the boundaries of the chunks selected by the user
 			Point cs = Chunk.getChunkPos(Options.minX, Options.minZ);
 			Point ce = Chunk.getChunkPos(Options.maxX + 15, Options.maxZ + 15);
-			int oxs, oys, ozs;
-
-			if (Options.offsetType == OffsetType.CENTER) {
-				oxs = -(Options.minX + (Options.maxX - Options.minX) / 2);
-				oys = -Options.minY;
-				ozs = -(Options.minZ + (Options.maxZ - Options.minZ) / 2);
-				Log.info("Center offset: " + oxs + "/" + oys + "/" + ozs);
-			} else if (Options.offsetType == OffsetType.CUSTOM) {
-				oxs = Options.offsetX;
-				oys = 0;
-				ozs = Options.offsetZ;
-				Log.info("Custom offset: " + oxs + "/" + oys + "/" + ozs);
-			} else {
-				oxs = 0;
-				oys = 0;
-				ozs = 0;
-			}
 
 			/*if (Options.useUVFile) {
 				Log.info("Using file to recalculate UVs: " + Options.UVFile.getAbsolutePath());
@@ -127,20 +159,27 @@ public class ObjExporter {
 			ChunkDataBuffer chunk_buffer = new ChunkDataBuffer(Options.minX, Options.maxX, Options.minY,
 					Options.maxY, Options.minZ, Options.maxZ);
 			
-			ThreadInputQueue inputQueue = new ThreadInputQueue();
 			ThreadOutputQueue outputQueue = new ThreadOutputQueue(Options.exportThreads);
 
 			WriterRunnable writeRunner = new WriterRunnable(outputQueue, obj_writer, progress, chunksToDo);
-			writeRunner.setOffset(oxs, oys, ozs);
-			writeRunner.setScale(Options.scale);
+			ExportPipeline.configureWriter(writeRunner);
 
-			obj_writer.println("mtllib " + mtlfile.getName());
-			obj_writer.println();
-			if (!Options.objectPerMaterial && !Options.objectPerBlock && !Options.objectPerChunk){
-				obj_writer.println("o minecraft");
-				obj_writer.println();
+			TextureAtlas atlas = null;
+			if (Options.textureMerge) {
+				atlas = new TextureAtlas(Options.atlasSize);
+				writeRunner.setAtlas(atlas);
+			}
+
+			String baseName = FilenameUtils.removeExtension(Options.objFileName);
+			File instancefile = new File(Options.outputDir, baseName + "_instances.csv");
+			PrintWriter instance_writer = null;
+			if (Options.instancing) {
+				instance_writer = new PrintWriter(instancefile, StandardCharsets.UTF_8.name());
+				writeRunner.setInstanceWriter(instance_writer);
 			}
 
+			writeObjHeader(obj_writer, mtlfile);
+
 			/*if (Options.singleMaterial) {
 				obj_writer.println("usemtl minecraft_material");
 				obj_writer.println();
@@ -149,236 +188,170 @@ public class ObjExporter {
 			
 			Log.info("Processing chunks...");
 			
-			for (int i = 0; i < Options.exportThreads; i++) {
-				Thread thread = new Thread(new ReaderRunnable(chunk_buffer, cs, ce, inputQueue, outputQueue));
-				thread.setName("ReadThread-" + i);
-				thread.setPriority(Thread.NORM_PRIORITY - 1);
-				threads.add(thread);
-				thread.start();
-			}
-
-			writeThread = new Thread(writeRunner);
-			writeThread.setName("WriteThread");
-			writeThread.start();
-			
 			long objTimer = System.nanoTime();
 			
-			ArrayList<Point> chunkList = new ArrayList<>();
+			ExportPipeline.run(chunk_buffer, cs, ce, outputQueue, writeRunner);
+			writeRunner.logPaletteStats();
 			
-			// loop through the chunks selected by the user
-			for (int cx = cs.x; cx <= ce.x; cx++) {
-				for (int cz = cs.y; cz <= ce.y; cz++) {
-					chunkList.add(new Point(cx, cz));
-				}
-			}
-			
-			chunkList.sort(new HilbertComparator(Math.max(ce.x - cs.x, ce.y - cs.y)));
-			
-			for (Point chunk : chunkList) {
-				inputQueue.add(chunk);
-			}
-			
-			inputQueue.finish();
-			
-			long objTimer2 = System.nanoTime();
-			
-			for (Thread thread : threads){
-				thread.join();
-			}
-			Log.debug("Reading Chunks:" + (System.nanoTime() - objTimer2)/1000000000d);
-			objTimer2 = System.nanoTime();
-			
-			outputQueue.waitUntilEmpty();
-			writeThread.interrupt();
-			writeThread.join();
-			
-			Log.debug("Writing File:" + (System.nanoTime() - objTimer2)/1000000000d);
 			Log.info("OBJ Export Time:" + (System.nanoTime() - objTimer)/1000000000d);
 			
 			chunk_buffer.removeAllChunks();
 
-			obj_writer.close();
+			closeObjWriter(obj_writer, sort ? objfile : outfile);
+			if (instance_writer != null)
+				instance_writer.close();
 			
 			if (Thread.interrupted())
 				return;
+			
+			if (instance_writer != null) {
+				List<Model> models = InstanceLibrary.getModels();
+				if (models.isEmpty()) {
+					instancefile.delete();
+				} else {
+					File modelfile = new File(Options.outputDir, baseName + "_instances.obj");
+					writeInstanceModels(modelfile, mtlfile, models, atlas);
+					Log.info(String.format("Saved %d instanced models to %s", models.size(), modelfile.getAbsolutePath()));
+				}
+			}
 
 			if (progress != null)
 				progress.setProgress(1);
-			Log.info("Saved model to " + objfile.getAbsolutePath());
 
-			if (!Options.objectPerBlock && (!Options.objectPerChunk || Options.objectPerMaterial)) {
+			if (sort) {
 				//mmdanggg2: in maya the obj importer does not recognise the same obj group appearing twice
 				//		so if we want to export per chunk, the current sorting will not work in maya.
 				Log.info("Sorting OBJ file...");
 				if (progress != null)
 					progress.setMessage(Messages.getString("Progress.OBJ_SORT"));
 
-				if (!tmpdir.mkdir()) {
-					Log.error("Cannot temp create directory: " + tmpdir.getAbsolutePath(), null);
+				if (!sortObjFile(objfile, outfile, tmpdir, progress))
 					return;
+			}
+			Log.info("Saved model to " + outfile.getAbsolutePath());
+			
+			Log.info(String.format("Writing materials to %s...", mtlfile.getAbsolutePath()));
+			Materials.writeMTLFile(mtlfile, progress);
+			if (atlas != null) {
+				Materials.appendAtlasMaterials(mtlfile, atlas);
+				Log.info(String.format("Packed textures into %d atlas pages", atlas.getPages().size()));
+			}
+			
+			if (writeTex) {
+				Log.info("Exporting textures...");
+				synchronized (Registries.objTextures) {
+					TextureExporter.exportTextures(Registries.objTextures, progress);
 				}
+				if (atlas != null)
+					atlas.write(progress);
+			}
+			Log.info("Export Time:" + (System.nanoTime() - exportTimer)/1000000000d);
+			Log.info("Done!");
+		} catch (InterruptedException e) {
+			Log.debug("Export interrupted!");
+		} catch (Exception e) {
+			Log.error("Error while exporting OBJ:", e);
+		} finally {
+			if (workdir != null)
+				FileUtils.deleteQuietly(workdir);
+			System.gc();
+		}
+	}
 
-				File mainfile = new File(tmpdir, "main");
-				PrintWriter main = new PrintWriter(mainfile, StandardCharsets.UTF_8.name());
-				File vertexfile = new File(tmpdir, "vertex");
-				PrintWriter vertex = new PrintWriter(vertexfile, StandardCharsets.UTF_8.name());
-				File normalfile = new File(tmpdir, "normal");
-				PrintWriter normal = new PrintWriter(normalfile, StandardCharsets.UTF_8.name());
-				File uvfile = new File(tmpdir, "uv");
-				PrintWriter uv = new PrintWriter(uvfile, StandardCharsets.UTF_8.name());
-
-				BufferedReader objin = Files.newBufferedReader(objfile.toPath(), StandardCharsets.UTF_8);
-
-				Map<String, FaceFile> faces = new HashMap<>();
-				int facefilecount = 1;
-
-				FaceFile current_ff = null;
-				String current_o = "o default";
-
-				int maxcount = (int) objfile.length();
-				if (maxcount == 0)
-					maxcount = 1;
-				int count = 0;
-
-				String line;
-				while ((line = objin.readLine()) != null) {
-					if (line.length() == 0)
-						continue;
-
-					count += line.length() + 1;
-					if (count > maxcount)
-						count = maxcount;
-
-					if (progress != null)
-						progress.setProgress(0.5f * (float) count / (float) maxcount);
-
-					if (line.startsWith("usemtl ")) {
-						line = line.substring(7).trim();
-
-						if (!faces.containsKey(line)) {
-							current_ff = new FaceFile();
-							current_ff.name = line;
-							current_ff.file = new File(tmpdir, "" + facefilecount);
-							facefilecount++;
-							current_ff.writer = new PrintWriter(current_ff.file, StandardCharsets.UTF_8.name());
-							faces.put(line, current_ff);
-						} else
-							current_ff = faces.get(line);
-
-						if (Options.objectPerChunk) {
-							current_ff.writer.println();
-							current_ff.writer.println(current_o);
-							current_ff.writer.println();
-						}
-					} else if (line.startsWith("f ")) {
-						if (current_ff != null) {
-							current_ff.writer.println(line);
-						}
-					} else if (line.startsWith("v ")) {
-						vertex.println(line);
-					} else if (line.startsWith("vn ")) {
-						normal.println(line);
-					} else if (line.startsWith("vt ")) {
-						uv.println(line);
-					} else if (line.startsWith("o ")) {
-						current_o = line;
-					} else {
-						main.println(line);
-						if (line.startsWith("mtllib"))
-							main.println();
-					}
-				}
-
-				objin.close();
-
-				vertex.close();
-				normal.close();
-				uv.close();
-
-				/*if (Options.singleMaterial) {
-					main.println("usemtl minecraft_material");
-					main.println();
-				}*///TODO fix single tex export
-
-				BufferedReader norm_reader = Files.newBufferedReader(normalfile.toPath(), StandardCharsets.UTF_8);
-				while ((line = norm_reader.readLine()) != null)
-					main.println(line);
-				norm_reader.close();
-				normalfile.delete();
-
-				BufferedReader uv_reader = Files.newBufferedReader(uvfile.toPath(), StandardCharsets.UTF_8);
-				while ((line = uv_reader.readLine()) != null)
-					main.println(line);
-				uv_reader.close();
-				uvfile.delete();
-
-				BufferedReader vertex_reader = Files.newBufferedReader(vertexfile.toPath(), StandardCharsets.UTF_8);
-				while ((line = vertex_reader.readLine()) != null)
-					main.println(line);
-				vertex_reader.close();
-				vertexfile.delete();
-
-				count = 0;
-				maxcount = faces.size();
-
-				for (FaceFile ff : faces.values()) {
-					String current_mat = ff.name;
-
-					ff.writer.close();
+	/**
+	 * Exports one OBJ/MTL pair per tile of {@link Options#tileSize} chunks,
+	 * plus a manifest listing the tiles and their bounds. Every tile has its
+	 * own writer and vertex indices so the tiles are written in parallel.
+	 */
+	private static void exportTiles(@CheckForNull ProgressCallback progress, boolean writeTex) {
+		Log.debug("Exporting world "+Options.worldDir+" to OBJ tiles");
+		
+		File tileDir = new File(Options.outputDir, FilenameUtils.removeExtension(Options.objFileName) + "_tiles");
+		
+		long exportTimer = System.nanoTime();
 
-					count++;
-					if (progress != null)
-						progress.setProgress(0.5f + 0.5f * (float) count / (float) maxcount);
+		try {
+			Registries.objTextures.clear();
+			InstanceLibrary.clear();
+			resetErrors();
+			
+			if (Options.maxX - Options.minX == 0 || Options.maxY - Options.minY == 0
+					|| Options.maxZ - Options.minZ == 0) {
+				Log.error(Messages.getString("MainPanel.SEL_ERR"), null, true);
+				return;
+			}
+			
+			if (!tileDir.isDirectory() && !tileDir.mkdirs()) {
+				Log.error("Cannot create directory: " + tileDir.getAbsolutePath(), null);
+				return;
+			}
+			if (Options.textureMerge)
+				Log.info("The texture atlas is not supported with a file per tile, exporting separate textures.");
+			
+			if (progress != null)
+				progress.setMessage(Messages.getString("Progress.OBJ"));
 
-					vertex.println();
-					if (Options.objectPerMaterial && !Options.objectPerChunk)
-						main.println("o " + ff.name);
-					main.println();
+			// Calculate the boundaries of the chunks selected by the user
+			Point cs = Chunk.getChunkPos(Options.minX, Options.minZ);
+			Point ce = Chunk.getChunkPos(Options.maxX + 15, Options.maxZ + 15);
 
-					/*if (!Options.singleMaterial)TODO fix single tex export*/ {
-						main.println("usemtl " + ff.name);
-						main.println();
+			ChunkDataBuffer chunk_buffer = new ChunkDataBuffer(Options.minX, Options.maxX, Options.minY,
+					Options.maxY, Options.minZ, Options.maxZ);
+			Vertex offset = ExportPipeline.getOffset();
+			
+			TilePipeline tiles = new TilePipeline(chunk_buffer, cs, ce, Options.tileSize, progress);
+			Map<Point, float[][]> tileBounds = tiles.run((tile, chunks) -> {
+				String name = "tile_" + tile.x + "_" + tile.y;
+				File outfile = Options.gzipObj ? new File(tileDir, name + ".obj.gz") : new File(tileDir, name + ".obj");
+				File mtlfile = new File(tileDir, name + ".mtl");
+				boolean sort = needsSort();
+				File workdir = createWorkDir(sort);
+				File objfile = new File(workdir != null ? workdir : tileDir, name + ".obj");
+				
+				try {
+					WriterRunnable writer;
+					try (PrintWriter obj_writer = openObjWriter(sort ? objfile : outfile)) {
+						writer = new WriterRunnable(null, obj_writer, null, chunks.size());
+						writer.setOffset(offset.x, offset.y, offset.z);
+						writer.setScale(Options.scale);
+						writeObjHeader(obj_writer, mtlfile);
+						
+						tiles.processChunks(chunks, writer);
+						closeObjWriter(obj_writer, sort ? objfile : outfile);
 					}
-
-					BufferedReader reader = Files.newBufferedReader(ff.file.toPath(), StandardCharsets.UTF_8);
-					while ((line = reader.readLine()) != null) {
-						if (Options.objectPerChunk && line.startsWith("o ")) {
-							if (Options.objectPerMaterial)
-								main.println(line + "_" + current_mat);
-							else
-								main.println(line);
-						} else
-							main.println(line);
+					
+					// every face is preceded by a usemtl, so no textures means no faces
+					if (writer.getUsedTextures().isEmpty()) {
+						(sort ? objfile : outfile).delete();
+						return null;
 					}
-					reader.close();
-
-					ff.file.delete();
+					if (sort) {
+						File tmpdir = workdir != null ? new File(workdir, "temp") : new File(tileDir, "temp_" + name);
+						if (!sortObjFile(objfile, outfile, tmpdir, null))
+							throw new IOException("Cannot sort " + objfile.getName());
+					}
+					Materials.writeMTLFile(mtlfile, writer.getUsedTextures(), "../", null);
+					return writer.getBounds();
+				} finally {
+					if (workdir != null)
+						FileUtils.deleteQuietly(workdir);
 				}
-
-				main.close();
-
-				Filesystem.moveFile(mainfile, objfile);
-
-				if (progress != null)
-					progress.setProgress(1);
-
-				if (!tmpdir.delete())
-					Log.error("Failed to erase temp dir: " + tmpdir.getAbsolutePath()
-							+ "\nPlease remove it yourself!", null);
-			}
+			});
 			
-			Log.info(String.format("Writing materials to %s...", mtlfile.getAbsolutePath()));
-			Materials.writeMTLFile(mtlfile, progress);
+			chunk_buffer.removeAllChunks();
+			
+			if (Thread.interrupted())
+				return;
+			
+			writeTileManifest(new File(tileDir, "manifest.json"), tiles, tileBounds);
+			
+			if (progress != null)
+				progress.setProgress(1);
+			Log.info(String.format("Saved %d tiles to %s", tileBounds.size(), tileDir.getAbsolutePath()));
 			
 			if (writeTex) {
 				Log.info("Exporting textures...");
 				synchronized (Registries.objTextures) {
-					/*if (Options.textureMerge) {
-						Log.error("Texture merging is not supported!", null);
-						TextureExporter.mergeTextures(Registries.objTextures, progress);
-					} else {
-						TextureExporter.exportTextures(Registries.objTextures, progress);
-					//}*/// TODO fix single tex export
 					TextureExporter.exportTextures(Registries.objTextures, progress);
 				}
 			}
@@ -389,17 +362,287 @@ public class ObjExporter {
 		} catch (Exception e) {
 			Log.error("Error while exporting OBJ:", e);
 		} finally {
-			for (Thread t : threads) {
-				t.interrupt();
+			System.gc();
+		}
+	}
+	
+	/**
+	 * Writes the list of the tiles with their chunk ranges and bounds.
+	 */
+	private static void writeTileManifest(File file, TilePipeline tiles, Map<Point, float[][]> tileBounds) throws IOException {
+		Gson gson = new GsonBuilder().setPrettyPrinting().create();
+		List<Point> tileList = new ArrayList<>(tileBounds.keySet());
+		tileList.sort((a, b) -> a.x != b.x ? Integer.compare(a.x, b.x) : Integer.compare(a.y, b.y));
+		
+		JsonArray tileArr = new JsonArray();
+		for (Point tile : tileList) {
+			String name = "tile_" + tile.x + "_" + tile.y;
+			Point[] range = tiles.getTileChunks(tile);
+			float[][] bounds = tileBounds.get(tile);
+			
+			JsonObject entry = new JsonObject();
+			entry.addProperty("x", tile.x);
+			entry.addProperty("z", tile.y);
+			entry.add("chunks", gson.toJsonTree(new int[] { range[0].x, range[0].y, range[1].x, range[1].y }));
+			entry.addProperty("obj", name + (Options.gzipObj ? ".obj.gz" : ".obj"));
+			entry.addProperty("mtl", name + ".mtl");
+			entry.add("min", gson.toJsonTree(bounds[0]));
+			entry.add("max", gson.toJsonTree(bounds[1]));
+			tileArr.add(entry);
+		}
+		
+		JsonObject manifest = new JsonObject();
+		manifest.addProperty("tileSize", Options.tileSize);
+		manifest.add("tiles", tileArr);
+		try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			gson.toJson(manifest, out);
+		}
+	}
+	
+	/**
+	 * Writes the instanced models to an OBJ file, each as an object at the origin.
+	 * The placements are in the matching CSV file.
+	 * The models use the same texture atlas as the main file, if there is one.
+	 */
+	private static void writeInstanceModels(File file, File mtlfile, List<Model> models, @CheckForNull TextureAtlas atlas) throws IOException {
+		try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+			out.println("mtllib " + mtlfile.getName());
+			WriterRunnable writer = new WriterRunnable(null, out, null, models.size());
+			writer.setScale(Options.scale);
+			if (atlas != null)
+				writer.setAtlas(atlas);
+			for (Model model : models) {
+				out.println();
+				out.println("o " + model.getName());
+				writer.writeChunk(new ChunkOutput(null, new ArrayList<Face>(model.getFaces())));
+			}
+		}
+	}
+	
+	private static void writeObjHeader(PrintWriter obj_writer, File mtlfile) {
+		obj_writer.println("mtllib " + mtlfile.getName());
+		obj_writer.println();
+		if (!Options.objectPerMaterial && !Options.objectPerBlock && !Options.objectPerChunk){
+			obj_writer.println("o minecraft");
+			obj_writer.println();
+		}
+	}
+	
+	/**
+	 * @return whether the OBJ file has to be sorted after writing
+	 */
+	private static boolean needsSort() {
+		return !Options.objectPerBlock && (!Options.objectPerChunk || Options.objectPerMaterial);
+	}
+	
+	/**
+	 * Compressed files are usually asked for to keep the output folder small,
+	 * or because it is on slow network storage. The unsorted OBJ file and the
+	 * sort's temp files are only read back locally, so they go to a new
+	 * folder in the system temp folder instead.
+	 * @param sort whether the OBJ file will be sorted
+	 * @return the new folder, or null if the files can stay in the output folder
+	 */
+	@CheckForNull
+	private static File createWorkDir(boolean sort) throws IOException {
+		if (!Options.gzipObj || !sort)
+			return null;
+		return Files.createTempDirectory("jmc").toFile();
+	}
+	
+	/**
+	 * Opens a writer for an OBJ file, gzip compressed if the name ends in .gz.
+	 */
+	private static PrintWriter openObjWriter(File file) throws IOException {
+		if (!file.getName().endsWith(".gz"))
+			return new PrintWriter(file, StandardCharsets.UTF_8.name());
+		OutputStream out = new ParallelGzipOutputStream(new FileOutputStream(file));
+		return new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+	}
+	
+	/**
+	 * Closes a writer opened by {@link #openObjWriter(File)}. PrintWriter
+	 * hides write errors, like a full disk or a failed compression, so they
+	 * are checked here.
+	 * @throws IOException if the file wasn't written completely
+	 */
+	private static void closeObjWriter(PrintWriter writer, File file) throws IOException {
+		writer.close();
+		if (writer.checkError())
+			throw new IOException("Error writing " + file.getAbsolutePath());
+	}
+	
+	/**
+	 * Groups the faces in the OBJ file by material, and moves all the vertices,
+	 * normals and UVs to the top of the file. Uses temporary files in tmpdir.
+	 * @param objfile file to sort
+	 * @param outfile where to write the sorted file, if different from objfile
+	 *            the sorted file is written there directly (compressed if it
+	 *            ends in .gz) and objfile is deleted
+	 * @return false if the temp directory couldn't be created
+	 */
+	private static boolean sortObjFile(File objfile, File outfile, File tmpdir, @CheckForNull ProgressCallback progress) throws IOException {
+		if (!tmpdir.mkdir()) {
+			Log.error("Cannot temp create directory: " + tmpdir.getAbsolutePath(), null);
+			return false;
+		}
+
+		boolean inPlace = outfile.equals(objfile);
+		File mainfile = new File(tmpdir, "main");
+		PrintWriter main = inPlace ? new PrintWriter(mainfile, StandardCharsets.UTF_8.name()) : openObjWriter(outfile);
+		File vertexfile = new File(tmpdir, "vertex");
+		PrintWriter vertex = new PrintWriter(vertexfile, StandardCharsets.UTF_8.name());
+		File normalfile = new File(tmpdir, "normal");
+		PrintWriter normal = new PrintWriter(normalfile, StandardCharsets.UTF_8.name());
+		File uvfile = new File(tmpdir, "uv");
+		PrintWriter uv = new PrintWriter(uvfile, StandardCharsets.UTF_8.name());
+
+		BufferedReader objin = Files.newBufferedReader(objfile.toPath(), StandardCharsets.UTF_8);
+
+		Map<String, FaceFile> faces = new HashMap<>();
+		int facefilecount = 1;
+
+		FaceFile current_ff = null;
+		String current_o = "o default";
+
+		int maxcount = (int) objfile.length();
+		if (maxcount == 0)
+			maxcount = 1;
+		int count = 0;
+
+		String line;
+		while ((line = objin.readLine()) != null) {
+			if (line.length() == 0)
+				continue;
+
+			count += line.length() + 1;
+			if (count > maxcount)
+				count = maxcount;
+
+			if (progress != null)
+				progress.setProgress(0.5f * (float) count / (float) maxcount);
+
+			if (line.startsWith("usemtl ")) {
+				line = line.substring(7).trim();
+
+				if (!faces.containsKey(line)) {
+					current_ff = new FaceFile();
+					current_ff.name = line;
+					current_ff.file = new File(tmpdir, "" + facefilecount);
+					facefilecount++;
+					current_ff.writer = new PrintWriter(current_ff.file, StandardCharsets.UTF_8.name());
+					faces.put(line, current_ff);
+				} else
+					current_ff = faces.get(line);
+
+				if (Options.objectPerChunk) {
+					current_ff.writer.println();
+					current_ff.writer.println(current_o);
+					current_ff.writer.println();
+				}
+			} else if (line.startsWith("f ")) {
+				if (current_ff != null) {
+					current_ff.writer.println(line);
+				}
+			} else if (line.startsWith("v ")) {
+				vertex.println(line);
+			} else if (line.startsWith("vn ")) {
+				normal.println(line);
+			} else if (line.startsWith("vt ")) {
+				uv.println(line);
+			} else if (line.startsWith("o ")) {
+				current_o = line;
+			} else {
+				main.println(line);
+				if (line.startsWith("mtllib"))
+					main.println();
+			}
+		}
+
+		objin.close();
+
+		vertex.close();
+		normal.close();
+		uv.close();
+
+		/*if (Options.singleMaterial) {
+			main.println("usemtl minecraft_material");
+			main.println();
+		}*///TODO fix single tex export
+
+		BufferedReader norm_reader = Files.newBufferedReader(normalfile.toPath(), StandardCharsets.UTF_8);
+		while ((line = norm_reader.readLine()) != null)
+			main.println(line);
+		norm_reader.close();
+		normalfile.delete();
+
+		BufferedReader uv_reader = Files.newBufferedReader(uvfile.toPath(), StandardCharsets.UTF_8);
+		while ((line = uv_reader.readLine()) != null)
+			main.println(line);
+		uv_reader.close();
+		uvfile.delete();
+
+		BufferedReader vertex_reader = Files.newBufferedReader(vertexfile.toPath(), StandardCharsets.UTF_8);
+		while ((line = vertex_reader.readLine()) != null)
+			main.println(line);
+		vertex_reader.close();
+		vertexfile.delete();
+
+		count = 0;
+		maxcount = faces.size();
+
+		for (FaceFile ff : faces.values()) {
+			String current_mat = ff.name;
+
+			ff.writer.close();
+
+			count++;
+			if (progress != null)
+				progress.setProgress(0.5f + 0.5f * (float) count / (float) maxcount);
+
+			vertex.println();
+			if (Options.objectPerMaterial && !Options.objectPerChunk)
+				main.println("o " + ff.name);
+			main.println();
+
+			/*if (!Options.singleMaterial)TODO fix single tex export*/ {
+				main.println("usemtl " + ff.name);
+				main.println();
 			}
-			if (writeThread != null) {
-				writeThread.interrupt();
+
+			BufferedReader reader = Files.newBufferedReader(ff.file.toPath(), StandardCharsets.UTF_8);
+			while ((line = reader.readLine()) != null) {
+				if (Options.objectPerChunk && line.startsWith("o ")) {
+					if (Options.objectPerMaterial)
+						main.println(line + "_" + current_mat);
+					else
+						main.println(line);
+				} else
+					main.println(line);
 			}
-			System.gc();
+			reader.close();
+
+			ff.file.delete();
 		}
+
+		closeObjWriter(main, inPlace ? mainfile : outfile);
+
+		if (inPlace)
+			Filesystem.moveFile(mainfile, objfile);
+		else if (!objfile.delete())
+			Log.error("Failed to erase unsorted file: " + objfile.getAbsolutePath(), null);
+
+		if (progress != null)
+			progress.setProgress(1);
+
+		if (!tmpdir.delete())
+			Log.error("Failed to erase temp dir: " + tmpdir.getAbsolutePath()
+					+ "\nPlease remove it yourself!", null);
+
+		return true;
 	}
 
-	private static void resetErrors() {
+	static void resetErrors() {
 		Banner.resetReadError();
 		Log.resetSingles();
 	}
@@ -1,12 +1,11 @@
 package org.jmc;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.jmc.registry.NamespaceID;
 
@@ -32,6 +31,31 @@ public class Options
 		CUSTOM
 	}
 
+	public enum ExportFormat
+	{
+		OBJ,
+		GLB,
+		TILES,
+		PLY,
+		STL
+	}
+
+	public enum TextureFormat
+	{
+		PNG("png"),
+		DDS("dds");
+
+		/**
+		 * Extension of the texture files, without the dot.
+		 */
+		public final String extension;
+
+		private TextureFormat(String extension)
+		{
+			this.extension = extension;
+		}
+	}
+
 	public enum OverwriteAction
 	{
 		ASK,
@@ -62,8 +86,10 @@ public class Options
 
 	/**
 	 * Path to the resource packs to extract.
+	 * Copy on write so it can be read without locking, changes that have to be
+	 * seen all at once are made while holding its lock.
 	 */
-	public static List<File> resourcePacks = Collections.synchronizedList(new ArrayList<File>());
+	public static List<File> resourcePacks = new CopyOnWriteArrayList<File>();
 
 	/**
 	 * Whether to export the textures.
@@ -75,6 +101,12 @@ public class Options
 	 */
 	public static double textureScale = 1.0;
 	
+	/**
+	 * File format of the exported textures. DDS files are uncompressed and
+	 * hold the full chain of mipmaps.
+	 */
+	public static TextureFormat textureFormat = TextureFormat.PNG;
+	
 	/**
 	 * Whether to overwrite existing textures.
 	 */
@@ -102,10 +134,16 @@ public class Options
 	public static boolean textureSpecular = false;
 
 	/**
-	 * Merge textures into one file.
+	 * Pack the textures into atlas images of {@link #atlasSize} and use one
+	 * material per atlas. Only for the OBJ export to a single file.
 	 */
 	public static boolean textureMerge = false;
 	
+	/**
+	 * Width and height of the texture atlas images, in pixels.
+	 */
+	public static int atlasSize = 2048;
+	
 	/**
 	 * Export a separate pass for blocks that should emit light. Useful for
 	 * renders using GI.
@@ -258,8 +296,14 @@ public class Options
 	 */
 	public static OverwriteAction mtlOverwriteAction = OverwriteAction.ASK;
 
+	/**
+	 * File format to export the geometry to.
+	 */
+	public static ExportFormat exportFormat = ExportFormat.OBJ;
+
 	/**
 	 * Name of .OBJ file to export.
+	 * Other formats use the same name with their own extension.
 	 */
 	public static String objFileName = "minecraft.obj";
 
@@ -269,7 +313,48 @@ public class Options
 	public static String mtlFileName = "minecraft.mtl";
 	
 	/**
-	 * How many threads to use when exporting.
+	 * If true, the OBJ export writes a separate OBJ/MTL pair for each tile.
+	 */
+	public static boolean filePerTile = false;
+
+	/**
+	 * Width of the tiles in chunks, when exporting tiles.
+	 * The default of 32 puts each region in its own tile.
+	 */
+	public static int tileSize = 32;
+	
+	/**
+	 * If true, OBJ files are written gzip compressed with a .gz suffix.
+	 */
+	public static boolean gzipObj = false;
+	
+	/**
+	 * If true, blocks marked as instanced in blocks.conf are written once per
+	 * distinct model plus a list of placements, instead of a copy per block.
+	 */
+	public static boolean instancing = false;
+
+	/**
+	 * How many threads to use when exporting, for building the geometry of
+	 * the chunks.
 	 */
 	public static int exportThreads = 8;
+
+	/**
+	 * How many threads to use when exporting for reading the chunks from the
+	 * region files. Few suit slow or network disks, more suit fast SSDs.
+	 */
+	public static int decodeThreads = 4;
+
+	/**
+	 * How many threads to use when writing the textures.
+	 */
+	public static int textureThreads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * If not null, the selection is only processed once with each of these
+	 * numbers of threads, to compare how many chunks per second they manage.
+	 * Only used in console mode.
+	 */
+	public static int[] benchmarkThreads = null;
 }
@@ -18,9 +18,11 @@ import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.Vector;
+import java.util.function.Consumer;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.InflaterInputStream;
 
+import org.apache.commons.io.IOUtils;
 import org.jmc.util.Log;
 
 /**
@@ -44,6 +46,10 @@ public class Region implements Iterable<Chunk> {
 	 * Buffer of offsets of individual chunks.
 	 */
 	private ByteBuffer offset;
+	/**
+	 * Buffer of the last modification times of individual chunks.
+	 */
+	private ByteBuffer timestamps;
 	/**
 	 * Buffer of offsets of individual in the entiy file chunks.
 	 */
@@ -77,8 +83,11 @@ public class Region implements Iterable<Chunk> {
 		FileInputStream fis=new FileInputStream(region_file);
 
 		byte [] offset_array=new byte[4096];
-		fis.read(offset_array);
+		byte [] timestamp_array=new byte[4096];
+		IOUtils.read(fis, offset_array);
+		IOUtils.read(fis, timestamp_array);
 		offset=ByteBuffer.wrap(offset_array);
+		timestamps=ByteBuffer.wrap(timestamp_array);
 		
 		fis.close();
 		if (is_anvil && region_entity_file.exists()) {
@@ -102,6 +111,19 @@ public class Region implements Iterable<Chunk> {
 	 * @throws IOException of error occurs
 	 */
 	public static Region findRegion(File saveFolder, int dimension, Point regionCoord) throws IOException
+	{
+		return new Region(getRegionFile(saveFolder, dimension, regionCoord));
+	}
+	
+	/**
+	 * Gets the path of the region file with given coordinates, the Anvil
+	 * one if it exists or else the old MCRegion one.
+	 * @param saveFolder path to the world save
+	 * @param dimension Dimension to load chunks from.
+	 * @param regionCoord coordinate of the region
+	 * @return path of the file, which may not exist
+	 */
+	public static File getRegionFile(File saveFolder, int dimension, Point regionCoord)
 	{
 		File dir;
 		if(dimension == 0)
@@ -113,7 +135,7 @@ public class Region implements Iterable<Chunk> {
 		if(!file.exists())
 			file= new File(dir, "/r."+regionCoord.x+"."+regionCoord.y+".mcr");
 		
-		return new Region(file);
+		return file;
 	}
 	
 	/**
@@ -204,13 +226,57 @@ public class Region implements Iterable<Chunk> {
 	 */
 	public Chunk getChunk(int idx) throws Exception
 	{
-		if (region_entity_file.exists()) {
+		if (entity_offset != null) {// the entities file existed when the region was opened
 			return new Chunk(getChunkStream(region_file, offset, idx), getChunkStream(region_entity_file, entity_offset, idx),is_anvil);
 		} else {
 			return new Chunk(getChunkStream(region_file, offset, idx),null,is_anvil);
 		}
 	}
 	
+	/**
+	 * Gets the time the given chunk was last saved, from the header of the
+	 * region file.
+	 * @param x x coordinate of the chunk
+	 * @param z z coordinate of the chunk
+	 * @return seconds since the epoch, or 0 if the chunk isn't in the file
+	 */
+	public int getChunkTimestamp(int x, int z)
+	{
+		int loc = Math.floorMod(x, 32) + Math.floorMod(z, 32) * 32;
+		if (offset.getInt(loc*4) == 0)
+			return 0;
+		return timestamps.getInt(loc*4);
+	}
+	
+	/**
+	 * @return the region file
+	 */
+	public File getFile()
+	{
+		return region_file;
+	}
+	
+	/**
+	 * Reads only the block palettes of the given chunk, without loading the
+	 * rest of it. See {@link ChunkPalette}.
+	 * @param x x coordinate of the chunk
+	 * @param z z coordinate of the chunk
+	 * @param states receives every state in the palettes, with repeats
+	 * @throws Exception if error occurs while reading the chunk
+	 */
+	public void readChunkPalette(int x, int z, Consumer<BlockData> states) throws Exception
+	{
+		int loc = Math.floorMod(x, 32) + Math.floorMod(z, 32) * 32;
+		InputStream is = getChunkStream(region_file, offset, loc);
+		if (is == null)
+			return;
+		try {
+			ChunkPalette.read(is, states);
+		} finally {
+			is.close();
+		}
+	}
+	
 	private InputStream getChunkStream(File file, ByteBuffer offset, int idx) throws Exception {
 		int off = offset.getInt(idx*4);
 		int sec = off >> 8;
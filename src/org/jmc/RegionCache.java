@@ -0,0 +1,105 @@
+package org.jmc;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the most recently used {@link Region}s open, so the preview and the
+ * exporter don't have to read the headers of a region file again for each of
+ * its chunks. Regions that don't exist are remembered too.
+ * <p>
+ * A region file can change while a world is being played, so an entry older
+ * than {@link #RECHECK_MS} is checked against the modification time of the
+ * file before it's used.
+ */
+public class RegionCache {
+
+	/** Most open regions to keep. */
+	private static final int MAX_REGIONS = 64;
+	/** Most missing regions to remember. */
+	private static final int MAX_MISSING = 4096;
+	/** How long an entry is trusted without looking at the file again. */
+	private static final long RECHECK_MS = 2000;
+
+	private static class Entry {
+		/** null if the region doesn't exist */
+		final Region region;
+		final long modified;
+		volatile long checked;
+
+		Entry(Region region, long modified) {
+			this.region = region;
+			this.modified = modified;
+			this.checked = System.currentTimeMillis();
+		}
+	}
+
+	private static final Map<String, Entry> regions = new LinkedHashMap<>(MAX_REGIONS, 0.75f, true);
+	private static final Map<String, Entry> missing = new LinkedHashMap<>(256, 0.75f, true);
+
+	/**
+	 * Gets a region like {@link Region#findRegion(File, int, Point)}, reusing
+	 * the one opened last time.
+	 * @param saveFolder path to the world save
+	 * @param dimension Dimension to load chunks from.
+	 * @param regionCoord coordinate of the region
+	 * @return region file object
+	 * @throws FileNotFoundException if the region doesn't exist
+	 * @throws IOException if the region can't be read
+	 */
+	public static Region get(File saveFolder, int dimension, Point regionCoord) throws IOException
+	{
+		String key = saveFolder.getAbsolutePath() + "|" + dimension + "|" + regionCoord.x + "," + regionCoord.y;
+		Entry entry;
+		synchronized (RegionCache.class) {
+			entry = regions.get(key);
+			if (entry == null)
+				entry = missing.get(key);
+		}
+		if (entry != null && isValid(entry, saveFolder, dimension, regionCoord)) {
+			if (entry.region == null)
+				throw new FileNotFoundException("Region " + regionCoord.x + "," + regionCoord.y + " doesn't exist");
+			return entry.region;
+		}
+
+		Region region;
+		try {
+			region = Region.findRegion(saveFolder, dimension, regionCoord);
+		} catch (FileNotFoundException e) {
+			synchronized (RegionCache.class) {
+				regions.remove(key);
+				missing.put(key, new Entry(null, 0));
+				if (missing.size() > MAX_MISSING)
+					missing.remove(missing.keySet().iterator().next());
+			}
+			throw e;
+		}
+		synchronized (RegionCache.class) {
+			missing.remove(key);
+			regions.put(key, new Entry(region, region.getFile().lastModified()));
+			if (regions.size() > MAX_REGIONS)
+				regions.remove(regions.keySet().iterator().next());
+		}
+		return region;
+	}
+
+	private static boolean isValid(Entry entry, File saveFolder, int dimension, Point regionCoord)
+	{
+		long now = System.currentTimeMillis();
+		if (now - entry.checked < RECHECK_MS)
+			return true;
+		boolean valid;
+		if (entry.region == null) {
+			valid = !Region.getRegionFile(saveFolder, dimension, regionCoord).exists();
+		} else {
+			valid = entry.region.getFile().lastModified() == entry.modified;
+		}
+		if (valid)
+			entry.checked = now;
+		return valid;
+	}
+}
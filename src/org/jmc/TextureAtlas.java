@@ -0,0 +1,318 @@
+package org.jmc;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+
+import org.jmc.geom.UV;
+import org.jmc.registry.TextureEntry;
+import org.jmc.util.Log;
+import org.jmc.util.Messages;
+
+/**
+ * Packs the exported textures into a few large atlas images, so the OBJ file
+ * only needs one material per atlas page instead of one per texture.
+ * <p>
+ * Textures are placed as the writer first uses them, so their UVs can be
+ * remapped right away. Each page is a MaxRects bin of a fixed size, when a
+ * texture doesn't fit in any page a new one is started. The edge pixels of
+ * every texture are repeated into a border around it so filtering doesn't
+ * pick up its neighbours. Repeating textures are surrounded by copies of
+ * themselves instead, so their UVs can go from -1 to 2.
+ */
+public class TextureAtlas {
+
+	/**
+	 * Width of the border around textures that don't repeat, in pixels.
+	 */
+	private static final int BLEED = 2;
+
+	private final int size;
+	private final List<Page> pages = new ArrayList<>();
+	private final Map<TextureEntry, Placement> placements = new HashMap<>();
+
+	/**
+	 * A single atlas image.
+	 */
+	public static class Page {
+		private final int id;
+		private final MaxRects bin;
+		private final List<Placement> placements = new ArrayList<>();
+		private boolean alpha = false;
+
+		private Page(int id, int size) {
+			this.id = id;
+			bin = new MaxRects(size, size);
+		}
+
+		/**
+		 * @return name of the material of this page
+		 */
+		public String getName() {
+			return "atlas_" + id;
+		}
+
+		public String getExportFilePath() {
+			return "tex/" + getName() + "." + Options.textureFormat.extension;
+		}
+
+		public String getExportFilePathAlpha() {
+			return "tex/" + getName() + "_a." + Options.textureFormat.extension;
+		}
+
+		/**
+		 * @return true if any texture on the page has transparent pixels
+		 */
+		public boolean hasAlpha() {
+			return alpha;
+		}
+	}
+
+	/**
+	 * Where a texture was put in the atlas.
+	 */
+	public static class Placement {
+		private final Page page;
+		private final TextureEntry texture;
+		/** The texture itself, without the border. */
+		private final Rectangle rect;
+		private final float scale;
+
+		private Placement(Page page, TextureEntry texture, Rectangle rect, int size) {
+			this.page = page;
+			this.texture = texture;
+			this.rect = rect;
+			this.scale = size;
+		}
+
+		public Page getPage() {
+			return page;
+		}
+
+		/**
+		 * Moves texture coordinates into the area of the texture on the page.
+		 * @param uvs coordinates on the texture
+		 * @return coordinates on the page
+		 */
+		public UV[] remap(UV[] uvs) {
+			float sx = rect.x / scale;
+			float sy = 1.0f - ((rect.y + rect.height) / scale);
+			float sw = rect.width / scale;
+			float sh = rect.height / scale;
+
+			UV[] ret = new UV[uvs.length];
+			for (int i = 0; i < uvs.length; i++) {
+				ret[i] = new UV(uvs[i].u * sw + sx, uvs[i].v * sh + sy);
+			}
+			return ret;
+		}
+	}
+
+	/**
+	 * @param size width and height of the pages, in pixels of the exported
+	 *            (scaled) textures
+	 */
+	public TextureAtlas(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * Finds the place of a texture in the atlas, adding it if it's new.
+	 * @param texture the texture
+	 * @return the placement, or null if the texture can't be put in the atlas
+	 *         and has to be exported as a separate file
+	 */
+	@CheckForNull
+	public synchronized Placement place(TextureEntry texture) {
+		if (placements.containsKey(texture))
+			return placements.get(texture);
+
+		Placement placement = null;
+		try {
+			BufferedImage image = texture.getImage();
+			int w = Math.max(1, (int) (image.getWidth() * Options.textureScale));
+			int h = Math.max(1, (int) (image.getHeight() * Options.textureScale));
+			int padX = texture.repeating ? w : BLEED;
+			int padY = texture.repeating ? h : BLEED;
+			int binW = w + 2 * padX;
+			int binH = h + 2 * padY;
+
+			if (binW > size || binH > size) {
+				Log.info(String.format("Texture %s is too big for the texture atlas, exporting it separately.", texture.id));
+			} else {
+				Rectangle area = null;
+				Page page = null;
+				for (Page p : pages) {
+					area = p.bin.insert(binW, binH);
+					if (area != null) {
+						page = p;
+						break;
+					}
+				}
+				if (area == null) {
+					page = new Page(pages.size(), size);
+					pages.add(page);
+					area = page.bin.insert(binW, binH);
+				}
+				placement = new Placement(page, texture, new Rectangle(area.x + padX, area.y + padY, w, h), size);
+				page.placements.add(placement);
+				if (texture.hasAlpha())
+					page.alpha = true;
+			}
+		} catch (IOException e) {
+			Log.error("Couldn't add texture " + texture.id + " to the texture atlas", e);
+		}
+		placements.put(texture, placement);
+		return placement;
+	}
+
+	/**
+	 * @return the pages of the atlas, in the order they were started
+	 */
+	public synchronized List<Page> getPages() {
+		return new ArrayList<>(pages);
+	}
+
+	/**
+	 * Draws the pages and writes them to the tex folder of the output folder.
+	 * @param progress
+	 *            If not null, the exporter will invoke this callback to inform
+	 *            on the operation's progress.
+	 */
+	public synchronized void write(@CheckForNull ProgressCallback progress) throws IOException {
+		if (progress != null)
+			progress.setMessage(Messages.getString("Progress.TEX"));
+		File texDir = new File(Options.outputDir, "tex");
+		if (!texDir.isDirectory() && !texDir.mkdirs())
+			throw new IOException("Cannot create directory: " + texDir.getAbsolutePath());
+
+		int count = 0;
+		for (Page page : pages) {
+			BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+			for (Placement placement : page.placements) {
+				BufferedImage tex = TextureExporter.scaleImage(placement.texture.getImage(), Options.textureScale);
+				if (placement.texture.repeating)
+					drawTiled(image, tex, placement.rect);
+				else
+					drawBled(image, tex, placement.rect);
+				placement.texture.releaseImage();
+			}
+			TextureExporter.writeImage(image, new File(Options.outputDir, page.getExportFilePath()));
+			if (Options.textureAlpha && page.hasAlpha())
+				TextureExporter.writeImage(TextureExporter.convertToAlpha(image), new File(Options.outputDir, page.getExportFilePathAlpha()));
+			if (progress != null)
+				progress.setProgress((float) ++count / pages.size());
+		}
+	}
+
+	/**
+	 * Draws the texture with a copy on every side and corner.
+	 */
+	private static void drawTiled(BufferedImage dest, BufferedImage tex, Rectangle rect) {
+		int w = rect.width, h = rect.height;
+		int[] pixels = tex.getRGB(0, 0, w, h, null, 0, w);
+		for (int ty = -1; ty <= 1; ty++)
+			for (int tx = -1; tx <= 1; tx++)
+				dest.setRGB(rect.x + tx * w, rect.y + ty * h, w, h, pixels, 0, w);
+	}
+
+	/**
+	 * Draws the texture and repeats its edge pixels {@link #BLEED} times
+	 * around it.
+	 */
+	private static void drawBled(BufferedImage dest, BufferedImage tex, Rectangle rect) {
+		int w = rect.width, h = rect.height;
+		for (int y = -BLEED; y < h + BLEED; y++) {
+			int sy = Math.min(Math.max(y, 0), h - 1);
+			for (int x = -BLEED; x < w + BLEED; x++) {
+				int sx = Math.min(Math.max(x, 0), w - 1);
+				dest.setRGB(rect.x + x, rect.y + y, tex.getRGB(sx, sy));
+			}
+		}
+	}
+
+	/**
+	 * MaxRects bin packer, placing each rectangle by best short side fit.
+	 * Keeps a list of the largest free rectangles, which can overlap.
+	 */
+	private static class MaxRects {
+		private final List<Rectangle> free = new ArrayList<>();
+
+		MaxRects(int width, int height) {
+			free.add(new Rectangle(0, 0, width, height));
+		}
+
+		/**
+		 * @return the area given to the rectangle, or null if it doesn't fit
+		 */
+		@CheckForNull
+		Rectangle insert(int w, int h) {
+			Rectangle best = null;
+			int bestShort = Integer.MAX_VALUE, bestLong = Integer.MAX_VALUE;
+			for (Rectangle r : free) {
+				if (r.width < w || r.height < h)
+					continue;
+				int leftW = r.width - w, leftH = r.height - h;
+				int shortSide = Math.min(leftW, leftH), longSide = Math.max(leftW, leftH);
+				if (shortSide < bestShort || (shortSide == bestShort && longSide < bestLong)) {
+					best = new Rectangle(r.x, r.y, w, h);
+					bestShort = shortSide;
+					bestLong = longSide;
+				}
+			}
+			if (best == null)
+				return null;
+
+			List<Rectangle> split = new ArrayList<>();
+			for (int i = free.size() - 1; i >= 0; i--) {
+				Rectangle r = free.get(i);
+				if (r.intersects(best)) {
+					free.remove(i);
+					splitFree(r, best, split);
+				}
+			}
+			free.addAll(split);
+			prune();
+			return best;
+		}
+
+		/**
+		 * Adds the parts of a free rectangle that aren't covered by the used one.
+		 */
+		private static void splitFree(Rectangle r, Rectangle used, List<Rectangle> out) {
+			if (used.x > r.x)
+				out.add(new Rectangle(r.x, r.y, used.x - r.x, r.height));
+			if (used.x + used.width < r.x + r.width)
+				out.add(new Rectangle(used.x + used.width, r.y, r.x + r.width - used.x - used.width, r.height));
+			if (used.y > r.y)
+				out.add(new Rectangle(r.x, r.y, r.width, used.y - r.y));
+			if (used.y + used.height < r.y + r.height)
+				out.add(new Rectangle(r.x, used.y + used.height, r.width, r.y + r.height - used.y - used.height));
+		}
+
+		/**
+		 * Removes the free rectangles contained in other ones.
+		 */
+		private void prune() {
+			for (int i = 0; i < free.size(); i++) {
+				for (int j = i + 1; j < free.size(); j++) {
+					Rectangle a = free.get(i), b = free.get(j);
+					if (b.contains(a)) {
+						free.remove(i--);
+						break;
+					}
+					if (a.contains(b)) {
+						free.remove(j--);
+					}
+				}
+			}
+		}
+	}
+}
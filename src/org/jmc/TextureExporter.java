@@ -1,29 +1,31 @@
 package org.jmc;
 
 import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.ImagingOpException;
 import java.awt.image.IndexColorModel;
 import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.annotation.Nonnull;
 import javax.imageio.ImageIO;
 
-import org.jmc.registry.NamespaceID;
+import org.jmc.TextureManifest.LazyRecord;
 import org.jmc.registry.TextureEntry;
+import org.jmc.util.DdsWriter;
 import org.jmc.util.Log;
 import org.jmc.util.Messages;
-import org.jmc.util.Xml;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 /**
  * Utility class that can extract the individual textures from minecraft texture
@@ -102,17 +104,40 @@ public class TextureExporter {
 		int new_w = (int) (w * factor);
 		int new_h = (int) (h * factor);
 
-		BufferedImage result = cloneImageType(img, new_w, new_h);
+		// nearest neighbour on whole rasters, per pixel getRGB/setRGB is slow
+		int[] src = img.getRGB(0, 0, w, h, null, 0, w);
+		int[] dst = new int[new_w * new_h];
+		int[] srcX = new int[new_w];
+		for (int x = 0; x < new_w; x++)
+			srcX[x] = (int) (x / factor);
 		for (int y = 0; y < new_h; y++) {
-			for (int x = 0; x < new_w; x++) {
-				int src = img.getRGB((int) (x / factor), (int) (y / factor));
-				result.setRGB(x, y, src);
-			}
+			int srcRow = (int) (y / factor) * w;
+			int dstRow = y * new_w;
+			for (int x = 0; x < new_w; x++)
+				dst[dstRow + x] = src[srcRow + srcX[x]];
 		}
 
+		BufferedImage result = cloneImageType(img, new_w, new_h);
+		result.setRGB(0, 0, new_w, new_h, dst, 0, new_w);
 		return result;
 	}
 
+	/**
+	 * Writes an image in the {@link Options#textureFormat}.
+	 * @param image the image
+	 * @param file file to write to, its extension should match the format
+	 */
+	public static void writeImage(BufferedImage image, File file) throws IOException {
+		switch (Options.textureFormat) {
+		case DDS:
+			DdsWriter.write(image, file);
+			break;
+		default:
+			ImageIO.write(image, "png", file);
+			break;
+		}
+	}
+
 	/**
 	 * Makes a new {@link BufferedImage} of the same type with the specified width and height
 	 * Copies the {@link IndexColorModel} of indexed images. 
@@ -137,7 +162,10 @@ public class TextureExporter {
 	}
 	
 	/**
-	 * Exports all the textures 
+	 * Exports all the textures on {@link Options#textureThreads} threads.
+	 * A texture that fails to export is logged and skipped.
+	 * Files made from the same inputs by a previous export are kept, see
+	 * {@link TextureManifest}.
 	 *
 	 * @param textures The {@link TextureEntry TextureEntrys} to export
 	 * @param progress
@@ -150,187 +178,142 @@ public class TextureExporter {
 	public static void exportTextures(Set<TextureEntry> textures, ProgressCallback progress) throws IOException {
 		if (progress != null)
 			progress.setMessage(Messages.getString("Progress.TEX"));
-		int count = 0;
-		for (TextureEntry texture : textures) {
-			File file = new File(Options.outputDir, texture.getExportFilePath());
-			if (Options.textureDiffuse && (Options.textureOverwrite || !file.exists())) {
-				file.getParentFile().mkdirs();
-				try {
-					ImageIO.write(scaleImage(texture.getImage(), Options.textureScale), "png", file);
-				} catch (IOException e) {
-					Log.error("Couldn't export texture " + texture.id.toString(), e);
-				}
-			}
-			if (Options.textureAlpha) {
-				File alphaFile = new File(Options.outputDir, texture.getExportFilePathAlpha());
-				if (Options.textureOverwrite || !alphaFile.exists()) {
-					alphaFile.getParentFile().mkdirs();
+		List<TextureEntry> toExport = new ArrayList<>(textures);
+		createDirectories(toExport);
+		TextureManifest manifest = TextureManifest.load(Options.outputDir);
+		
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Options.textureThreads));
+		try {
+			CompletionService<TextureEntry> done = new ExecutorCompletionService<>(pool);
+			for (TextureEntry texture : toExport) {
+				done.submit(() -> {
 					try {
-						ImageIO.write(scaleImage(convertToAlpha(texture.getImage()), Options.textureScale), "png", alphaFile);
-					} catch (IOException e) {
-						Log.debug(String.format("Couldn't export alpha texture for '%s' error: %s", texture.id.toString(), e.getMessage()));
+						exportTexture(texture, manifest);
+					} catch (RuntimeException e) {
+						Log.error("Couldn't export texture " + texture.id.toString(), e);
 					}
-				}
+					return texture;
+				});
 			}
-			if (Options.textureNormal) {
-				File normalFile = new File(Options.outputDir, texture.getExportFilePathNormal());
-				if (Options.textureOverwrite || !normalFile.exists()) {
-					normalFile.getParentFile().mkdirs();
-					try {
-						ImageIO.write(scaleImage(texture.getNormalMap(), Options.textureScale), "png", normalFile);
-					} catch (IOException e) {
-						Log.debug(String.format("Couldn't export normal texture for '%s' error: %s", texture.id.toString(), e.getMessage()));
-					}
+			// progress and errors are reported from this thread as the textures finish
+			for (int count = 1; count <= toExport.size(); count++) {
+				try {
+					done.take().get();
+				} catch (ExecutionException e) {
+					Log.error("Couldn't export texture", e.getCause());
 				}
+				if (progress != null)
+					progress.setProgress((float)count / toExport.size());
 			}
-			if (Options.textureSpecular) {
-				File specularFile = new File(Options.outputDir, texture.getExportFilePathSpecular());
-				if (Options.textureOverwrite || !specularFile.exists()) {
-					specularFile.getParentFile().mkdirs();
-					try {
-						ImageIO.write(scaleImage(texture.getSpecularMap(), Options.textureScale), "png", specularFile);
-					} catch (IOException e) {
-						Log.debug(String.format("Couldn't export specular texture for '%s' error: %s", texture.id.toString(), e.getMessage()));
-					}
-				}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Texture export interrupted");
+		} finally {
+			pool.shutdownNow();
+			// files are only recorded once written, so a partial export leaves a valid manifest
+			try {
+				manifest.save();
+			} catch (IOException e) {
+				Log.error("Couldn't save the texture manifest", e);
 			}
-			if (progress != null)
-				progress.setProgress((float)++count / textures.size());
 		}
 	}
 	
 	/**
-	 * Reads a Minecraft texture pack and splits the individual block textures
-	 * into separate images then merges them into a single file containing all
-	 * the textures.
-	 *
-	 * @param textures The textures to merge
-	 * @param progress
-	 *            If not null, the exporter will invoke this callback to inform
-	 *            on the operation's progress.
-	 * @throws Exception
-	 *             if there is an error.
+	 * Creates the folders for all the texture files in one go, so the export
+	 * threads don't have to.
 	 */
-	public static void mergeTextures(Set<TextureEntry> textures, ProgressCallback progress) throws Exception {
-		if (progress != null)
-			progress.setMessage(Messages.getString("Progress.TEX"));
-		Map<NamespaceID, Rectangle> ret = new HashMap<>();
-		
-		// calculate maxwidth so to keep the size of the final file more or less
-		// square
-		double surface = 0;
+	private static void createDirectories(List<TextureEntry> textures) {
+		Set<File> dirs = new HashSet<>();
 		for (TextureEntry texture : textures) {
-			if (texture.repeating)
-				surface += texture.getImage().getWidth() * texture.getImage().getHeight() * 9.0;
-			surface += texture.getImage().getWidth() * texture.getImage().getHeight();
+			if (Options.textureDiffuse)
+				dirs.add(new File(Options.outputDir, texture.getExportFilePath()).getParentFile());
+			if (Options.textureAlpha)
+				dirs.add(new File(Options.outputDir, texture.getExportFilePathAlpha()).getParentFile());
+			if (Options.textureNormal)
+				dirs.add(new File(Options.outputDir, texture.getExportFilePathNormal()).getParentFile());
+			if (Options.textureSpecular)
+				dirs.add(new File(Options.outputDir, texture.getExportFilePathSpecular()).getParentFile());
 		}
-		int maxwidth = (int) Math.sqrt(surface);
-		
-		// calculate coordinates for placing the textures in the file
-		int wused = 0, hused = 0, hcurr = 0, wmax = 0, hmax = 0;
-		for (TextureEntry texture : textures) {
-			if (wused > maxwidth) {
-				wused = 0;
-				hused += hcurr;
-				hcurr = 0;
-			}
-			
-			int w = texture.getImage().getWidth();
-			int h = texture.getImage().getHeight();
-
-			if (texture.repeating) {
-				ret.put(texture.id, new Rectangle(wused + w, hused + h, w, h));
-				w *= 3;
-				h *= 3;
-			} else {
-				ret.put(texture.id, new Rectangle(wused, hused, w, h));
-			}
-
-			wused += w;
-			if (hcurr < h)
-				hcurr = h;
-
-			if (wmax < wused)
-				wmax = wused;
-			if (hmax < (hused + hcurr))
-				hmax = hused + hcurr;
+		for (File dir : dirs) {
+			if (!dir.isDirectory() && !dir.mkdirs())
+				Log.error("Cannot create directory: " + dir.getAbsolutePath(), null);
 		}
-
-		for (int x = 1; x < Short.MAX_VALUE; x *= 2)
-			if (x >= wmax) {
-				wmax = x;
-				break;
+	}
+	
+	/**
+	 * Writes the maps of a single texture enabled in the Options, skipping
+	 * the files the manifest shows are already up to date.
+	 * The folders must already exist.
+	 */
+	private static void exportTexture(TextureEntry texture, TextureManifest manifest) {
+		// the diffuse and alpha maps are made from the same inputs
+		LazyRecord record = new LazyRecord(texture, null);
+		if (Options.textureDiffuse) {
+			String path = texture.getExportFilePath();
+			File file = new File(Options.outputDir, path);
+			if (needsExport(manifest, path, file, record)) {
+				manifest.put(path, null);
+				try {
+					writeImage(scaleImage(texture.getImage(), Options.textureScale), file);
+					manifest.put(path, record.get());
+				} catch (IOException e) {
+					Log.error("Couldn't export texture " + texture.id.toString(), e);
+				}
 			}
-		for (int x = 1; x < Short.MAX_VALUE; x *= 2)
-			if (x >= hmax) {
-				hmax = x;
-				break;
+		}
+		if (Options.textureAlpha) {
+			String path = texture.getExportFilePathAlpha();
+			File alphaFile = new File(Options.outputDir, path);
+			if (needsExport(manifest, path, alphaFile, record)) {
+				manifest.put(path, null);
+				try {
+					writeImage(scaleImage(convertToAlpha(texture.getImage()), Options.textureScale), alphaFile);
+					manifest.put(path, record.get());
+				} catch (IOException e) {
+					Log.debug(String.format("Couldn't export alpha texture for '%s' error: %s", texture.id.toString(), e.getMessage()));
+				}
 			}
-
-		Document doc = Xml.newDocument();
-		Element root = doc.createElement("textures");
-		root.setAttribute("width", "" + wmax);
-		root.setAttribute("height", "" + hmax);
-		doc.appendChild(root);
-
-		for (Entry<NamespaceID, Rectangle> entry : ret.entrySet()) {
-			Element el = doc.createElement("texture");
-			el.setTextContent(entry.getKey().toString());
-			Rectangle rect = entry.getValue();
-			el.setAttribute("u", "" + rect.x);
-			el.setAttribute("v", "" + rect.y);
-			el.setAttribute("w", "" + rect.width);
-			el.setAttribute("h", "" + rect.height);
-			root.appendChild(el);
 		}
-
-		Xml.saveDocument(doc, new File(Options.outputDir, "texture.uv"));
-
-		BufferedImage textureimage = new BufferedImage(wmax, hmax, BufferedImage.TYPE_4BYTE_ABGR);
-		Graphics2D gtex = textureimage.createGraphics();
-
-		BufferedImage lumaimage = new BufferedImage(wmax, hmax, BufferedImage.TYPE_4BYTE_ABGR);
-		Graphics2D gtexluma = lumaimage.createGraphics();
-
-		float texnum = textures.size();
-		float count = 0;
-
-		for (TextureEntry texture : textures) {
-			Rectangle rect = ret.get(texture.id);
-
-			if (texture.repeating) {
-				for (int x = -1; x <= 1; x++)
-					for (int y = -1; y <= 1; y++) {
-						int sx = rect.x + x * rect.width;
-						int sy = rect.y + y * rect.height;
-						gtex.drawImage(texture.getImage(), sx, sy, sx + rect.width, sy + rect.height, 0, 0, rect.width, rect.height, null);
-						
-						if(Options.textureLight)
-							if(texture.luma)
-								gtexluma.drawImage(texture.getImage(), sx, sy, sx + rect.width, sy + rect.height, 0, 0, rect.width, rect.height, null);
-					}
-			} else {
-				gtex.drawImage(texture.getImage(), rect.x, rect.y, rect.x + rect.width, rect.y + rect.height, 0, 0, rect.width, rect.height, null);
-				if(Options.textureLight)
-					if(texture.luma)
-						gtexluma.drawImage(texture.getImage(), rect.x, rect.y, rect.x + rect.width, rect.y + rect.height, 0, 0, rect.width, rect.height, null);
+		if (Options.textureNormal) {
+			String path = texture.getExportFilePathNormal();
+			File normalFile = new File(Options.outputDir, path);
+			LazyRecord normalRecord = new LazyRecord(texture, texture.getNormalMapFilePath());
+			if (needsExport(manifest, path, normalFile, normalRecord)) {
+				manifest.put(path, null);
+				try {
+					writeImage(scaleImage(texture.getNormalMap(), Options.textureScale), normalFile);
+					manifest.put(path, normalRecord.get());
+				} catch (IOException e) {
+					Log.debug(String.format("Couldn't export normal texture for '%s' error: %s", texture.id.toString(), e.getMessage()));
+				}
 			}
-			
-			if (progress != null)
-				progress.setProgress((++count) / texnum);
 		}
-		
-		ImageIO.write(textureimage, "png", new File(Options.outputDir, "tex/texture.png"));
-		if(Options.textureLight)
-			ImageIO.write(lumaimage, "png", new File(Options.outputDir, "tex/texture_luma.png"));
-		
-		if (Options.textureAlpha) {
-			try {
-				ImageIO.write(convertToAlpha(textureimage), "png", new File(Options.outputDir, "tex/texture_a.png"));
-			} catch (Exception e) {
-				Log.info("Cannot save alpha (" + e.getMessage() + ")");
+		if (Options.textureSpecular) {
+			String path = texture.getExportFilePathSpecular();
+			File specularFile = new File(Options.outputDir, path);
+			LazyRecord specularRecord = new LazyRecord(texture, texture.getSpecularMapFilePath());
+			if (needsExport(manifest, path, specularFile, specularRecord)) {
+				manifest.put(path, null);
+				try {
+					writeImage(scaleImage(texture.getSpecularMap(), Options.textureScale), specularFile);
+					manifest.put(path, specularRecord.get());
+				} catch (IOException e) {
+					Log.debug(String.format("Couldn't export specular texture for '%s' error: %s", texture.id.toString(), e.getMessage()));
+				}
 			}
 		}
+		texture.releaseImage();
+	}
+	
+	/**
+	 * Files that already exist are only written when overwriting is enabled,
+	 * and even then not if they were made from the same inputs.
+	 */
+	private static boolean needsExport(TextureManifest manifest, String path, File file, LazyRecord record) {
+		if (!file.exists())
+			return true;
+		return Options.textureOverwrite && !manifest.isUpToDate(path, file, record);
 	}
 
 }
@@ -0,0 +1,232 @@
+package org.jmc;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.CheckForNull;
+
+import org.jmc.registry.TextureEntry;
+import org.jmc.util.Filesystem;
+import org.jmc.util.Log;
+import org.jmc.util.ResourcePackIO;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+/**
+ * Remembers what each exported texture file was made from, so exporting again
+ * to the same folder only has to encode the textures whose inputs changed.
+ * <p>
+ * Saved as tex/manifest.json in the output folder. For every file it records
+ * the hash of the resource pack entry it was made from, the hash of the
+ * animation .mcmeta that decides the crop, the tint and the scale. The
+ * diffuse and alpha maps use {@link TextureEntry#getSourceHash()}, which
+ * already covers the .mcmeta and the tint.
+ */
+class TextureManifest {
+
+	private static final int VERSION = 2;
+
+	private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+	private final File file;
+	private final Map<String, Record> files = new ConcurrentHashMap<>();
+
+	/**
+	 * Inputs of a single exported file.
+	 */
+	static class Record {
+		private String source;
+		@CheckForNull
+		private String crop;
+		@CheckForNull
+		private String tint;
+		private double scale;
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Record))
+				return false;
+			Record other = (Record) obj;
+			return Objects.equals(source, other.source) && Objects.equals(crop, other.crop)
+					&& Objects.equals(tint, other.tint) && scale == other.scale;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(source, crop, tint, scale);
+		}
+	}
+
+	/**
+	 * Record that is only described when it's first asked for, because
+	 * reading and hashing the sources is wasted if no file has to be compared
+	 * or written.
+	 */
+	static class LazyRecord {
+		private final TextureEntry texture;
+		@CheckForNull
+		private final String sourcePath;
+		private boolean described = false;
+		@CheckForNull
+		private Record record;
+
+		/**
+		 * @param texture the texture
+		 * @param sourcePath resource pack path of a normal or specular map, or
+		 *            null for the maps made from the texture itself
+		 */
+		LazyRecord(TextureEntry texture, @CheckForNull String sourcePath) {
+			this.texture = texture;
+			this.sourcePath = sourcePath;
+		}
+
+		/**
+		 * @return the record, or null if the map isn't read from a resource pack
+		 */
+		@CheckForNull
+		Record get() {
+			if (!described) {
+				record = sourcePath != null ? describe(texture, sourcePath) : describe(texture);
+				described = true;
+			}
+			return record;
+		}
+	}
+
+	private static class Contents {
+		int version;
+		Map<String, Record> files;
+	}
+
+	private TextureManifest(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Reads the manifest of an output folder. A missing or unreadable
+	 * manifest gives an empty one, so everything is exported again.
+	 */
+	static TextureManifest load(File outputDir) {
+		TextureManifest manifest = new TextureManifest(new File(outputDir, "tex/manifest.json"));
+		if (!manifest.file.exists())
+			return manifest;
+		try (Reader reader = Files.newBufferedReader(manifest.file.toPath(), StandardCharsets.UTF_8)) {
+			Contents contents = gson.fromJson(reader, Contents.class);
+			if (contents != null && contents.version == VERSION && contents.files != null) {
+				for (Map.Entry<String, Record> entry : contents.files.entrySet()) {
+					if (entry.getKey() != null && entry.getValue() != null)
+						manifest.files.put(entry.getKey(), entry.getValue());
+				}
+			}
+		} catch (IOException | JsonParseException e) {
+			Log.info("Ignoring texture manifest " + manifest.file + ": " + e.getMessage());
+		}
+		return manifest;
+	}
+
+	/**
+	 * Writes the manifest, creating the tex folder if needed.
+	 */
+	void save() throws IOException {
+		File dir = file.getParentFile();
+		if (!dir.isDirectory() && !dir.mkdirs())
+			throw new IOException("Cannot create directory: " + dir.getAbsolutePath());
+		Contents contents = new Contents();
+		contents.version = VERSION;
+		contents.files = new TreeMap<>(files);
+		try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			gson.toJson(contents, out);
+		}
+	}
+
+	/**
+	 * @param path path of the exported file, relative to the output folder
+	 * @param exported the exported file
+	 * @param record inputs the file would be made from now
+	 * @return true if the file exists and was made from the same inputs
+	 */
+	boolean isUpToDate(String path, File exported, LazyRecord record) {
+		Record old = files.get(path);
+		return old != null && exported.isFile() && old.equals(record.get());
+	}
+
+	/**
+	 * Records the inputs of a file that was just written.
+	 * A null record forgets the file, e.g. before rewriting it.
+	 */
+	void put(String path, @CheckForNull Record record) {
+		if (record != null)
+			files.put(path, record);
+		else
+			files.remove(path);
+	}
+
+	/**
+	 * Describes the inputs of the diffuse and alpha maps of a texture.
+	 * @param texture the texture
+	 * @return the record, or null if the maps aren't read from a resource pack
+	 */
+	@CheckForNull
+	private static Record describe(TextureEntry texture) {
+		Record record = new Record();
+		try {
+			record.source = texture.getSourceHash();
+		} catch (IOException e) {
+			return null;
+		}
+		if (record.source == null)
+			return null;
+		record.scale = Options.textureScale;
+		return record;
+	}
+
+	/**
+	 * Describes the inputs of a normal or specular map of a texture.
+	 * @param texture the texture
+	 * @param sourcePath resource pack path the map is read from
+	 * @return the record, or null if the map isn't read from a resource pack
+	 */
+	@CheckForNull
+	private static Record describe(TextureEntry texture, String sourcePath) {
+		if (texture.isGenerated())
+			return null;
+		Record record = new Record();
+		try {
+			record.source = Filesystem.getSha256(ResourcePackIO.loadResource(sourcePath));
+		} catch (FileNotFoundException e) {
+			return null;
+		}
+		record.crop = hashCrop(texture);
+		Color tint = texture.getTint();
+		if (tint != null)
+			record.tint = String.format("%06x", tint.getRGB() & 0xffffff);
+		record.scale = Options.textureScale;
+		return record;
+	}
+
+	/**
+	 * @return hash of the animation .mcmeta of a texture, or null if it has none
+	 */
+	@CheckForNull
+	private static String hashCrop(TextureEntry texture) {
+		try {
+			return Filesystem.getSha256(ResourcePackIO.loadResource(texture.getFilePath() + ".mcmeta"));
+		} catch (FileNotFoundException e) {
+			return null;
+		}
+	}
+}
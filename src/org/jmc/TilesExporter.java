@@ -0,0 +1,253 @@
+package org.jmc;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+
+import org.apache.commons.io.FilenameUtils;
+import org.jmc.geom.Vertex;
+import org.jmc.registry.Registries;
+import org.jmc.threading.ExportPipeline;
+import org.jmc.threading.InstanceLibrary;
+import org.jmc.threading.GlbWriterRunnable;
+import org.jmc.threading.TilePipeline;
+import org.jmc.util.Log;
+import org.jmc.util.Messages;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Exports the selection as a set of GLB tiles with a 3D Tiles style
+ * tileset.json index, so viewers can stream only the visible parts of very
+ * large exports.
+ * <p>
+ * The selection is cut into square leaf tiles of {@link Options#tileSize}
+ * chunks, aligned to the chunk grid so the default size gives one tile per
+ * region. The leaves are grouped into a quadtree whose inner nodes only hold
+ * the bounding volume of their children. Tiles are written in parallel by a
+ * {@link TilePipeline}.
+ */
+public class TilesExporter {
+
+	private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+	/**
+	 * Do the export. Export settings are taken from the global Options.
+	 * The tiles are written to a folder named after {@link Options#objFileName},
+	 * the textures to the usual tex folder.
+	 *
+	 * @param progress
+	 *            If not null, the exporter will invoke this callback to inform
+	 *            on the operation's progress.
+	 * @param writeTex
+	 *            Whether to write the textures to the output folder.
+	 */
+	public static void export(@CheckForNull ProgressCallback progress, boolean writeTex) {
+		Log.debug("Exporting world "+Options.worldDir+" to tiles");
+
+		File tileDir = new File(Options.outputDir, FilenameUtils.removeExtension(Options.objFileName) + "_tiles");
+
+		long exportTimer = System.nanoTime();
+
+		try {
+			Registries.objTextures.clear();
+			InstanceLibrary.clear();
+			ObjExporter.resetErrors();
+
+			if (Options.maxX - Options.minX == 0 || Options.maxY - Options.minY == 0
+					|| Options.maxZ - Options.minZ == 0) {
+				Log.error(Messages.getString("MainPanel.SEL_ERR"), null, true);
+				return;
+			}
+
+			if (!tileDir.isDirectory() && !tileDir.mkdirs()) {
+				Log.error("Cannot create directory: " + tileDir.getAbsolutePath(), null);
+				return;
+			}
+
+			if (progress != null)
+				progress.setMessage(Messages.getString("Progress.TILES"));
+
+			// Calculate the boundaries of the chunks selected by the user
+			Point cs = Chunk.getChunkPos(Options.minX, Options.minZ);
+			Point ce = Chunk.getChunkPos(Options.maxX + 15, Options.maxZ + 15);
+
+			ChunkDataBuffer chunk_buffer = new ChunkDataBuffer(Options.minX, Options.maxX, Options.minY,
+					Options.maxY, Options.minZ, Options.maxZ);
+			Vertex offset = ExportPipeline.getOffset();
+
+			TilePipeline tiles = new TilePipeline(chunk_buffer, cs, ce, Options.tileSize, progress);
+			Map<Point, float[][]> leaves = tiles.run((tile, chunks) -> {
+				File file = new File(tileDir, getTileName(tile));
+				try (GlbWriterRunnable writer = new GlbWriterRunnable(null, file, null, chunks.size())) {
+					writer.setOffset(offset.x, offset.y, offset.z);
+					writer.setScale(Options.scale);
+					writer.setTexturePrefix("../");
+
+					tiles.processChunks(chunks, writer);
+
+					if (writer.isEmpty())
+						return null;
+					writer.finish();
+					return writer.getBounds();
+				}
+			});
+
+			chunk_buffer.removeAllChunks();
+
+			Point ts = tiles.getTileStart();
+			Point te = tiles.getTileEnd();
+			int span = 1;
+			while (span < te.x - ts.x + 1 || span < te.y - ts.y + 1)
+				span *= 2;
+			TileNode root = buildNode(leaves, ts.x, ts.y, span, te);
+			// a tileset needs a root, so there's nothing to write without tiles
+			if (root == null) {
+				Log.info("Nothing to export in the selected area.");
+				return;
+			}
+
+			File tileset = new File(tileDir, "tileset.json");
+			writeTileset(tileset, root);
+
+			if (progress != null)
+				progress.setProgress(1);
+			Log.info(String.format("Saved %d tiles to %s", leaves.size(), tileset.getAbsolutePath()));
+
+			if (writeTex) {
+				Log.info("Exporting textures...");
+				synchronized (Registries.objTextures) {
+					TextureExporter.exportTextures(Registries.objTextures, progress);
+				}
+			}
+			Log.info("Export Time:" + (System.nanoTime() - exportTimer)/1000000000d);
+			Log.info("Done!");
+		} catch (InterruptedException e) {
+			Log.debug("Export interrupted!");
+		} catch (Exception e) {
+			Log.error("Error while exporting tiles:", e);
+		} finally {
+			System.gc();
+		}
+	}
+
+	/**
+	 * Builds the quadtree node covering span x span tiles starting at tx, tz.
+	 * @return the node or null if there are no non-empty tiles under it
+	 */
+	@CheckForNull
+	private static TileNode buildNode(Map<Point, float[][]> leaves, int tx, int tz, int span, Point te) {
+		if (span == 1) {
+			Point tile = new Point(tx, tz);
+			float[][] bounds = leaves.get(tile);
+			if (bounds == null)
+				return null;
+			TileNode node = new TileNode(bounds[0], bounds[1]);
+			node.json.add("boundingVolume", node.getBoundingVolume());
+			node.json.addProperty("geometricError", 0);
+			JsonObject content = new JsonObject();
+			content.addProperty("uri", getTileName(tile));
+			node.json.add("content", content);
+			return node;
+		}
+
+		int half = span / 2;
+		List<TileNode> children = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			int cx = tx + (i % 2) * half;
+			int cz = tz + (i / 2) * half;
+			if (cx > te.x || cz > te.y)
+				continue;
+			TileNode child = buildNode(leaves, cx, cz, half, te);
+			if (child != null)
+				children.add(child);
+		}
+		if (children.isEmpty())
+			return null;
+
+		TileNode node = new TileNode(children.get(0).min.clone(), children.get(0).max.clone());
+		JsonArray childArr = new JsonArray();
+		for (TileNode child : children) {
+			for (int i = 0; i < 3; i++) {
+				node.min[i] = Math.min(node.min[i], child.min[i]);
+				node.max[i] = Math.max(node.max[i], child.max[i]);
+			}
+			childArr.add(child.json);
+		}
+		node.json.add("boundingVolume", node.getBoundingVolume());
+		// there is no simplified geometry for the inner nodes, so viewers
+		// should refine as soon as the node takes up a noticeable part of the view
+		node.json.addProperty("geometricError", node.getWidth());
+		node.json.add("children", childArr);
+		return node;
+	}
+
+	private static void writeTileset(File file, TileNode root) throws IOException {
+		JsonObject asset = new JsonObject();
+		asset.addProperty("version", "1.1");
+		asset.addProperty("generator", "jMc2Obj");
+
+		JsonObject tileset = new JsonObject();
+		tileset.add("asset", asset);
+		root.json.addProperty("refine", "ADD");
+		tileset.addProperty("geometricError", root.getWidth());
+		tileset.add("root", root.json);
+
+		try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			gson.toJson(tileset, out);
+		}
+	}
+
+	private static String getTileName(Point tile) {
+		return "tile_" + tile.x + "_" + tile.y + ".glb";
+	}
+
+	/**
+	 * Node of the tile quadtree with the bounds of everything under it.
+	 */
+	private static class TileNode {
+		final JsonObject json = new JsonObject();
+		final float[] min, max;
+
+		TileNode(float[] min, float[] max) {
+			this.min = min;
+			this.max = max;
+		}
+
+		float getWidth() {
+			return Math.max(max[0] - min[0], max[2] - min[2]);
+		}
+
+		/**
+		 * The tileset is Z up while the glTF content is Y up, so glTF
+		 * (x, y, z) becomes (x, -z, y).
+		 */
+		JsonObject getBoundingVolume() {
+			float hx = (max[0] - min[0]) / 2;
+			float hy = (max[1] - min[1]) / 2;
+			float hz = (max[2] - min[2]) / 2;
+			float[] box = {
+					min[0] + hx, -(min[2] + hz), min[1] + hy,
+					hx, 0, 0,
+					0, hz, 0,
+					0, 0, hy };
+			JsonArray arr = new JsonArray();
+			for (float v : box)
+				arr.add(v);
+			JsonObject volume = new JsonObject();
+			volume.add("box", arr);
+			return volume;
+		}
+	}
+}
@@ -19,7 +19,7 @@ public class UnknownBlockInfo extends BlockInfo
 
 	UnknownBlockInfo()
 	{
-		super(NamespaceID.NULL, "unknown", null, Occlusion.NONE, null, false, null);
+		super(NamespaceID.NULL, "unknown", null, Occlusion.NONE, null, false, null, false);
 
 		materials = new BlockMaterial();
 		materials.put(new NamespaceID[] { NamespaceID.UNKNOWN });
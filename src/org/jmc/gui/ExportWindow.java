@@ -43,7 +43,9 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 import org.jmc.CloudsExporter;
 import org.jmc.ObjExporter;
 import org.jmc.Options;
+import org.jmc.Options.ExportFormat;
 import org.jmc.Options.OffsetType;
+import org.jmc.Options.TextureFormat;
 import org.jmc.ProgressCallback;
 import org.jmc.util.Log;
 import org.jmc.util.Messages;
@@ -53,7 +55,7 @@ public class ExportWindow extends JmcFrame implements ProgressCallback {
 
 	private Preferences prefs;
 
-	private Thread exportThread;
+	private volatile Thread exportThread;
 
 	private JPanel contentPane;
 
@@ -80,6 +82,7 @@ public class ExportWindow extends JmcFrame implements ProgressCallback {
 	private JComboBox<String> cboxTexScale;
 	private JCheckBox chckbxSeparateAlphaTexture;
 	private JCheckBox chckbxCombineAllTextures;
+	private JCheckBox chckbxMipmapTextures;
 	private JCheckBox chckbxSingleMat;
 
 	private JButton btnStartExport;
@@ -105,7 +108,11 @@ public class ExportWindow extends JmcFrame implements ProgressCallback {
 	private JPanel holderExportBtns;
 	private JCheckBox chckbxExportSeparateLight;
 	
+	private JComboBox<ExportFormat> cboxFormat;
+	private JPanel holderFormat;
+
 	private JSpinner spinnerThreads;
+	private JSpinner spinnerDecodeThreads;
 	private JPanel holderThreads;
 	private JCheckBox chckbxExportNormalMaps;
 	private JCheckBox chckbxExportSpecularMaps;
@@ -269,7 +276,10 @@ public class ExportWindow extends JmcFrame implements ProgressCallback {
 		holderSingleTexOpts.setLayout(new BoxLayout(holderSingleTexOpts, BoxLayout.Y_AXIS));
 
 		chckbxCombineAllTextures = new JCheckBox(Messages.getString("TexsplitDialog.EXP_SINGLE"));
-		holderSingleTexOpts.add(chckbxCombineAllTextures);
+		holderTexExport.add(chckbxCombineAllTextures);
+
+		chckbxMipmapTextures = new JCheckBox(Messages.getString("TexsplitDialog.EXP_DDS"));
+		holderTexExport.add(chckbxMipmapTextures);
 
 		chckbxExportSeparateLight = new JCheckBox(Messages.getString("TexsplitDialog.EXP_SEPERATE_LIGHT"));
 		holderSingleTexOpts.add(chckbxExportSeparateLight);
@@ -427,6 +437,20 @@ public class ExportWindow extends JmcFrame implements ProgressCallback {
 		chckbxMergeVerticies = new JCheckBox(Messages.getString("OBJExportOptions.DUPL_VERT"));
 		pExportOptions.add(chckbxMergeVerticies);
 
+		//##########################################################################################################
+		//ExportFormat
+		//##########################################################################################################
+		holderFormat = new JPanel();
+		holderFormat.setAlignmentX(Component.LEFT_ALIGNMENT);
+		pExportOptions.add(holderFormat);
+		holderFormat.setLayout(new FlowLayout(FlowLayout.LEFT));
+
+		JLabel lblFormat = new JLabel(Messages.getString("OBJExportOptions.FORMAT"));
+		holderFormat.add(lblFormat);
+
+		cboxFormat = new JComboBox<ExportFormat>(ExportFormat.values());
+		holderFormat.add(cboxFormat);
+
 		//##########################################################################################################
 		//ExportThreads
 		//##########################################################################################################
@@ -454,6 +478,19 @@ public class ExportWindow extends JmcFrame implements ProgressCallback {
 		lblThreadsWarn.setFont(new Font("Tahoma", Font.BOLD, 11));
 		lblThreadsWarn.setForeground(Color.RED);
 
+		SpinnerNumberModel decodeThreadSpinnerModel = new SpinnerNumberModel(4, 1, 512, 1);
+		spinnerDecodeThreads = new JSpinner(decodeThreadSpinnerModel);
+		holderThreads.add(spinnerDecodeThreads);
+		
+		JLabel lblDecodeThreadsText = new JLabel(Messages.getString("OBJExportOptions.DECODE_THREADS"));
+		holderThreads.add(lblDecodeThreadsText);
+
+		JLabel lblDecodeThreadsHelp = new JLabel("???");
+		holderThreads.add(lblDecodeThreadsHelp);
+		lblDecodeThreadsHelp.setToolTipText(Messages.getString("OBJExportOptions.DECODE_THREADS_HELP"));
+		lblDecodeThreadsHelp.setFont(new Font("Tahoma", Font.BOLD, 11));
+		lblDecodeThreadsHelp.setForeground(Color.RED);
+
 		//##########################################################################################################
 		//Export
 		//##########################################################################################################
@@ -712,23 +749,7 @@ public class ExportWindow extends JmcFrame implements ProgressCallback {
 
 						MainWindow.settings.setLastExportPath(savePath.toString());
 						MainWindow.updateSelectionOptions();
-						btnStartExport.setEnabled(false);
-						btnForceStop.setEnabled(true);
-
-						if (exportThread != null) {
-							exportThread.interrupt();
-						}
-						exportThread = new Thread(new Runnable() {
-							@Override
-							public void run() {
-								ObjExporter.export(ExportWindow.this, Options.exportTex);
-								
-								btnStartExport.setEnabled(true);
-								btnForceStop.setEnabled(false);
-							}
-						});
-						exportThread.setName("ExportThread");
-						exportThread.start();
+						startExport();
 
 					}
 
@@ -784,23 +805,7 @@ public class ExportWindow extends JmcFrame implements ProgressCallback {
 					}
 
 					MainWindow.updateSelectionOptions();
-					btnStartExport.setEnabled(false);
-					btnForceStop.setEnabled(true);
-
-					if (exportThread != null) {
-						exportThread.interrupt();
-					}
-					exportThread = new Thread(new Runnable() {
-						@Override
-						public void run() {
-							ObjExporter.export(ExportWindow.this, Options.exportTex);
-							
-							btnStartExport.setEnabled(true);
-							btnForceStop.setEnabled(false);
-						}
-					});
-					exportThread.setName("ExportThread");
-					exportThread.start();
+					startExport();
 
 				} else {
 
@@ -847,7 +852,9 @@ public class ExportWindow extends JmcFrame implements ProgressCallback {
 
 		chckbxSingleMat.addActionListener(genericSaveAction);
 		
+		cboxFormat.addActionListener(genericSaveAction);
 		spinnerThreads.addChangeListener(genericSaveChange);
+		spinnerDecodeThreads.addChangeListener(genericSaveChange);
 
 		chckbxUseLastSaveLoc.addActionListener(genericSaveAction);
 		btnStartExport.addActionListener(startExport);
@@ -867,6 +874,7 @@ public class ExportWindow extends JmcFrame implements ProgressCallback {
 		chckbxExportNormalMaps.addActionListener(genericSaveAction);
 		chckbxExportSpecularMaps.addActionListener(genericSaveAction);
 		chckbxCombineAllTextures.addActionListener(genericSaveAction);
+		chckbxMipmapTextures.addActionListener(genericSaveAction);
 		chckbxExportSeparateLight.addActionListener(genericSaveAction);
 
 		btnFromResourcePack.addActionListener(exportCloudsFromRP);
@@ -874,6 +882,42 @@ public class ExportWindow extends JmcFrame implements ProgressCallback {
 
 	}
 
+	/**
+	 * Starts exporting on a new thread. An export that's still running is
+	 * stopped, and the new one waits for it to finish so they don't write
+	 * the same files.
+	 */
+	private void startExport() {
+		btnStartExport.setEnabled(false);
+		btnForceStop.setEnabled(true);
+
+		final Thread previous = exportThread;
+		if (previous != null) {
+			previous.interrupt();
+		}
+		exportThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				if (previous != null) {
+					try {
+						previous.join();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				
+				ObjExporter.export(ExportWindow.this, Options.exportTex);
+				
+				if (exportThread == Thread.currentThread()) {
+					btnStartExport.setEnabled(true);
+					btnForceStop.setEnabled(false);
+				}
+			}
+		});
+		exportThread.setName("ExportThread");
+		exportThread.start();
+	}
+
 	private void loadSettings() {
 
 		textFieldMapScale.setText("" + prefs.getFloat("DEFAULT_SCALE", 1.0f));
@@ -923,9 +967,16 @@ public class ExportWindow extends JmcFrame implements ProgressCallback {
 		chckbxExportSpecularMaps.setSelected(prefs.getBoolean("TEXTURE_SPECULAR", false));
 		chckbxExportSeparateLight.setSelected(prefs.getBoolean("TEXTURE_LIGHT", false));
 		chckbxCombineAllTextures.setSelected(prefs.getBoolean("TEXTURE_MERGE", false));
+		chckbxMipmapTextures.setSelected(prefs.get("TEXTURE_FORMAT", "").equals(TextureFormat.DDS.name()));
 		chckbxSingleMat.setSelected(prefs.getBoolean("SINGLE_MTL", false));
 		
+		try {
+			cboxFormat.setSelectedItem(ExportFormat.valueOf(prefs.get("EXPORT_FORMAT", ExportFormat.OBJ.name())));
+		} catch (IllegalArgumentException e) {
+			cboxFormat.setSelectedItem(ExportFormat.OBJ);
+		}
 		spinnerThreads.setValue(prefs.getInt("EXPORT_THREADS", 8));
+		spinnerDecodeThreads.setValue(prefs.getInt("DECODE_THREADS", 4));
 		
 		updateEnabledSettings();
 
@@ -1004,20 +1055,16 @@ public class ExportWindow extends JmcFrame implements ProgressCallback {
 		prefs.putBoolean("TEXTURE_SPECULAR", Options.textureSpecular);
 		prefs.putBoolean("TEXTURE_LIGHT", Options.textureLight);
 		prefs.putBoolean("TEXTURE_MERGE", Options.textureMerge);
+		prefs.put("TEXTURE_FORMAT", Options.textureFormat.name());
 		
+		prefs.put("EXPORT_FORMAT", Options.exportFormat.name());
 		prefs.putInt("EXPORT_THREADS", Options.exportThreads);
+		prefs.putInt("DECODE_THREADS", Options.decodeThreads);
 	}
 
 	private void updateEnabledSettings() {
-		/*if (chckbxCombineAllTextures.isSelected()) {TODO fix single tex export
-			chckbxExportSeparateLight.setEnabled(true);
-			chckbxSingleMat.setEnabled(true);
-			chckbxOptimiseGeo.setEnabled(false);
-		} else*/ {
-			chckbxExportSeparateLight.setEnabled(false);
-			chckbxSingleMat.setEnabled(false);
-			chckbxOptimiseGeo.setEnabled(true);
-		}
+		chckbxExportSeparateLight.setEnabled(false);
+		chckbxSingleMat.setEnabled(false);
 
 		if (chckbxSeparateBlock.isSelected()) {
 			chckbxSeparateBlockOccl.setEnabled(true);
@@ -1030,6 +1077,11 @@ public class ExportWindow extends JmcFrame implements ProgressCallback {
 			chckbxSeparateChunk.setEnabled(true);
 			chckbxOptimiseGeo.setEnabled(true);
 		}
+		
+		if (chckbxCombineAllTextures.isSelected()) {
+			// merged faces repeat their texture, which the atlas can't do
+			chckbxOptimiseGeo.setEnabled(false);
+		}
 
 		if (chckbxSeparateMat.isSelected() && chckbxSeparateMat.isEnabled()) {
 			chckbxSeparateMatOccl.setEnabled(true);
@@ -1099,10 +1151,13 @@ public class ExportWindow extends JmcFrame implements ProgressCallback {
 		Options.textureNormal = chckbxExportNormalMaps.isSelected();
 		Options.textureSpecular = chckbxExportSpecularMaps.isSelected();
 		Options.textureMerge = chckbxCombineAllTextures.isSelected();
+		Options.textureFormat = chckbxMipmapTextures.isSelected() ? TextureFormat.DDS : TextureFormat.PNG;
 		Options.textureLight = chckbxExportSeparateLight.isSelected() && chckbxExportSeparateLight.isEnabled();
 		Options.singleMaterial = chckbxSingleMat.isSelected() && chckbxSingleMat.isEnabled();
 		
+		Options.exportFormat = (ExportFormat)cboxFormat.getSelectedItem();
 		Options.exportThreads = (Integer)spinnerThreads.getValue();
+		Options.decodeThreads = (Integer)spinnerDecodeThreads.getValue();
 	}
 
 	private void ExportCloudsOBJ(final File destination, final File file, final File texturepack) {
@@ -22,7 +22,6 @@ import java.awt.event.MouseMotionListener;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
 import java.awt.image.BufferedImage;
-import java.awt.image.WritableRaster;
 import java.util.Vector;
 
 import javax.swing.JPanel;
@@ -70,9 +69,20 @@ public class PreviewPanel extends JPanel implements MouseMotionListener, MouseWh
 	private float zoom_level;
 
 	/**
-	 * Back buffers used for drawing the preview.
+	 * Back buffers used for drawing the preview. base_img and height_img
+	 * hold the chunk images and height maps as they are, main_img the shaded
+	 * result that gets painted.
 	 */
 	private BufferedImage main_img,base_img,height_img;
+	/**
+	 * Part of main_img that changed since the last repaint, or null.
+	 * Guarded by main_img.
+	 */
+	private Rectangle repaint_area;
+	/**
+	 * If the last full redraw drew the height map.
+	 */
+	private boolean shaded;
 
 	/**
 	 * Font used in the preview.
@@ -106,6 +116,10 @@ public class PreviewPanel extends JPanel implements MouseMotionListener, MouseWh
 		public BufferedImage image;
 		public BufferedImage height_map;
 		public int x, y;
+		/**
+		 * Level of the image in the zoom pyramid, it covers 2^level by 2^level chunks.
+		 */
+		public int level;
 	}
 
 	/**
@@ -263,7 +277,8 @@ public class PreviewPanel extends JPanel implements MouseMotionListener, MouseWh
 	}
 
 	/**
-	 * Main redraw procedure (run only when something changes).
+	 * Main redraw procedure (run only when something changes, like zooming
+	 * or moving the map). Draws all the chunks again.
 	 * @param fast if true use only block images; if false also draw height map
 	 */
 	void redraw(boolean fast)
@@ -272,7 +287,6 @@ public class PreviewPanel extends JPanel implements MouseMotionListener, MouseWh
 		int win_h=getHeight();
 		
 		synchronized (main_img) {
-			BufferedImage ckln=new BufferedImage(MAX_WIDTH, MAX_HEIGHT, BufferedImage.TYPE_INT_ARGB);
 			Graphics2D bg=base_img.createGraphics();	
 			if(!fast)
 				bg.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);			
@@ -290,76 +304,151 @@ public class PreviewPanel extends JPanel implements MouseMotionListener, MouseWh
 			synchronized (chunks) {
 				for(ChunkImage chunk:chunks)
 				{
-					int x=(int) ((chunk.x+shift_x)*zoom_level);
-					int y=(int) ((chunk.y+shift_y)*zoom_level);
-					int w=(int) (chunk.image.getWidth()*zoom_level);
-					int h=(int) (chunk.image.getHeight()*zoom_level);
-
-					if(x>win_w || y>win_h) continue;
-					if(x+w<0 || y+h<0) continue;
-					
-					if(showchunks){
-						ckln.createGraphics().drawLine(x, y, x+w, y);
-						ckln.createGraphics().drawLine(x+w, y, x+w, y+h);
-					}
-
-					bg.drawImage(chunk.image, x, y, w, h, null);
+					Rectangle rect=getScreenRect(chunk);
+					if(rect.x>win_w || rect.y>win_h) continue;
+					if(rect.x+rect.width<0 || rect.y+rect.height<0) continue;
+
+					bg.drawImage(chunk.image, rect.x, rect.y, rect.width, rect.height, null);
 					if(!fast)
-						hg.drawImage(chunk.height_map, x, y, w, h, null);
+						hg.drawImage(chunk.height_map, rect.x, rect.y, rect.width, rect.height, null);
 				}		
 			}					
 
-			if(!fast)
-			{
-				WritableRaster height_raster = height_img.getRaster();
-				int h,oh;
-				for(int x=0; x<win_w; x++)
-					for(int y=0; y<win_h; y++)
-					{
-						h=height_raster.getSample(x, y, 0);
-						if(x<(win_w-1) && y<(win_h-1)) oh=height_raster.getSample(x+1, y+1, 0);
-						else oh=h;
-
-						h=h+50+(oh-h)*20;
-						if(h<0) h=0;
-						if (h>255) h=255;
-
-						height_raster.setSample(x, y, 0, h);
-					}
-			}
+			shaded=!fast;
+			composite(new Rectangle(0, 0, win_w, win_h), fast);
+		}
+	}
 
-			Graphics2D mg=main_img.createGraphics();
-			mg.drawImage(base_img,0,0,null);
-			if(!fast)
-			{
-				mg.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.4f));
-				mg.drawImage(height_img,0,0,null);
-			}
-			if(showchunks)
-				mg.drawImage(ckln, 0, 0, null);
+	/**
+	 * Redraws everything with the height map if the last full redraw was done
+	 * without it, to finish the preview once loading is done.
+	 */
+	void redrawShading()
+	{
+		synchronized (main_img) {
+			if(fastrendermode || shaded)
+				return;
+			redraw(false);
+		}
+		repaint();
+	}
 
+	/**
+	 * Repaints the part of the preview that changed since the last call.
+	 */
+	void repaintChanged()
+	{
+		Rectangle area;
+		synchronized (main_img) {
+			area=repaint_area;
+			repaint_area=null;
 		}
+		if(area!=null)
+			repaint(area);
 	}
 
 	/**
-	 * Draws a single chunk. Does not draw height map.
+	 * Puts together main_img from the back buffers in the given area of the
+	 * screen: the chunk images, shaded by the height map, and the chunk lines.
+	 * Must hold the lock on main_img.
 	 */
-	private void redrawChunk(ChunkImage chunk)
+	private void composite(Rectangle area, boolean fast)
 	{
-		int win_w=getWidth();
-		int win_h=getHeight();
+		int win_w=Math.min(getWidth(), MAX_WIDTH);
+		int win_h=Math.min(getHeight(), MAX_HEIGHT);
+		Rectangle r=area.intersection(new Rectangle(0, 0, win_w, win_h));
+		if(r.isEmpty())
+			return;
+
+		int[] px=base_img.getRGB(r.x, r.y, r.width, r.height, null, 0, r.width);
+		if(!fast)
+		{
+			// the shade of a pixel depends on the height of the one below right of it
+			int hw=Math.min(r.width+1, win_w-r.x);
+			int hh=Math.min(r.height+1, win_h-r.y);
+			byte[] heights=(byte[]) height_img.getRaster().getDataElements(r.x, r.y, hw, hh, null);
+			for(int y=0; y<r.height; y++)
+				for(int x=0; x<r.width; x++)
+				{
+					int h=heights[y*hw+x]&0xff;
+					int oh=h;
+					if(r.x+x<(win_w-1) && r.y+y<(win_h-1)) oh=heights[(y+1)*hw+x+1]&0xff;
+
+					h=h+50+(oh-h)*20;
+					if(h<0) h=0;
+					if (h>255) h=255;
+
+					// height map drawn over the blocks at 40% opacity
+					int c=px[y*r.width+x];
+					int red=(((c>>16)&0xff)*3+h*2+2)/5;
+					int green=(((c>>8)&0xff)*3+h*2+2)/5;
+					int blue=((c&0xff)*3+h*2+2)/5;
+					px[y*r.width+x]=red<<16|green<<8|blue;
+				}
+		}
+		main_img.setRGB(r.x, r.y, r.width, r.height, px, 0, r.width);
+
+		if(showchunks)
+		{
+			Graphics2D mg=main_img.createGraphics();
+			mg.setClip(r);
+			mg.setColor(Color.white);
+			synchronized (chunks) {
+				for(ChunkImage chunk:chunks)
+				{
+					Rectangle rect=getScreenRect(chunk);
+					if(!r.intersects(rect.x, rect.y, rect.width+1, rect.height+1)) continue;
+					mg.drawLine(rect.x, rect.y, rect.x+rect.width, rect.y);
+					mg.drawLine(rect.x+rect.width, rect.y, rect.x+rect.width, rect.y+rect.height);
+				}
+			}
+		}
+
+		if(repaint_area==null)
+			repaint_area=r;
+		else
+			repaint_area=repaint_area.union(r);
+	}
 
+	/**
+	 * @return the area of the screen the chunk image is drawn in
+	 */
+	private Rectangle getScreenRect(ChunkImage chunk)
+	{
 		int x=(int) ((chunk.x+shift_x)*zoom_level);
 		int y=(int) ((chunk.y+shift_y)*zoom_level);
-		int w=(int) (chunk.image.getWidth()*zoom_level);
-		int h=(int) (chunk.image.getHeight()*zoom_level);
+		int w=(int) (chunk.image.getWidth()*(1<<chunk.level)*zoom_level);
+		int h=(int) (chunk.image.getHeight()*(1<<chunk.level)*zoom_level);
+		return new Rectangle(x, y, w, h);
+	}
 
-		if(x>win_w || y>win_h) return;
-		if(x+w<0 || y+h<0) return;
+	/**
+	 * Draws a single chunk, and puts together only the part of the screen
+	 * it's in. Draws the height map too if the rest of the screen has it.
+	 */
+	private void redrawChunk(ChunkImage chunk)
+	{
+		int win_w=getWidth();
+		int win_h=getHeight();
 
 		synchronized (main_img) {
-			Graphics2D mg=main_img.createGraphics();
-			mg.drawImage(chunk.image, x, y, w, h, null);
+			Rectangle rect=getScreenRect(chunk);
+			if(rect.x>win_w || rect.y>win_h) return;
+			if(rect.x+rect.width<0 || rect.y+rect.height<0) return;
+
+			boolean fast=fastrendermode || !shaded || chunk.height_map==null;
+			Graphics2D bg=base_img.createGraphics();
+			if(!fast)
+				bg.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			bg.drawImage(chunk.image, rect.x, rect.y, rect.width, rect.height, null);
+			if(!fast)
+			{
+				Graphics2D hg=height_img.createGraphics();
+				hg.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				hg.drawImage(chunk.height_map, rect.x, rect.y, rect.width, rect.height, null);
+			}
+			// the pixels above and left of the chunk are shaded by its heights
+			composite(new Rectangle(rect.x-1, rect.y-1, rect.width+1, rect.height+1), fast);
 		}
 	}
 	
@@ -371,12 +460,26 @@ public class PreviewPanel extends JPanel implements MouseMotionListener, MouseWh
 	 * @param y y location of the chunk on the screen
 	 */
 	public void addImage(BufferedImage img, BufferedImage height, int x, int y)
+	{
+		addImage(img, height, x, y, 0);
+	}
+	
+	/**
+	 * Add an image of a tile of the zoom pyramid to the preview.
+	 * @param img image of the blocks
+	 * @param height height map
+	 * @param x x location of the tile on the screen
+	 * @param y y location of the tile on the screen
+	 * @param level level of the tile, it covers 2^level by 2^level chunks
+	 */
+	public void addImage(BufferedImage img, BufferedImage height, int x, int y, int level)
 	{		
 		ChunkImage chunk=new ChunkImage();
 		chunk.image=img;
 		chunk.height_map=height;
 		chunk.x=x;
 		chunk.y=y;
+		chunk.level=level;
 		synchronized (chunks) {			
 			chunks.add(chunk);
 		}
@@ -457,6 +560,20 @@ public class PreviewPanel extends JPanel implements MouseMotionListener, MouseWh
 		return ret;
 	}
 
+	/**
+	 * Gets the level of the zoom pyramid that fits the current zoom, the one
+	 * whose 64x64 tiles are drawn closest to their own size.
+	 * @param maxLevel highest level there is
+	 * @return level, a tile covers 2^level by 2^level chunks
+	 */
+	public int getPyramidLevel(int maxLevel)
+	{
+		int level=0;
+		while(level<maxLevel && zoom_level*(2<<level)<=1)
+			level++;
+		return level;
+	}
+
 	private int zoom_level_pos=11;
 	private final float zoom_levels[]={0.015625f, 0.03125f, 0.0625f, 0.125f, 0.25f, 0.375f, 0.5f, 0.625f, 0.75f, 0.875f, 1.0f, 1.5f, 2.0f, 2.5f, 3.0f, 3.5f, 4.0f, 5.0f, 6.0f, 7.0f, 8.0f, 10.0f}; 
 
@@ -0,0 +1,296 @@
+package org.jmc.gui;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.annotation.CheckForNull;
+
+import org.apache.commons.io.FileUtils;
+import org.jmc.BlockTypes;
+import org.jmc.util.Filesystem;
+import org.jmc.util.Log;
+import org.jmc.util.ResourcePackIO;
+
+/**
+ * Keeps the preview images of the chunks on disk, so opening a world again
+ * only renders the chunks that were saved since.
+ * <p>
+ * There's one tile file per region, in cache/preview in the program folder,
+ * under a folder for the world, dimension, altitude bounds, resource packs and
+ * block configuration. Folders that weren't used for {@link #MAX_AGE_DAYS}
+ * days are deleted.
+ * Every chunk in a tile is stored with the save time the region file had for
+ * it (see {@link org.jmc.Region#getChunkTimestamp(int, int)}) and is only used
+ * while that time is the same. Chunk images are drawn as 4x4 pixels per block,
+ * so only one colour and height per block is kept.
+ */
+class PreviewTileCache {
+
+	private static final int MAGIC = 0x4a4d5054;
+	/** Increase when the format of the tiles or the way chunks are drawn changes. */
+	private static final int VERSION = 1;
+
+	/** Most tiles to keep in memory, changed ones are written out when dropped. */
+	private static final int MAX_TILES = 64;
+
+	/** Days after which an unused cache folder is deleted. */
+	private static final int MAX_AGE_DAYS = 30;
+
+	final int floor, ceiling;
+
+	private final File dir;
+
+	private final Map<Point, Tile> tiles = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Chunks of one region.
+	 */
+	private static class Tile {
+		final File file;
+		final int[] timestamps = new int[1024];
+		final int[][] colours = new int[1024][];
+		final byte[][] heights = new byte[1024][];
+		boolean changed = false;
+
+		Tile(File file) {
+			this.file = file;
+		}
+	}
+
+	/**
+	 * @param worldDir world folder
+	 * @param dimension dimension id
+	 * @param floor floor the chunks are drawn with
+	 * @param ceiling ceiling the chunks are drawn with
+	 */
+	PreviewTileCache(File worldDir, int dimension, int floor, int ceiling) {
+		this.floor = floor;
+		this.ceiling = ceiling;
+		String key = String.format("%s|%d|%d|%d|%s|%s", worldDir.getAbsolutePath(), dimension, floor, ceiling,
+				ResourcePackIO.getFingerprint(), BlockTypes.getFingerprint());
+		String hash = Filesystem.getSha256(key.getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+		dir = new File(Filesystem.getDatafilesDir(), "cache/preview/" + hash);
+		// the folder's time is when it was last used
+		if (dir.isDirectory())
+			dir.setLastModified(System.currentTimeMillis());
+		pruneOldFolders();
+	}
+
+	/**
+	 * Deletes the folders of caches that weren't used for
+	 * {@link #MAX_AGE_DAYS} days, e.g. of worlds that were deleted or older
+	 * altitude bounds and resource packs.
+	 */
+	private static void pruneOldFolders() {
+		File[] folders = new File(Filesystem.getDatafilesDir(), "cache/preview").listFiles(File::isDirectory);
+		if (folders == null)
+			return;
+		long oldest = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(MAX_AGE_DAYS);
+		for (File folder : folders) {
+			if (folder.lastModified() < oldest) {
+				Log.debug("Deleting unused preview cache " + folder.getName());
+				FileUtils.deleteQuietly(folder);
+			}
+		}
+	}
+
+	/**
+	 * Gets the images of a chunk if they're cached.
+	 * @param chunk chunk coordinates
+	 * @param timestamp save time of the chunk in its region file
+	 * @param needHeight if the height image is needed too
+	 * @return the block and height images, or null if the chunk has to be
+	 *         rendered. The height image is null if it wasn't needed.
+	 */
+	@CheckForNull
+	BufferedImage[] get(Point chunk, int timestamp, boolean needHeight) {
+		if (timestamp == 0)
+			return null;
+		Tile tile = getTile(chunk);
+		int[] colours;
+		byte[] heights;
+		synchronized (tile) {
+			int i = indexOf(chunk);
+			if (tile.timestamps[i] != timestamp || tile.colours[i] == null)
+				return null;
+			if (needHeight && tile.heights[i] == null)
+				return null;
+			colours = tile.colours[i];
+			heights = needHeight ? tile.heights[i] : null;
+		}
+
+		int[] blockPixels = new int[64 * 64];
+		byte[] heightPixels = heights != null ? new byte[64 * 64] : null;
+		for (int y = 0; y < 64; y++) {
+			for (int x = 0; x < 64; x++) {
+				int block = (y / 4) * 16 + x / 4;
+				blockPixels[y * 64 + x] = colours[block];
+				if (heightPixels != null)
+					heightPixels[y * 64 + x] = heights[block];
+			}
+		}
+		BufferedImage blockImg = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+		blockImg.setRGB(0, 0, 64, 64, blockPixels, 0, 64);
+		BufferedImage heightImg = null;
+		if (heightPixels != null) {
+			heightImg = new BufferedImage(64, 64, BufferedImage.TYPE_BYTE_GRAY);
+			heightImg.getRaster().setDataElements(0, 0, 64, 64, heightPixels);
+		}
+		return new BufferedImage[] { blockImg, heightImg };
+	}
+
+	/**
+	 * Stores the images of a chunk rendered with this cache's floor and ceiling.
+	 * @param chunk chunk coordinates
+	 * @param timestamp save time of the chunk in its region file
+	 * @param blockImg image of the blocks
+	 * @param heightImg height image, or null if it wasn't drawn
+	 */
+	void put(Point chunk, int timestamp, BufferedImage blockImg, @CheckForNull BufferedImage heightImg) {
+		if (timestamp == 0)
+			return;
+		int[] colours = new int[256];
+		byte[] heights = heightImg != null ? new byte[256] : null;
+		for (int z = 0; z < 16; z++) {
+			for (int x = 0; x < 16; x++) {
+				colours[z * 16 + x] = blockImg.getRGB(x * 4, z * 4) & 0xffffff;
+				if (heights != null)
+					heights[z * 16 + x] = (byte) heightImg.getRaster().getSample(x * 4, z * 4, 0);
+			}
+		}
+		Tile tile = getTile(chunk);
+		synchronized (tile) {
+			int i = indexOf(chunk);
+			// keep the height of a chunk that didn't change but was drawn without one
+			if (heights != null || tile.timestamps[i] != timestamp)
+				tile.heights[i] = heights;
+			tile.timestamps[i] = timestamp;
+			tile.colours[i] = colours;
+			tile.changed = true;
+		}
+	}
+
+	/**
+	 * Writes every changed tile to disk.
+	 */
+	void flush() {
+		List<Tile> toWrite;
+		synchronized (tiles) {
+			toWrite = new ArrayList<>(tiles.values());
+		}
+		for (Tile tile : toWrite) {
+			save(tile);
+		}
+	}
+
+	private static int indexOf(Point chunk) {
+		return Math.floorMod(chunk.x, 32) + Math.floorMod(chunk.y, 32) * 32;
+	}
+
+	private Tile getTile(Point chunk) {
+		Point region = new Point(chunk.x >> 5, chunk.y >> 5);
+		Tile evicted = null;
+		Tile tile;
+		synchronized (tiles) {
+			tile = tiles.get(region);
+			if (tile == null) {
+				tile = load(new File(dir, "r." + region.x + "." + region.y + ".bin"));
+				tiles.put(region, tile);
+				if (tiles.size() > MAX_TILES) {
+					Iterator<Tile> it = tiles.values().iterator();
+					evicted = it.next();
+					it.remove();
+				}
+			}
+		}
+		if (evicted != null)
+			save(evicted);
+		return tile;
+	}
+
+	private static Tile load(File file) {
+		Tile tile = new Tile(file);
+		if (!file.isFile())
+			return tile;
+		try (DataInputStream in = new DataInputStream(new InflaterInputStream(new BufferedInputStream(new FileInputStream(file))))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				return tile;
+			int count = in.readUnsignedShort();
+			for (int n = 0; n < count; n++) {
+				int i = in.readUnsignedShort();
+				tile.timestamps[i] = in.readInt();
+				boolean hasHeight = in.readBoolean();
+				int[] colours = new int[256];
+				for (int b = 0; b < 256; b++)
+					colours[b] = in.readInt();
+				tile.colours[i] = colours;
+				if (hasHeight) {
+					tile.heights[i] = new byte[256];
+					in.readFully(tile.heights[i]);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			Log.debug("Ignoring preview tile " + file.getName() + ": " + e);
+			return new Tile(file);
+		}
+		return tile;
+	}
+
+	private static void save(Tile tile) {
+		synchronized (tile) {
+			if (!tile.changed)
+				return;
+			File temp = new File(tile.file.getPath() + ".tmp");
+			try {
+				File dir = tile.file.getParentFile();
+				if (!dir.isDirectory() && !dir.mkdirs())
+					throw new IOException("Cannot create directory: " + dir.getAbsolutePath());
+				try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(new BufferedOutputStream(new FileOutputStream(temp))))) {
+					out.writeInt(MAGIC);
+					out.writeInt(VERSION);
+					int count = 0;
+					for (int[] colours : tile.colours) {
+						if (colours != null)
+							count++;
+					}
+					out.writeShort(count);
+					for (int i = 0; i < 1024; i++) {
+						if (tile.colours[i] == null)
+							continue;
+						out.writeShort(i);
+						out.writeInt(tile.timestamps[i]);
+						out.writeBoolean(tile.heights[i] != null);
+						for (int colour : tile.colours[i])
+							out.writeInt(colour);
+						if (tile.heights[i] != null)
+							out.write(tile.heights[i]);
+					}
+				}
+				Files.move(temp.toPath(), tile.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				tile.changed = false;
+			} catch (IOException | RuntimeException e) {
+				Log.debug("Couldn't save preview tile " + tile.file.getName() + ": " + e.getMessage());
+				temp.delete();
+			}
+		}
+	}
+}
@@ -501,6 +501,9 @@ public class Settings extends JmcFrame implements WindowListener, ChangeListener
 			}
 		}
 		if (reloadRegistries) {
+			if (MainWindow.main != null) {
+				MainWindow.main.stopPreviewLoader();
+			}
 			Registries.reloadResourcePacks();
 			if (MainWindow.main != null) {
 				MainWindow.main.reloadPreviewLoader();
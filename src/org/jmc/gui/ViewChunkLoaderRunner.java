@@ -13,19 +13,21 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.Vector;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
 import org.jmc.Chunk;
 import org.jmc.ChunkLoaderRunner;
 import org.jmc.Options;
 import org.jmc.Region;
+import org.jmc.RegionCache;
 import org.jmc.gui.PreviewPanel.ChunkImage;
 import org.jmc.threading.ThreadInputQueue;
-import org.jmc.util.Hilbert.HilbertComparator;
 
 /**
  * Chunk loader that loads only the chunks visible on the screen and
@@ -65,8 +67,41 @@ public class ViewChunkLoaderRunner implements ChunkLoaderRunner {
 	// Chunks that we checked do not exist in this world.
 	Set<Point> emptyChunks;
 	
+	/**
+	 * Highest level of the zoom pyramid, its tiles cover a whole region.
+	 */
+	private static final int MAX_LEVEL = 5;
+	
 	private ThreadInputQueue chunkQueue;
-	private AtomicInteger chunksToDo;
+	
+	/**
+	 * Tiles queued for one view, all of the same level of the zoom pyramid.
+	 * Each change of the view starts a new batch, tiles of older batches
+	 * that aren't visible anymore are dropped.
+	 */
+	private static class Batch {
+		final int level;
+		/** first and last visible tile, inclusive */
+		final int txs, tzs, txe, tze;
+		final AtomicInteger toDo = new AtomicInteger();
+		
+		Batch(int level, int txs, int tzs, int txe, int tze) {
+			this.level = level;
+			this.txs = txs;
+			this.tzs = tzs;
+			this.txe = txe;
+			this.tze = tze;
+		}
+		
+		boolean isVisible(Point p, int level) {
+			return level == this.level && p.x >= txs && p.x <= txe && p.y >= tzs && p.y <= tze;
+		}
+	}
+	
+	/**
+	 * The current batch, only replaced together with clearing the queue.
+	 */
+	private volatile Batch batch;
 
 	/**
 	 * Variables defining the Y-axis boundaries of the current preview. 
@@ -74,6 +109,11 @@ public class ViewChunkLoaderRunner implements ChunkLoaderRunner {
 	private int floor, ceiling;
 	private boolean yBoundsChanged;
 	
+	/**
+	 * Images of the chunks rendered before, for the current Y-axis bounds.
+	 */
+	private volatile PreviewTileCache tileCache;
+	
 	private ArrayList<Thread> imagerThreads = new ArrayList<Thread>();
 
 	/**
@@ -90,11 +130,12 @@ public class ViewChunkLoaderRunner implements ChunkLoaderRunner {
 		loadedChunks = Collections.synchronizedSet(new HashSet<Point>());
 		emptyChunks = Collections.synchronizedSet(new HashSet<Point>());
 		chunkQueue = new ThreadInputQueue();
-		chunksToDo = new AtomicInteger();
+		batch = new Batch(0, 0, 0, -1, -1);
 		
 		floor = 0;
 		ceiling = Integer.MAX_VALUE;
 		yBoundsChanged = false;
+		tileCache = new PreviewTileCache(worldPath, dimension, floor, ceiling);
 	}
 
 	/**
@@ -104,6 +145,7 @@ public class ViewChunkLoaderRunner implements ChunkLoaderRunner {
 	public void run() {
 
 		Rectangle prevBounds = new Rectangle();
+		int level = 0;
 
 		loadedChunks.clear();
 		emptyChunks.clear();
@@ -122,15 +164,16 @@ public class ViewChunkLoaderRunner implements ChunkLoaderRunner {
 			{
 				
 				boolean drawn = false;
-				while (prevBounds.equals(preview.getChunkBounds()) && !yBoundsChanged) {
+				while (prevBounds.equals(preview.getChunkBounds()) && preview.getPyramidLevel(MAX_LEVEL) == level && !yBoundsChanged) {
 					if (Thread.interrupted()) {
 						return;
 					}
-					if (chunksToDo.get() == 0 && !drawn) {
-						preview.redraw(preview.fastrendermode);
+					if (batch.toDo.get() == 0 && !drawn) {
+						preview.redrawShading();
+						tileCache.flush();
 						drawn = true;
 					}
-					preview.repaint();
+					preview.repaintChanged();
 					try {
 						Thread.sleep(REPAINT_FREQUENCY);
 					} catch (InterruptedException e) {
@@ -140,19 +183,33 @@ public class ViewChunkLoaderRunner implements ChunkLoaderRunner {
 				
 				Rectangle bounds = preview.getChunkBounds();
 				boolean stopIter = false;
-				chunkQueue.clear();
-				chunksToDo = new AtomicInteger();
+				boolean levelChanged = preview.getPyramidLevel(MAX_LEVEL) != level;
+				level = preview.getPyramidLevel(MAX_LEVEL);
 				
-				int cxs = bounds.x;
-				int czs = bounds.y;
-				int cxe = bounds.x + bounds.width;
-				int cze = bounds.y + bounds.height;
+				// visible tiles of the current level
+				int cxs = Math.floorDiv(bounds.x, 1 << level);
+				int czs = Math.floorDiv(bounds.y, 1 << level);
+				int cxe = Math.floorDiv(bounds.x + bounds.width, 1 << level);
+				int cze = Math.floorDiv(bounds.y + bounds.height, 1 << level);
 				
+				Batch newBatch = new Batch(level, cxs, czs, cxe, cze);
+				synchronized (chunkQueue) {
+					chunkQueue.clear();
+					batch = newBatch;
+				}
+				
+				boolean cleared = false;
 				if (yBoundsChanged)
 				{
 					yBoundsChanged = false;
 					loadedChunks.clear();
 					chunkImages.clear();
+					cleared = true;
+				}
+				if (levelChanged)
+				{
+					loadedChunks.clear();
+					emptyChunks.clear();
 				}
 				
 				synchronized (chunkImages) {
@@ -161,8 +218,13 @@ public class ViewChunkLoaderRunner implements ChunkLoaderRunner {
 					{
 						ChunkImage chunk_image = iter.next();
 						
-						int cx = chunk_image.x/64;
-						int cz = chunk_image.y/64;
+						if (chunk_image.level != level) {
+							iter.remove();
+							continue;
+						}
+						
+						int cx = Math.floorDiv(chunk_image.x, 64 << level);
+						int cz = Math.floorDiv(chunk_image.y, 64 << level);
 						
 						if ((cx<cxs || cx>cxe || cz<czs || cz>cze) && !preview.keepChunks) {
 							loadedChunks.remove(new Point(cx,cz));
@@ -180,8 +242,11 @@ public class ViewChunkLoaderRunner implements ChunkLoaderRunner {
 					}
 				}
 				
-				preview.redraw(true);
-				preview.repaint();
+				// zooming and moving the map redraw the preview themselves, new chunks are added on top
+				if (cleared) {
+					preview.redraw(true);
+					preview.repaint();
+				}
 				
 				
 				ArrayList<Point> chunkList = new ArrayList<Point>();
@@ -197,7 +262,10 @@ public class ViewChunkLoaderRunner implements ChunkLoaderRunner {
 					}
 				}
 				
-				chunkList.sort(new HilbertComparator(8));
+				// nearest to the centre of the view first
+				double centreX = (cxs + cxe) / 2.0;
+				double centreZ = (czs + cze) / 2.0;
+				chunkList.sort(Comparator.comparingDouble(p -> p.distanceSq(centreX, centreZ)));
 				
 				for (Point p : chunkList) {
 					Rectangle new_bounds=preview.getChunkBounds();
@@ -206,7 +274,7 @@ public class ViewChunkLoaderRunner implements ChunkLoaderRunner {
 					
 					if (stopIter) break;
 					
-					chunksToDo.addAndGet(1);
+					newBatch.toDo.addAndGet(1);
 					chunkQueue.add(p);
 					
 					if (Thread.interrupted()) return;
@@ -222,6 +290,7 @@ public class ViewChunkLoaderRunner implements ChunkLoaderRunner {
 				} catch (InterruptedException e) {}
 			}
 			imagerThreads.clear();
+			tileCache.flush();
 		}
 
 	}
@@ -235,9 +304,108 @@ public class ViewChunkLoaderRunner implements ChunkLoaderRunner {
 	{
 		this.floor=floor;
 		this.ceiling=ceiling;
+		PreviewTileCache oldCache = tileCache;
+		tileCache = new PreviewTileCache(worldPath, dimension, floor, ceiling);
+		oldCache.flush();
 		yBoundsChanged=true;
 	}
 	
+	/**
+	 * Renders a tile of the zoom pyramid. A tile of level 0 is a chunk, one of
+	 * a higher level is made by downsampling the four tiles of the level
+	 * below it.
+	 * @param cache cache to take chunks from and put rendered ones in
+	 * @param region region the tile is in
+	 * @param p tile coordinates in its level
+	 * @param level level of the tile
+	 * @param fastmode if the height image can be left out
+	 * @param stale tells if the tile went off screen and rendering it can stop
+	 * @return the block and height images, or null if there are no chunks in
+	 *         the tile or it went off screen
+	 * @throws Exception if a level 0 tile can't be read
+	 */
+	private BufferedImage[] renderTile(PreviewTileCache cache, Region region, Point p, int level, boolean fastmode, BooleanSupplier stale) throws Exception
+	{
+		if (level == 0)
+			return renderChunk(cache, region, p, fastmode);
+		
+		BufferedImage[][] children = new BufferedImage[4][];
+		boolean any = false;
+		for (int q = 0; q < 4; q++) {
+			Point child = new Point(p.x*2 + q%2, p.y*2 + q/2);
+			try {
+				children[q] = renderTile(cache, region, child, level-1, fastmode, stale);
+			} catch (Exception e) {
+				children[q] = null;
+			}
+			if (Thread.currentThread().isInterrupted() || stale.getAsBoolean())
+				return null;
+			any |= children[q] != null;
+		}
+		return any ? downsample(children, fastmode) : null;
+	}
+	
+	private BufferedImage[] renderChunk(PreviewTileCache cache, Region region, Point p, boolean fastmode) throws Exception
+	{
+		int timestamp = region.getChunkTimestamp(p.x, p.y);
+		BufferedImage[] cached = cache.get(p, timestamp, !fastmode);
+		if (cached != null)
+			return cached;
+		
+		Chunk chunk = region.getChunk(p.x, p.y);
+		if (chunk == null)
+			return null;
+		
+		chunk.renderImages(cache.floor,cache.ceiling,fastmode);
+		BufferedImage heightImg = null;
+		if (!fastmode)
+			heightImg=chunk.getHeightImage();
+		BufferedImage img=chunk.getBlockImage();
+		if (!Thread.currentThread().isInterrupted())
+			cache.put(p, timestamp, img, heightImg);
+		return new BufferedImage[] { img, heightImg };
+	}
+	
+	/**
+	 * Puts four 64x64 tiles together in a square and halves it with a 2x2
+	 * box filter. Missing tiles are black.
+	 * @param children top left, top right, bottom left and bottom right
+	 *        tiles, each null or the block and height images
+	 */
+	private static BufferedImage[] downsample(BufferedImage[][] children, boolean fastmode)
+	{
+		int[] blocks = new int[64*64];
+		byte[] heights = fastmode ? null : new byte[64*64];
+		for (int q = 0; q < 4; q++) {
+			if (children[q] == null)
+				continue;
+			int ox = (q%2)*32;
+			int oy = (q/2)*32;
+			int[] src = children[q][0].getRGB(0, 0, 64, 64, null, 0, 64);
+			byte[] hsrc = heights != null && children[q][1] != null ? (byte[]) children[q][1].getRaster().getDataElements(0, 0, 64, 64, null) : null;
+			for (int y = 0; y < 32; y++) {
+				for (int x = 0; x < 32; x++) {
+					int i = y*2*64 + x*2;
+					int p0 = src[i], p1 = src[i+1], p2 = src[i+64], p3 = src[i+65];
+					int r = (((p0>>16)&0xff) + ((p1>>16)&0xff) + ((p2>>16)&0xff) + ((p3>>16)&0xff) + 2) >> 2;
+					int g = (((p0>>8)&0xff) + ((p1>>8)&0xff) + ((p2>>8)&0xff) + ((p3>>8)&0xff) + 2) >> 2;
+					int b = ((p0&0xff) + (p1&0xff) + (p2&0xff) + (p3&0xff) + 2) >> 2;
+					blocks[(oy+y)*64 + ox+x] = r<<16 | g<<8 | b;
+					if (hsrc != null)
+						heights[(oy+y)*64 + ox+x] = (byte) (((hsrc[i]&0xff) + (hsrc[i+1]&0xff) + (hsrc[i+64]&0xff) + (hsrc[i+65]&0xff) + 2) >> 2);
+				}
+			}
+		}
+		BufferedImage img = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+		img.setRGB(0, 0, 64, 64, blocks, 0, 64);
+		BufferedImage heightImg = null;
+		if (heights != null) {
+			heightImg = new BufferedImage(64, 64, BufferedImage.TYPE_BYTE_GRAY);
+			heightImg.getRaster().setDataElements(0, 0, 64, 64, heights);
+		}
+		return new BufferedImage[] { img, heightImg };
+	}
+	
 	private class ChunkImager implements Runnable {
 		private ThreadInputQueue queue;
 		
@@ -249,40 +417,41 @@ public class ViewChunkLoaderRunner implements ChunkLoaderRunner {
 		public void run() {
 			while (!Thread.interrupted()) {
 				Point p;
-				AtomicInteger ctd;
+				Batch b;
 				try {
-					p = queue.getNext();
-					ctd = chunksToDo;
+					// the batch is replaced together with clearing the queue, so it belongs to p
+					synchronized (queue) {
+						p = queue.getNext();
+						b = batch;
+					}
 				} catch (InterruptedException e) {
 					break;
 				}
 				if (p == null)
 					break;
 				loadedChunks.add(p);
-				Chunk chunk;
-				Region region;
+				// render with the bounds of the cache so a change of bounds can't mix them up
+				PreviewTileCache cache = tileCache;
+				boolean fastmode = preview.fastrendermode;
+				BooleanSupplier stale = () -> !batch.isVisible(p, b.level);
+				BufferedImage[] images;
 				try {
-					region = Region.findRegion(worldPath, dimension, Region.getRegionCoord(p));
-					chunk = region.getChunk(p.x, p.y);
+					Point firstChunk = new Point(p.x << b.level, p.y << b.level);
+					Region region = RegionCache.get(worldPath, dimension, Region.getRegionCoord(firstChunk));
+					images = renderTile(cache, region, p, b.level, fastmode, stale);
 				} catch (Exception e) {
 					emptyChunks.add(p);
-					ctd.addAndGet(-1);
-					continue;
-				}
-			
-				if (chunk == null) {
-					ctd.addAndGet(-1);
+					b.toDo.addAndGet(-1);
 					continue;
 				}
 				
-				chunk.renderImages(floor,ceiling,preview.fastrendermode);
-				BufferedImage heightImg = null;
-				if (!preview.fastrendermode)
-					heightImg=chunk.getHeightImage();
-				BufferedImage img=chunk.getBlockImage();
-			
-				preview.addImage(img, heightImg, p.x*64, p.y*64);
-				ctd.addAndGet(-1);
+				if (stale.getAsBoolean()) {
+					// the view moved on while rendering, queue it again if it comes back
+					loadedChunks.remove(p);
+				} else if (images != null) {
+					preview.addImage(images[0], images[1], (p.x*64) << b.level, (p.y*64) << b.level, b.level);
+				}
+				b.toDo.addAndGet(-1);
 			}
 		}
 		
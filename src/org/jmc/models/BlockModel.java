@@ -1,11 +1,10 @@
 package org.jmc.models;
 
+import java.util.List;
+
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathFactory;
 
 import org.jmc.*;
 import org.jmc.geom.Direction;
@@ -16,8 +15,8 @@ import org.jmc.registry.NamespaceID;
 import org.jmc.threading.ChunkProcessor;
 import org.jmc.threading.ThreadChunkDeligate;
 import org.jmc.util.Log;
+import org.jmc.util.Xml;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 /**
  * Base class for the block model handlers. These handlers are responsible for
@@ -59,17 +58,10 @@ public abstract class BlockModel {
 	 */
 	@CheckForNull
 	public String getConfigNodeValue(String tagName, int index) {
-		XPath xpath = XPathFactory.newInstance().newXPath();
-		String configValue = null;
-		try {
-			NodeList configNode = (NodeList) xpath.evaluate(tagName, this.configNode, XPathConstants.NODESET);
-			Node currentItem = configNode.item(index);
-			if (currentItem != null)
-				configValue = currentItem.getTextContent();
-		} catch (Exception e) {
-			Log.error("Cant read config Node", e, true);
-		}
-		return configValue;
+		if (configNode == null)
+			return null;
+		List<Node> nodes = Xml.getChildElements(configNode, tagName);
+		return index < nodes.size() ? nodes.get(index).getTextContent() : null;
 	}
 
 
@@ -1,6 +1,10 @@
 package org.jmc.registry;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
@@ -37,6 +41,11 @@ public abstract class BlockstateEntry extends RegistryEntry {
 	
 	protected abstract void parseJson(JsonElement json);
 	
+	/**
+	 * Writes the parsed entry for the {@link RegistrySnapshot}.
+	 */
+	abstract void write(DataOutput out) throws IOException;
+	
 	@Nonnull
 	public abstract List<ModelListWeighted> getModelsFor(Blockstate state);
 	
@@ -73,6 +82,37 @@ public abstract class BlockstateEntry extends RegistryEntry {
 			models.add(model);
 		}
 		
+		void write(DataOutput out) throws IOException {
+			out.writeInt(models.size());
+			for (ModelInfo model : models) {
+				RegistrySnapshot.writeId(out, model.id);
+				out.writeInt(model.x);
+				out.writeInt(model.y);
+				out.writeBoolean(model.uvlock);
+				out.writeInt(model.weight);
+			}
+		}
+		
+		static ModelListWeighted read(DataInput in) throws IOException {
+			ModelListWeighted list = new ModelListWeighted();
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				ModelInfo model = new ModelInfo();
+				model.id = RegistrySnapshot.readId(in);
+				model.x = in.readInt();
+				model.y = in.readInt();
+				model.uvlock = in.readBoolean();
+				model.weight = in.readInt();
+				list.addModel(model);
+			}
+			return list;
+		}
+		
+		/** @return all the models of the list, whatever their weight */
+		public List<ModelInfo> getModels() {
+			return Collections.unmodifiableList(models);
+		}
+		
 		public ModelInfo getRandomModel(BlockPos pos) {
 			if (!Options.randBlockVariations) {
 				return models.get(0);
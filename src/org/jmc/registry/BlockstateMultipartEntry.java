@@ -1,5 +1,8 @@
 package org.jmc.registry;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,6 +29,35 @@ public class BlockstateMultipartEntry extends BlockstateEntry {
 		}
 	}
 	
+	@Override
+	void write(DataOutput out) throws IOException {
+		out.writeInt(multi.size());
+		for (MultipartCase multiCase : multi) {
+			multiCase.models.write(out);
+			out.writeInt(multiCase.conditions.size());
+			for (MultipartCase.ConditionalBlockstate condition : multiCase.conditions) {
+				RegistrySnapshot.writeMap(out, condition);
+			}
+		}
+	}
+	
+	static BlockstateMultipartEntry read(NamespaceID name, DataInput in) throws IOException {
+		BlockstateMultipartEntry entry = new BlockstateMultipartEntry(name);
+		int cases = in.readInt();
+		for (int i = 0; i < cases; i++) {
+			MultipartCase multiCase = entry.new MultipartCase();
+			multiCase.models = ModelListWeighted.read(in);
+			int conditions = in.readInt();
+			for (int j = 0; j < conditions; j++) {
+				MultipartCase.ConditionalBlockstate condition = multiCase.new ConditionalBlockstate();
+				RegistrySnapshot.readMap(in, condition);
+				multiCase.conditions.add(condition);
+			}
+			entry.multi.add(multiCase);
+		}
+		return entry;
+	}
+	
 	@Override
 	public List<ModelListWeighted> getModelsFor(Blockstate state) {
 		List<ModelListWeighted> models = new ArrayList<>();
@@ -46,6 +78,9 @@ public class BlockstateMultipartEntry extends BlockstateEntry {
 		private ModelListWeighted models = new ModelListWeighted();
 		private List<ConditionalBlockstate> conditions = new ArrayList<>();
 		
+		private MultipartCase() {
+		}
+		
 		private MultipartCase(JsonObject multiCase) {
 			JsonElement applyElem = multiCase.get("apply");
 			if (applyElem.isJsonArray()) {
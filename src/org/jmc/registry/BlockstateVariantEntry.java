@@ -1,5 +1,8 @@
 package org.jmc.registry;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -51,6 +54,34 @@ public class BlockstateVariantEntry extends BlockstateEntry {
 		}
 	}
 	
+	@Override
+	void write(DataOutput out) throws IOException {
+		out.writeInt(modelsList.size());
+		for (HashMap<Blockstate, ModelListWeighted> models : modelsList) {
+			out.writeInt(models.size());
+			for (Entry<Blockstate, ModelListWeighted> modelEntry : models.entrySet()) {
+				RegistrySnapshot.writeMap(out, modelEntry.getKey());
+				modelEntry.getValue().write(out);
+			}
+		}
+	}
+	
+	static BlockstateVariantEntry read(NamespaceID name, DataInput in) throws IOException {
+		BlockstateVariantEntry entry = new BlockstateVariantEntry(name);
+		int lists = in.readInt();
+		for (int i = 0; i < lists; i++) {
+			HashMap<Blockstate, ModelListWeighted> models = new HashMap<>();
+			int count = in.readInt();
+			for (int j = 0; j < count; j++) {
+				Blockstate blockstate = new Blockstate();
+				RegistrySnapshot.readMap(in, blockstate);
+				models.put(blockstate, ModelListWeighted.read(in));
+			}
+			entry.modelsList.add(models);
+		}
+		return entry;
+	}
+	
 	@Override
 	public List<ModelListWeighted> getModelsFor(Blockstate state) {
 		List<ModelListWeighted> stateModels = new ArrayList<>();
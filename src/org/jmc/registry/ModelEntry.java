@@ -1,6 +1,11 @@
 package org.jmc.registry;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -8,6 +13,9 @@ import java.util.Map.Entry;
 import javax.annotation.Nonnull;
 
 import org.jmc.geom.Vertex;
+import org.jmc.registry.ModelEntry.RegistryModel.ModelElement;
+import org.jmc.registry.ModelEntry.RegistryModel.ModelElement.ElementFace;
+import org.jmc.registry.ModelEntry.RegistryModel.ModelElement.ElementRotation;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
@@ -38,8 +46,14 @@ public class ModelEntry extends RegistryEntry {
 			if (generatedModel != null) {
 				return generatedModel;
 			}
-			generatedModel = new Gson().fromJson(new Gson().toJson(model), model.getClass());// clone via serialisation
-			generatedModel.parentEntry = model.parentEntry;
+			// only the texture map is changed by the parents, the elements are
+			// shared and never modified
+			RegistryModel copy = new RegistryModel();
+			copy.parent = model.parent;
+			copy.parentEntry = model.parentEntry;
+			copy.textures = new HashMap<>(model.textures);
+			copy.elements = model.elements;
+			generatedModel = copy;
 			if (generatedModel.parentEntry != null) {
 				generatedModel.parentEntry.propagateToChild(generatedModel);
 			}
@@ -66,6 +80,125 @@ public class ModelEntry extends RegistryEntry {
 		}
 	}
 	
+	/**
+	 * Points the model at its parent entry, after it was read from the
+	 * {@link RegistrySnapshot}.
+	 */
+	void resolveParent() {
+		if (model.parent != null) {
+			model.parentEntry = Registries.getModel(model.parent);
+		}
+	}
+	
+	/**
+	 * Writes the model as read from the resource packs, without the parents
+	 * applied, for the {@link RegistrySnapshot}.
+	 */
+	void write(DataOutput out) throws IOException {
+		RegistrySnapshot.writeId(out, model.parent);
+		RegistrySnapshot.writeMap(out, model.textures);
+		out.writeBoolean(model.elements != null);
+		if (model.elements == null) {
+			return;
+		}
+		out.writeInt(model.elements.size());
+		for (ModelElement element : model.elements) {
+			writeVertex(out, element.from);
+			writeVertex(out, element.to);
+			ElementRotation rotation = element.rotation;
+			out.writeBoolean(rotation != null);
+			if (rotation != null) {
+				writeVertex(out, rotation.origin);
+				RegistrySnapshot.writeString(out, rotation.axis);
+				out.writeFloat(rotation.angle);
+				out.writeBoolean(rotation.rescale);
+			}
+			out.writeInt(element.faces.size());
+			for (Entry<String, ElementFace> faceEntry : element.faces.entrySet()) {
+				ElementFace face = faceEntry.getValue();
+				out.writeUTF(faceEntry.getKey());
+				out.writeInt(face.uv != null ? face.uv.length : -1);
+				if (face.uv != null) {
+					for (float f : face.uv) {
+						out.writeFloat(f);
+					}
+				}
+				RegistrySnapshot.writeString(out, face.texture);
+				RegistrySnapshot.writeString(out, face.cullface);
+				out.writeInt(face.rotation);
+				out.writeFloat(face.tintindex);
+			}
+		}
+	}
+	
+	/**
+	 * Reads a model written by {@link #write(DataOutput)}. The parent entry
+	 * is set by {@link #resolveParent()} once all entries are read.
+	 */
+	static ModelEntry read(NamespaceID id, DataInput in) throws IOException {
+		ModelEntry entry = new ModelEntry(id);
+		RegistryModel model = new RegistryModel();
+		entry.model = model;
+		model.parent = RegistrySnapshot.readId(in);
+		// keep the order of the maps, as Gson does
+		model.textures = new LinkedHashMap<>();
+		RegistrySnapshot.readMap(in, model.textures);
+		if (!in.readBoolean()) {
+			return entry;
+		}
+		int elements = in.readInt();
+		model.elements = new ArrayList<>(elements);
+		for (int i = 0; i < elements; i++) {
+			ModelElement element = new ModelElement();
+			element.faces = new LinkedHashMap<>();
+			element.from = readVertex(in);
+			element.to = readVertex(in);
+			if (in.readBoolean()) {
+				ElementRotation rotation = new ElementRotation();
+				rotation.origin = readVertex(in);
+				rotation.axis = RegistrySnapshot.readString(in);
+				rotation.angle = in.readFloat();
+				rotation.rescale = in.readBoolean();
+				element.rotation = rotation;
+			}
+			int faces = in.readInt();
+			for (int j = 0; j < faces; j++) {
+				String side = in.readUTF();
+				ElementFace face = new ElementFace();
+				int uvs = in.readInt();
+				if (uvs >= 0) {
+					face.uv = new float[uvs];
+					for (int k = 0; k < uvs; k++) {
+						face.uv[k] = in.readFloat();
+					}
+				}
+				face.texture = RegistrySnapshot.readString(in);
+				face.cullface = RegistrySnapshot.readString(in);
+				face.rotation = in.readInt();
+				face.tintindex = in.readFloat();
+				element.faces.put(side, face);
+			}
+			model.elements.add(element);
+		}
+		return entry;
+	}
+	
+	private static void writeVertex(DataOutput out, Vertex v) throws IOException {
+		out.writeBoolean(v != null);
+		if (v != null) {
+			out.writeDouble(v.x);
+			out.writeDouble(v.y);
+			out.writeDouble(v.z);
+		}
+	}
+	
+	private static Vertex readVertex(DataInput in) throws IOException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		return new Vertex(in.readDouble(), in.readDouble(), in.readDouble());
+	}
+	
 	@Override
 	public String toString() {
 		return new Gson().toJson(this);
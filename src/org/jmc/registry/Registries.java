@@ -10,6 +10,7 @@ import java.lang.reflect.Type;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import javax.annotation.CheckForNull;
@@ -43,6 +44,12 @@ public class Registries {
 	
 	public final static Set<TextureEntry> objTextures = Collections.synchronizedSet(new HashSet<>());
 	
+	/** Key of the packs the blockstates and models were read from, see {@link RegistrySnapshot}. */
+	@CheckForNull
+	private static String snapshotKey;
+	/** True if entries were read from the packs since the snapshot was loaded. */
+	private static volatile boolean snapshotChanged = false;
+	
 	static {
 		blockstates = new CachedGetter<NamespaceID, BlockstateEntry>() {
 			@Override
@@ -60,6 +67,9 @@ public class Registries {
 						}
 						reader.close();
 					}
+					if (entry != null) {
+						snapshotChanged = true;
+					}
 					return entry;
 				} catch (FileNotFoundException e) {
 					Log.error(String.format("Couldn't find blockstate %s in any resource pack!", key), null, false);
@@ -83,6 +93,7 @@ public class Registries {
 					e.printStackTrace();
 					return null;
 				}
+				snapshotChanged = true;
 				return ModelEntry.parseJson(key, json);
 			}
 		};
@@ -108,6 +119,14 @@ public class Registries {
 		return textures.get(id);
 	}
 
+	/**
+	 * @return lookup statistics of the blockstate, model and texture caches
+	 */
+	public static String getCacheStats() {
+		return String.format("blockstates: %s; models: %s; textures: %s",
+				blockstates.getStats(), models.getStats(), textures.getStats());
+	}
+
 	public static String getFilePath(NamespaceID id, RegType model) {
 		switch (model) {
 		case BLOCKSTATE:
@@ -122,9 +141,11 @@ public class Registries {
 	}
 
 	public static void initialize() {
+		saveSnapshot();
 		blockstates.clear();
 		models.clear();
 		textures.clear();
+		TextureImageCache.clear();
 		objTextures.clear();
 		TextureEntry unkTexEntry = new TextureEntry(NamespaceID.UNKNOWN);
 		textures.put(NamespaceID.UNKNOWN, unkTexEntry);
@@ -152,10 +173,52 @@ public class Registries {
 		} catch (Exception e) {
 			Log.error("Error loading textures.json", e);
 		}
+		
+		loadSnapshot();
+	}
+	
+	/**
+	 * Fills the blockstates and models from the {@link RegistrySnapshot} of
+	 * the current resource packs, if there is one.
+	 */
+	private static synchronized void loadSnapshot() {
+		if (snapshotKey == null) {
+			Runtime.getRuntime().addShutdownHook(new Thread(Registries::saveSnapshot, "Registry snapshot"));
+		}
+		snapshotKey = ResourcePackIO.getFingerprint();
+		snapshotChanged = false;
+		RegistrySnapshot snapshot = RegistrySnapshot.load(snapshotKey);
+		if (snapshot == null) {
+			return;
+		}
+		for (Entry<NamespaceID, BlockstateEntry> entry : snapshot.blockstates.entrySet()) {
+			blockstates.put(entry.getKey(), entry.getValue());
+		}
+		for (Entry<NamespaceID, ModelEntry> entry : snapshot.models.entrySet()) {
+			models.put(entry.getKey(), entry.getValue());
+		}
+		for (ModelEntry model : snapshot.models.values()) {
+			model.resolveParent();
+		}
+		Log.debug(String.format("Loaded %d blockstates and %d models from the registry snapshot",
+				snapshot.blockstates.size(), snapshot.models.size()));
+	}
+	
+	/**
+	 * Writes the blockstates and models to the {@link RegistrySnapshot} if
+	 * any were read from the resource packs since it was loaded.
+	 */
+	private static synchronized void saveSnapshot() {
+		if (snapshotKey == null || !snapshotChanged) {
+			return;
+		}
+		snapshotChanged = false;
+		RegistrySnapshot.save(snapshotKey, blockstates.getAll(), models.getAll());
 	}
 
 	public static void reloadResourcePacks() {
 		Log.resetSingles();
+		ResourcePackIO.invalidate();
 		initialize();
 		try {
 			BlockTypes.initialize();
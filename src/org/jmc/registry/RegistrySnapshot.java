@@ -0,0 +1,177 @@
+package org.jmc.registry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.annotation.CheckForNull;
+
+import org.jmc.util.Filesystem;
+import org.jmc.util.Log;
+
+/**
+ * Binary copy of the blockstates and models read from the resource packs, so
+ * the next start doesn't have to find and parse the JSON of each one again.
+ * <p>
+ * Saved as cache/registry.bin in the program folder. The file starts with the
+ * key of the resource packs it was made from (see
+ * {@link org.jmc.util.ResourcePackIO#getFingerprint()}) and is ignored when
+ * it doesn't match the current one. Models are stored as they are in the
+ * packs, their parents are applied when they are first used.
+ */
+class RegistrySnapshot {
+
+	private static final int MAGIC = 0x4a4d4352;
+	/** Increase when the format of any entry changes. */
+	private static final int VERSION = 1;
+
+	private static final byte VARIANTS = 0;
+	private static final byte MULTIPART = 1;
+
+	final Map<NamespaceID, BlockstateEntry> blockstates = new HashMap<>();
+	final Map<NamespaceID, ModelEntry> models = new HashMap<>();
+
+	private static File getFile() {
+		return new File(Filesystem.getDatafilesDir(), "cache/registry.bin");
+	}
+
+	/**
+	 * Reads the snapshot.
+	 * @param key key of the current resource packs
+	 * @return the entries, or null if there's no snapshot for these packs
+	 */
+	@CheckForNull
+	static RegistrySnapshot load(String key) {
+		File file = getFile();
+		if (!file.isFile())
+			return null;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(key))
+				return null;
+			RegistrySnapshot snapshot = new RegistrySnapshot();
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				NamespaceID id = readId(in);
+				byte type = in.readByte();
+				switch (type) {
+				case VARIANTS:
+					snapshot.blockstates.put(id, BlockstateVariantEntry.read(id, in));
+					break;
+				case MULTIPART:
+					snapshot.blockstates.put(id, BlockstateMultipartEntry.read(id, in));
+					break;
+				default:
+					throw new IOException("Unknown blockstate type " + type);
+				}
+			}
+			count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				NamespaceID id = readId(in);
+				snapshot.models.put(id, ModelEntry.read(id, in));
+			}
+			return snapshot;
+		} catch (IOException | RuntimeException e) {
+			Log.debug("Ignoring registry snapshot: " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the entries to the snapshot, replacing the previous one.
+	 * Null entries, for files that weren't found, are left out.
+	 * @param key key of the resource packs the entries were read from
+	 */
+	static synchronized void save(String key, Map<NamespaceID, BlockstateEntry> blockstates, Map<NamespaceID, ModelEntry> models) {
+		File file = getFile();
+		File temp = new File(file.getPath() + ".tmp");
+		try {
+			File dir = file.getParentFile();
+			if (!dir.isDirectory() && !dir.mkdirs())
+				throw new IOException("Cannot create directory: " + dir.getAbsolutePath());
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeUTF(key);
+				out.writeInt(countNonNull(blockstates));
+				for (Entry<NamespaceID, BlockstateEntry> entry : blockstates.entrySet()) {
+					if (entry.getValue() == null)
+						continue;
+					writeId(out, entry.getKey());
+					out.writeByte(entry.getValue() instanceof BlockstateMultipartEntry ? MULTIPART : VARIANTS);
+					entry.getValue().write(out);
+				}
+				out.writeInt(countNonNull(models));
+				for (Entry<NamespaceID, ModelEntry> entry : models.entrySet()) {
+					if (entry.getValue() == null)
+						continue;
+					writeId(out, entry.getKey());
+					entry.getValue().write(out);
+				}
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException | RuntimeException e) {
+			Log.debug("Couldn't save registry snapshot: " + e.getMessage());
+			temp.delete();
+		}
+	}
+
+	private static int countNonNull(Map<?, ?> map) {
+		int count = 0;
+		for (Object value : map.values()) {
+			if (value != null)
+				count++;
+		}
+		return count;
+	}
+
+	static void writeString(DataOutput out, @CheckForNull String s) throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null)
+			out.writeUTF(s);
+	}
+
+	@CheckForNull
+	static String readString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	static void writeId(DataOutput out, @CheckForNull NamespaceID id) throws IOException {
+		out.writeBoolean(id != null);
+		if (id != null) {
+			out.writeUTF(id.namespace);
+			out.writeUTF(id.path);
+		}
+	}
+
+	@CheckForNull
+	static NamespaceID readId(DataInput in) throws IOException {
+		return in.readBoolean() ? new NamespaceID(in.readUTF(), in.readUTF()) : null;
+	}
+
+	static void writeMap(DataOutput out, Map<String, String> map) throws IOException {
+		out.writeInt(map.size());
+		for (Entry<String, String> entry : map.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeUTF(entry.getValue());
+		}
+	}
+
+	static void readMap(DataInput in, Map<String, String> into) throws IOException {
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			into.put(in.readUTF(), in.readUTF());
+		}
+	}
+}
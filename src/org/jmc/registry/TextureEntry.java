@@ -2,16 +2,20 @@ package org.jmc.registry;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.Reader;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 import org.apache.commons.io.FilenameUtils;
+import org.jmc.Options;
 import org.jmc.TextureExporter;
 import org.jmc.registry.Registries.RegType;
+import org.jmc.util.Filesystem;
 import org.jmc.util.Log;
 import org.jmc.util.ResourcePackIO;
 
@@ -26,23 +30,31 @@ import com.google.gson.annotations.JsonAdapter;
 
 public class TextureEntry extends RegistryEntry {
 	
-	//The texture
+	private static final Gson gson = new Gson();
+	private static final int NOT_ANIMATED = -1;
+	
+	//The texture, only kept here if it was set by a model. Images read from the resource packs are in the TextureImageCache
 	@CheckForNull
 	private BufferedImage buffImage;
+	//frame of the animation strip to use or NOT_ANIMATED, null until the .mcmeta was read
+	@CheckForNull
+	private volatile Integer animationFrame;
 	//Overrides the 'id' for when the image is read from a resource pack
 	@Expose
 	@CheckForNull
 	private NamespaceID sourceIdOverride;
-	//cached average colour
+	//cached colour and alpha statistics
 	@CheckForNull
-	private Color avgCol;
-	//cached has alpha
+	private TextureStats stats;
+	//cached result of getSourceHash
 	@CheckForNull
-	private Boolean hasAlpha;
+	private volatile String sourceHash;
 	//tint to apply to texture
 	@Expose
 	@CheckForNull
 	private Color tint;
+	//image was set by a model instead of read from the resource packs
+	private boolean generated;
 	
 	//for texture exporter
 	@Expose
@@ -56,115 +68,177 @@ public class TextureEntry extends RegistryEntry {
 	
 	@Nonnull
 	public Color getAverageColour() throws IOException {
-		BufferedImage image = getImage();
-		if (avgCol != null) {
-			return avgCol;
-		} else {
-			float red = 0;
-			float green = 0;
-			float blue = 0;
-			int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
-			int count = 0;
-			for (int pixelData : pixels) {
-				Color pixel = new Color(pixelData, true);
-				float[] values = pixel.getRGBComponents(null);
-				if (values[3] == 0)
-					continue;// pixel has 0 alpha
-				red += values[0];
-				green += values[1];
-				blue += values[2];
-				count++;
-			}
-			red /= count;
-			green /= count;
-			blue /= count;
-			avgCol = new Color(red, green, blue);
-			return avgCol;
-		}
+		return getStats().getAverageColour();
 	}
 
 	public boolean hasAlpha() throws IOException {
-		BufferedImage image = getImage();
-		if (hasAlpha != null) {
-			return hasAlpha;
-		} else {
-			int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
-			for (int pixelData : pixels) {
-				Color pixel = new Color(pixelData, true);
-				float[] values = pixel.getRGBComponents(null);
-				if (values[3] < 1) {
-					hasAlpha = true;
-					return hasAlpha;
-				}
+		return getStats().hasAlpha();
+	}
+	
+	/**
+	 * Gets the colour and alpha statistics of the texture. They are kept in
+	 * the {@link TextureStatsCache} so textures read from the resource packs
+	 * don't have to be decoded to know them.
+	 */
+	@Nonnull
+	public TextureStats getStats() throws IOException {
+		TextureStats result = stats;
+		if (result != null)
+			return result;
+		String hash = generated ? null : getSourceHash();
+		if (hash != null)
+			result = TextureStatsCache.get(hash);
+		if (result == null) {
+			boolean wasLoaded = generated || TextureImageCache.contains(this);
+			result = TextureStats.of(getImage());
+			if (hash != null)
+				TextureStatsCache.put(hash, result);
+			if (!wasLoaded) {
+				// only loaded to sample the colours, don't let it push out images still to be exported
+				releaseImage();
 			}
-			hasAlpha = false;
-			return hasAlpha;
 		}
+		stats = result;
+		return result;
+	}
+	
+	/**
+	 * Hash of everything the image is read from: the resource pack file, its
+	 * animation .mcmeta and the tint. Worked out once per texture.
+	 * @return the hash, or null if the image wasn't read from the resource packs
+	 */
+	@CheckForNull
+	public String getSourceHash() throws IOException {
+		if (generated)
+			return null;
+		String hash = sourceHash;
+		if (hash != null)
+			return hash;
+		byte[] source = ResourcePackIO.loadResource(getFilePath());
+		byte[] meta;
+		try {
+			meta = ResourcePackIO.loadResource(getFilePath() + ".mcmeta");
+		} catch (FileNotFoundException e) {
+			meta = new byte[0];
+		}
+		byte[] tintBytes = tint == null ? new byte[0] : Integer.toHexString(tint.getRGB()).getBytes(StandardCharsets.US_ASCII);
+		hash = Filesystem.getSha256(source, meta, tintBytes);
+		sourceHash = hash;
+		return hash;
 	}
 	
+	/**
+	 * Gets the image, reading it from the resource packs if it isn't in the
+	 * {@link TextureImageCache}. Of an animated texture only the frame used
+	 * is decoded.
+	 */
 	public BufferedImage getImage() throws IOException {
-		if (buffImage != null) {
-			return buffImage;
-		} else {
-			BufferedImage image = ResourcePackIO.loadImage(getFilePath());
-			image = cropAnimation(image);
-			if (tint != null) {
-				image = TextureExporter.convertImageType(image);
-				TextureExporter.tintImage(image, tint);
-			}
-			setImage(image);
-			return buffImage;
+		BufferedImage image = buffImage;
+		if (image != null) {
+			return image;
+		}
+		image = TextureImageCache.get(this);
+		if (image != null) {
+			return image;
+		}
+		image = loadFrame(getFilePath());
+		if (tint != null) {
+			image = TextureExporter.convertImageType(image);
+			TextureExporter.tintImage(image, tint);
+		}
+		TextureImageCache.put(this, image);
+		return image;
+	}
+	
+	/**
+	 * Lets the image be dropped from memory, for when it was exported and
+	 * isn't needed anymore. It's read again if it's asked for later.
+	 * Does nothing for images set by a model.
+	 */
+	public void releaseImage() {
+		if (!generated) {
+			TextureImageCache.remove(this);
 		}
 	}
 	
 	public BufferedImage getNormalMap() throws IOException {
-		String filePath = getFilePath();
-		String basePath = FilenameUtils.removeExtension(filePath);
-		String ext = FilenameUtils.getExtension(filePath);
-		BufferedImage image = ResourcePackIO.loadImage(basePath + "_n." + ext);
-		image = cropAnimation(image);
-		return image;
+		return loadFrame(getNormalMapFilePath());
 	}
 	
 	public BufferedImage getSpecularMap() throws IOException {
+		return loadFrame(getSpecularMapFilePath());
+	}
+	
+	public String getNormalMapFilePath() {
+		return getMapFilePath("_n");
+	}
+	
+	public String getSpecularMapFilePath() {
+		return getMapFilePath("_s");
+	}
+	
+	private String getMapFilePath(String suffix) {
 		String filePath = getFilePath();
 		String basePath = FilenameUtils.removeExtension(filePath);
 		String ext = FilenameUtils.getExtension(filePath);
-		BufferedImage image = ResourcePackIO.loadImage(basePath + "_s." + ext);
-		image = cropAnimation(image);
-		return image;
+		return basePath + suffix + "." + ext;
 	}
 	
-	/** Crop the image if there is an animation .mcmeta file 
-	 * @return Cropped image or the given image*/
-	private BufferedImage cropAnimation(BufferedImage image) {
+	/** Reads the image, or only its first animation frame if there is an animation .mcmeta file */
+	private BufferedImage loadFrame(String path) throws IOException {
+		int frame = getAnimationFrame();
+		if (frame == NOT_ANIMATED) {
+			return ResourcePackIO.loadImage(path);
+		} else {
+			return ResourcePackIO.loadImageFrame(path, frame);
+		}
+	}
+	
+	/** @return the frame of the animation .mcmeta to use, or NOT_ANIMATED if there isn't one */
+	private int getAnimationFrame() {
+		Integer known = animationFrame;
+		if (known != null) {
+			return known;
+		}
+		int frame = NOT_ANIMATED;
 		try (Reader reader = ResourcePackIO.loadText(getFilePath()+".mcmeta")) {
-			Meta meta = new Gson().fromJson(reader, Meta.class);
+			Meta meta = gson.fromJson(reader, Meta.class);
 			if (meta != null && meta.animation != null) {
 				Meta.Animation anim = meta.animation;
-				int baseFrame = 0;
+				frame = 0;
 				if (anim.frames != null && anim.frames.length > 0) {
 					Meta.Animation.Frame frameMeta = anim.frames[0];
 					if (frameMeta != null) {
-						baseFrame = anim.frames[0].index;
+						frame = Math.max(0, frameMeta.index);
 					}
 				}
-				int width = image.getWidth();
-				BufferedImage frame = TextureExporter.cloneImageType(image, width, width);
-				image.getSubimage(0, width*baseFrame, width, width).copyData(frame.getRaster());
-				image = frame;
 			}
 		} catch (IOException e) {
 		} catch (JsonParseException e) {
 			Log.errorOnce(String.format("Coudn't parse animation json for %s", getFilePath()), e, true);
 		}
-		return image;
+		animationFrame = frame;
+		return frame;
 	}
 	
 	public void setImage(BufferedImage image) {
-		avgCol = null;
-		hasAlpha = null;
+		stats = null;
 		buffImage = image;
+		generated = true;
+		TextureImageCache.remove(this);
+	}
+	
+	/**
+	 * @return true if the image was set with {@link #setImage(BufferedImage)}
+	 * instead of being read from the resource packs
+	 */
+	public boolean isGenerated() {
+		return generated;
+	}
+	
+	@CheckForNull
+	public Color getTint() {
+		return tint;
 	}
 
 	public String getFilePath() {
@@ -176,19 +250,19 @@ public class TextureEntry extends RegistryEntry {
 	}
 
 	public String getExportFilePath() {
-		return String.format("tex/%s/%s.png", id.namespace, id.path);
+		return String.format("tex/%s/%s.%s", id.namespace, id.path, Options.textureFormat.extension);
 	}
 
 	public String getExportFilePathAlpha() {
-		return String.format("tex/%s/%s_a.png", id.namespace, id.path);
+		return String.format("tex/%s/%s_a.%s", id.namespace, id.path, Options.textureFormat.extension);
 	}
 
 	public String getExportFilePathNormal() {
-		return String.format("tex/%s/%s_a.png", id.namespace, id.path);
+		return String.format("tex/%s/%s_n.%s", id.namespace, id.path, Options.textureFormat.extension);
 	}
 
 	public String getExportFilePathSpecular() {
-		return String.format("tex/%s/%s_a.png", id.namespace, id.path);
+		return String.format("tex/%s/%s_s.%s", id.namespace, id.path, Options.textureFormat.extension);
 	}
 
 	public String getMatName() {
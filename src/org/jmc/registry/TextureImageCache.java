@@ -0,0 +1,61 @@
+package org.jmc.registry;
+
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * Keeps the decoded images of the textures read from the resource packs, up to
+ * a limit on their total size. When the limit is reached the least recently
+ * used images are dropped and read again from the packs if they're needed.
+ * <p>
+ * Images set by models ({@link TextureEntry#setImage(BufferedImage)}) can't be
+ * read again, the entries keep those themselves.
+ */
+class TextureImageCache {
+
+	/** Most bytes of pixels to keep, an eighth of the heap. */
+	private static final long MAX_BYTES = Runtime.getRuntime().maxMemory() / 8;
+
+	private static final Map<TextureEntry, BufferedImage> images = new LinkedHashMap<>(256, 0.75f, true);
+	private static long bytes = 0;
+
+	@CheckForNull
+	static synchronized BufferedImage get(TextureEntry entry) {
+		return images.get(entry);
+	}
+
+	static synchronized boolean contains(TextureEntry entry) {
+		return images.containsKey(entry);
+	}
+
+	static synchronized void put(TextureEntry entry, BufferedImage image) {
+		BufferedImage old = images.put(entry, image);
+		if (old != null)
+			bytes -= sizeOf(old);
+		bytes += sizeOf(image);
+		Iterator<BufferedImage> it = images.values().iterator();
+		while (bytes > MAX_BYTES && images.size() > 1) {
+			bytes -= sizeOf(it.next());
+			it.remove();
+		}
+	}
+
+	static synchronized void remove(TextureEntry entry) {
+		BufferedImage old = images.remove(entry);
+		if (old != null)
+			bytes -= sizeOf(old);
+	}
+
+	static synchronized void clear() {
+		images.clear();
+		bytes = 0;
+	}
+
+	private static long sizeOf(BufferedImage image) {
+		return (long) image.getWidth() * image.getHeight() * 4;
+	}
+}
@@ -0,0 +1,150 @@
+package org.jmc.registry;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+
+/**
+ * Colour and transparency statistics of a texture, computed in a single pass
+ * over its pixels.
+ * <p>
+ * Fully transparent pixels are left out of the average colour, the same as a
+ * renderer would never show them.
+ */
+public class TextureStats {
+
+	/** Average colour as RGB. */
+	private final int average;
+	private final boolean alpha;
+	/** Fraction of the pixels that aren't fully transparent. */
+	private final float coverage;
+	private final int minAlpha;
+	private final int maxAlpha;
+
+	private TextureStats(int average, boolean alpha, float coverage, int minAlpha, int maxAlpha) {
+		this.average = average;
+		this.alpha = alpha;
+		this.coverage = coverage;
+		this.minAlpha = minAlpha;
+		this.maxAlpha = maxAlpha;
+	}
+
+	/**
+	 * @return average colour of the pixels that aren't fully transparent,
+	 *         black if there are none
+	 */
+	public Color getAverageColour() {
+		return new Color(average);
+	}
+
+	/**
+	 * @return true if any pixel isn't fully opaque
+	 */
+	public boolean hasAlpha() {
+		return alpha;
+	}
+
+	/**
+	 * @return fraction of the pixels that aren't fully transparent, from 0 to 1
+	 */
+	public float getCoverage() {
+		return coverage;
+	}
+
+	public int getMinAlpha() {
+		return minAlpha;
+	}
+
+	public int getMaxAlpha() {
+		return maxAlpha;
+	}
+
+	/**
+	 * Computes the statistics of an image. The pixel data of the common image
+	 * types is read straight from the data buffer, other types are read a row
+	 * at a time.
+	 */
+	public static TextureStats of(BufferedImage image) {
+		int w = image.getWidth();
+		int h = image.getHeight();
+		Accumulator acc = new Accumulator();
+		Raster raster = image.getRaster();
+		// sub-images share a bigger buffer, only whole buffers are read directly
+		boolean whole = raster.getParent() == null && raster.getSampleModelTranslateX() == 0
+				&& raster.getSampleModelTranslateY() == 0;
+
+		switch (whole ? image.getType() : BufferedImage.TYPE_CUSTOM) {
+		case BufferedImage.TYPE_INT_ARGB: {
+			int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+			for (int i = 0; i < w * h; i++)
+				acc.add(data[i]);
+			break;
+		}
+		case BufferedImage.TYPE_INT_RGB: {
+			int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+			for (int i = 0; i < w * h; i++)
+				acc.add(data[i] | 0xff000000);
+			break;
+		}
+		case BufferedImage.TYPE_4BYTE_ABGR: {
+			byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+			for (int i = 0; i < w * h * 4; i += 4)
+				acc.add((data[i] & 0xff) << 24 | (data[i + 3] & 0xff) << 16 | (data[i + 2] & 0xff) << 8 | (data[i + 1] & 0xff));
+			break;
+		}
+		case BufferedImage.TYPE_3BYTE_BGR: {
+			byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+			for (int i = 0; i < w * h * 3; i += 3)
+				acc.add(0xff000000 | (data[i + 2] & 0xff) << 16 | (data[i + 1] & 0xff) << 8 | (data[i] & 0xff));
+			break;
+		}
+		default: {
+			int[] row = new int[w];
+			for (int y = 0; y < h; y++) {
+				image.getRGB(0, y, w, 1, row, 0, w);
+				for (int x = 0; x < w; x++)
+					acc.add(row[x]);
+			}
+			break;
+		}
+		}
+		return acc.toStats(w * h);
+	}
+
+	private static class Accumulator {
+		long red, green, blue;
+		int visible;
+		boolean alpha;
+		int minAlpha = 255, maxAlpha = 0;
+
+		void add(int argb) {
+			int a = argb >>> 24;
+			if (a < minAlpha)
+				minAlpha = a;
+			if (a > maxAlpha)
+				maxAlpha = a;
+			if (a < 255)
+				alpha = true;
+			if (a == 0)
+				return;
+			red += (argb >> 16) & 0xff;
+			green += (argb >> 8) & 0xff;
+			blue += argb & 0xff;
+			visible++;
+		}
+
+		TextureStats toStats(int pixels) {
+			int average = 0;
+			if (visible > 0) {
+				average = (int) ((red + visible / 2) / visible) << 16
+						| (int) ((green + visible / 2) / visible) << 8
+						| (int) ((blue + visible / 2) / visible);
+			}
+			if (pixels == 0)
+				minAlpha = maxAlpha;
+			return new TextureStats(average, alpha, pixels > 0 ? (float) visible / pixels : 0, minAlpha, maxAlpha);
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package org.jmc.registry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.CheckForNull;
+
+import org.jmc.util.Filesystem;
+import org.jmc.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Remembers the {@link TextureStats} of the textures between runs, keyed by
+ * the hash of what the texture is made from (see
+ * {@link TextureEntry#getSourceHash()}), so the colours of the preview are
+ * known without decoding every texture again.
+ * <p>
+ * Loaded on first use from cache/texturestats.json in the program folder and
+ * saved when the program exits.
+ */
+class TextureStatsCache {
+
+	/** Increase when the statistics are computed differently. */
+	private static final int VERSION = 1;
+
+	private static final Gson gson = new Gson();
+
+	private static final Map<String, TextureStats> stats = new ConcurrentHashMap<>();
+	private static volatile boolean loaded = false;
+	private static volatile boolean changed = false;
+
+	private static class Contents {
+		int version;
+		Map<String, TextureStats> stats;
+	}
+
+	@CheckForNull
+	static TextureStats get(String hash) {
+		load();
+		return stats.get(hash);
+	}
+
+	static void put(String hash, TextureStats value) {
+		load();
+		if (stats.put(hash, value) == null)
+			changed = true;
+	}
+
+	private static File getFile() {
+		return new File(Filesystem.getDatafilesDir(), "cache/texturestats.json");
+	}
+
+	private static void load() {
+		if (loaded)
+			return;
+		synchronized (TextureStatsCache.class) {
+			if (loaded)
+				return;
+			File file = getFile();
+			if (file.exists()) {
+				try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+					Contents contents = gson.fromJson(reader, Contents.class);
+					if (contents != null && contents.version == VERSION && contents.stats != null)
+						stats.putAll(contents.stats);
+				} catch (IOException | JsonParseException e) {
+					Log.debug("Ignoring texture stats cache: " + e.getMessage());
+				}
+			}
+			Runtime.getRuntime().addShutdownHook(new Thread(TextureStatsCache::save, "Texture stats cache"));
+			loaded = true;
+		}
+	}
+
+	/**
+	 * Writes the cache if anything was added to it.
+	 */
+	static synchronized void save() {
+		if (!changed)
+			return;
+		File file = getFile();
+		try {
+			File dir = file.getParentFile();
+			if (!dir.isDirectory() && !dir.mkdirs())
+				throw new IOException("Cannot create directory: " + dir.getAbsolutePath());
+			Contents contents = new Contents();
+			contents.version = VERSION;
+			contents.stats = stats;
+			try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+				gson.toJson(contents, out);
+			}
+			changed = false;
+		} catch (IOException e) {
+			Log.debug("Couldn't save texture stats cache: " + e.getMessage());
+		}
+	}
+}
@@ -11,6 +11,9 @@ import java.awt.Rectangle;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+
+import javax.annotation.CheckForNull;
 
 import org.jmc.*;
 import org.jmc.NBT.TAG_Compound;
@@ -20,7 +23,9 @@ import org.jmc.geom.FaceUtils.Face;
 import org.jmc.geom.Transform;
 import org.jmc.geom.UV;
 import org.jmc.geom.Vertex;
+import org.jmc.models.BlockModel;
 import org.jmc.registry.NamespaceID;
+import org.jmc.threading.InstanceLibrary.Instance;
 import org.jmc.util.Log;
 
 
@@ -33,6 +38,13 @@ public class ChunkProcessor
 	
 	private ArrayList<Face> optimisedFaces = new ArrayList<Face>();
 	private ArrayList<Face> faces = new ArrayList<Face>();
+	private ArrayList<Instance> instances = new ArrayList<Instance>();
+	
+	/**
+	 * While not null, the added faces are collected here to make an instance.
+	 */
+	@CheckForNull
+	private ArrayList<Face> instanceFaces = null;
 
 	/**
 	 * See: {@link #addFace(Vertex[], Vertex[], UV[], Transform, NamespaceID) addFace}
@@ -118,7 +130,9 @@ public class ChunkProcessor
 			face = trans.multiply(face);
 		}
 		face.chunk_idx = chunk_idx_count;
-		if (Options.optimiseGeometry && canOptimise) {
+		if (instanceFaces != null) {
+			instanceFaces.add(face);
+		} else if (Options.optimiseGeometry && canOptimise) {
 			optimisedFaces.add(face);
 		} else {
 			faces.add(face);
@@ -184,7 +198,10 @@ public class ChunkProcessor
 						chunk_idx_count++;
 					
 					try {
-						blockInfo.getModel().addModel(this, chunk, x, y, z, block, blockBiome);
+						if (Options.instancing && !Options.objectPerBlock && blockInfo.isInstanced())
+							addInstance(blockInfo.getModel(), chunk, x, y, z, block, blockBiome);
+						else
+							blockInfo.getModel().addModel(this, chunk, x, y, z, block, blockBiome);
 						if (Boolean.parseBoolean(block.state.get("waterlogged"))) {
 							BlockTypes.get(new BlockData(new NamespaceID("minecraft", "water"))).getModel().addModel(this, chunk, x, y, z, block, blockBiome);
 						}
@@ -274,6 +291,31 @@ public class ChunkProcessor
 		return faces;
 	}
 	
+	/**
+	 * @return the instanced models placed by the last {@link #process} call
+	 */
+	public List<Instance> getInstances() {
+		return instances;
+	}
+	
+	/**
+	 * Renders the block on its own and records it as an instance of the
+	 * matching model from the {@link InstanceLibrary}.
+	 */
+	private void addInstance(BlockModel model, ThreadChunkDeligate chunk, int x, int y, int z, BlockData block, NamespaceID biome) {
+		ArrayList<Face> blockFaces = new ArrayList<Face>();
+		instanceFaces = blockFaces;
+		try {
+			model.addModel(this, chunk, x, y, z, block, biome);
+		} finally {
+			instanceFaces = null;
+		}
+		if (!blockFaces.isEmpty()) {
+			Vertex origin = new Vertex(x, y, z);
+			instances.add(new Instance(InstanceLibrary.getModel(blockFaces, origin), origin));
+		}
+	}
+	
 	/**
 	 * Attempts to join all faces in faces along axis
 	 * @param faceList The faces to combine
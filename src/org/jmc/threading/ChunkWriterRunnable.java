@@ -0,0 +1,131 @@
+package org.jmc.threading;
+
+import java.io.IOException;
+
+import javax.annotation.CheckForNull;
+
+import org.jmc.ProgressCallback;
+import org.jmc.threading.ThreadOutputQueue.ChunkOutput;
+import org.jmc.util.Log;
+
+/**
+ * Base for the thread that takes processed chunks off the output queue and
+ * writes them to the export file, until the queue is finished. Subclasses
+ * implement the file format.
+ * <p>
+ * Writers can also be fed directly through {@link #writeChunk(ChunkOutput)}
+ * from a single thread, the queue is then not used and can be null.
+ */
+public abstract class ChunkWriterRunnable implements Runnable {
+
+	/**
+	 * Offsets of the file. Used to position the chunk in its right location.
+	 */
+	protected double x_offset, y_offset, z_offset;
+
+	protected float file_scale;
+
+	private ThreadOutputQueue outputQueue;
+
+	private ProgressCallback progress;
+	private int chunksToDo;
+
+	/**
+	 * First error thrown while writing, the remaining chunks are then discarded
+	 * so the reader threads don't block on a full queue.
+	 */
+	@CheckForNull
+	private IOException error;
+
+	public ChunkWriterRunnable(ThreadOutputQueue queue, ProgressCallback progress, int chunksToDo) {
+		super();
+
+		outputQueue = queue;
+		this.progress = progress;
+		this.chunksToDo = chunksToDo;
+
+		x_offset = 0;
+		y_offset = 0;
+		z_offset = 0;
+		file_scale = 1.0f;
+	}
+
+	@Override
+	public void run() {
+		ChunkOutput chunkOut;
+		int chunksDone = 0;
+		while (!Thread.interrupted()) {
+			//Check for chunks in queue
+			try {
+				chunkOut = outputQueue.take();
+			} catch (InterruptedException e) {
+				Log.debug(String.format("Writer %s interrupted!", Thread.currentThread().getName()));
+				break;
+			}
+			if (chunkOut == null) {
+				break;
+			}
+
+			if (error == null) {
+				try {
+					writeChunk(chunkOut);
+				} catch (IOException e) {
+					Log.error("Error writing chunk " + chunkOut.getChunkCoord(), e);
+					error = e;
+				}
+			}
+
+			chunksDone++;
+			if (progress != null) {
+				float progValue = (float)chunksDone / (float)chunksToDo;
+				progress.setProgress(progValue);
+			}
+		}
+	}
+
+	/**
+	 * Writes the faces of a single chunk.
+	 * @param chunkOut processed chunk
+	 * @throws IOException
+	 */
+	public abstract void writeChunk(ChunkOutput chunkOut) throws IOException;
+
+	/**
+	 * Completes the export file once all the chunks have been written.
+	 * Does nothing by default.
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+	}
+
+	/**
+	 * @return the first error that happened while writing or null
+	 */
+	@CheckForNull
+	public IOException getError() {
+		return error;
+	}
+
+	/**
+	 * Offset all the vertices by these amounts.
+	 * Used to position the chunk in its right location.
+	 * @param x x offset
+	 * @param y y offset
+	 * @param z z offset
+	 */
+	public void setOffset(double x, double y, double z)
+	{
+		x_offset=x;
+		y_offset=y;
+		z_offset=z;
+	}
+
+	/**
+	 * Scales the map by a float value.
+	 * @param scale
+	 */
+	public void setScale(float scale)
+	{
+		file_scale=scale;
+	}
+}
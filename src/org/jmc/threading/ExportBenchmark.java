@@ -0,0 +1,84 @@
+package org.jmc.threading;
+
+import java.awt.Point;
+import java.io.IOException;
+
+import org.jmc.Chunk;
+import org.jmc.ChunkDataBuffer;
+import org.jmc.Options;
+import org.jmc.threading.ThreadOutputQueue.ChunkOutput;
+import org.jmc.util.Log;
+
+/**
+ * Runs the {@link ExportPipeline} over the selection with different numbers
+ * of mesh threads ({@link Options#exportThreads}) and reports the chunks
+ * processed per second. The decode stage keeps {@link Options#decodeThreads}.
+ * Nothing is written, so only reading and meshing the chunks is measured.
+ * <p>
+ * The selection is processed once before the timed runs so every run starts
+ * with the registries filled and the region files in the OS cache. The timed
+ * runs skip the {@link RegistryWarmup}, so only the pipeline is measured. Each
+ * run uses a new {@link ChunkDataBuffer}, so chunks are decoded again every
+ * time.
+ */
+public class ExportBenchmark {
+
+	/**
+	 * Writer that only counts the faces.
+	 */
+	private static class CountingWriter extends ChunkWriterRunnable {
+		long faces = 0;
+
+		CountingWriter(ThreadOutputQueue queue, int chunksToDo) {
+			super(queue, null, chunksToDo);
+		}
+
+		@Override
+		public void writeChunk(ChunkOutput chunkOut) throws IOException {
+			faces += chunkOut.getFacesWithInstances().size();
+		}
+	}
+
+	/**
+	 * Runs the benchmark with the selection in the global Options.
+	 * @param threadCounts numbers of mesh threads to compare
+	 * @throws InterruptedException if the benchmark was stopped
+	 */
+	public static void run(int[] threadCounts) throws InterruptedException {
+		Point cs = Chunk.getChunkPos(Options.minX, Options.minZ);
+		Point ce = Chunk.getChunkPos(Options.maxX + 15, Options.maxZ + 15);
+		int chunks = (ce.x - cs.x + 1) * (ce.y - cs.y + 1);
+		int savedThreads = Options.exportThreads;
+
+		try {
+			Log.info(String.format("Benchmarking %d chunks with %d decode threads, warming up...", chunks,
+					Options.decodeThreads));
+			ChunkDataBuffer chunkBuffer = newChunkBuffer();
+			ThreadOutputQueue outputQueue = new ThreadOutputQueue(Options.exportThreads);
+			ExportPipeline.run(chunkBuffer, cs, ce, outputQueue, new CountingWriter(outputQueue, chunks));
+			chunkBuffer.removeAllChunks();
+
+			for (int threads : threadCounts) {
+				Options.exportThreads = threads;
+				chunkBuffer = newChunkBuffer();
+				outputQueue = new ThreadOutputQueue(threads);
+				CountingWriter writer = new CountingWriter(outputQueue, chunks);
+
+				long start = System.nanoTime();
+				ExportPipeline.runWithoutWarmup(chunkBuffer, cs, ce, outputQueue, writer);
+				double seconds = (System.nanoTime() - start) / 1000000000d;
+
+				chunkBuffer.removeAllChunks();
+				Log.info(String.format("%3d threads: %.2fs, %.1f chunks/s (%d faces)", threads, seconds,
+						chunks / seconds, writer.faces));
+			}
+		} finally {
+			Options.exportThreads = savedThreads;
+		}
+	}
+
+	private static ChunkDataBuffer newChunkBuffer() {
+		return new ChunkDataBuffer(Options.minX, Options.maxX, Options.minY,
+				Options.maxY, Options.minZ, Options.maxZ);
+	}
+}
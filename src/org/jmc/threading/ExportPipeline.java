@@ -0,0 +1,415 @@
+package org.jmc.threading;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.CheckForNull;
+
+import org.jmc.BlockTypes;
+import org.jmc.ChunkDataBuffer;
+import org.jmc.Options;
+import org.jmc.Options.OffsetType;
+import org.jmc.geom.FaceUtils.Face;
+import org.jmc.geom.Vertex;
+import org.jmc.registry.Registries;
+import org.jmc.threading.ThreadOutputQueue.ChunkOutput;
+import org.jmc.util.Hilbert.HilbertComparator;
+import org.jmc.util.Log;
+
+/**
+ * Runs the decode and mesh stages and a writer thread over a range of chunks.
+ * Shared by all the export formats.
+ */
+public class ExportPipeline {
+
+	/**
+	 * Sets the offset and scale of the writer from the global Options.
+	 * @param writer
+	 */
+	public static void configureWriter(ChunkWriterRunnable writer) {
+		Vertex offset = getOffset();
+		if (Options.offsetType == OffsetType.CENTER) {
+			Log.info("Center offset: " + (int)offset.x + "/" + (int)offset.y + "/" + (int)offset.z);
+		} else if (Options.offsetType == OffsetType.CUSTOM) {
+			Log.info("Custom offset: " + (int)offset.x + "/" + (int)offset.y + "/" + (int)offset.z);
+		}
+
+		writer.setOffset(offset.x, offset.y, offset.z);
+		writer.setScale(Options.scale);
+	}
+
+	/**
+	 * @return the offset to apply to the exported geometry according to the global Options
+	 */
+	public static Vertex getOffset() {
+		int oxs, oys, ozs;
+
+		if (Options.offsetType == OffsetType.CENTER) {
+			oxs = -(Options.minX + (Options.maxX - Options.minX) / 2);
+			oys = -Options.minY;
+			ozs = -(Options.minZ + (Options.maxZ - Options.minZ) / 2);
+		} else if (Options.offsetType == OffsetType.CUSTOM) {
+			oxs = Options.offsetX;
+			oys = 0;
+			ozs = Options.offsetZ;
+		} else {
+			oxs = 0;
+			oys = 0;
+			ozs = 0;
+		}
+
+		return new Vertex(oxs, oys, ozs);
+	}
+
+	/**
+	 * Most chunks the decode stage may have loaded ahead of the mesh stage.
+	 * Loaded chunks are kept in memory until they're meshed.
+	 */
+	private static final int READ_AHEAD_CHUNKS = 256;
+
+	/**
+	 * Processes all the chunks from cs to ce (inclusive) and passes the output
+	 * to the writer. Returns once everything has been written.
+	 * The registries are filled by {@link RegistryWarmup} first.
+	 * <p>
+	 * The chunks go through two stages with their own threads: the decode
+	 * stage ({@link Options#decodeThreads}) reads them from the region files
+	 * into the chunk buffer, the mesh stage ({@link Options#exportThreads})
+	 * turns them into faces. How busy each stage was is logged at the end, to
+	 * help choosing the thread counts for the disk and processor at hand.
+	 * <p>
+	 * If the calling thread is interrupted both stages and the writer are
+	 * stopped, and this only returns once they have.
+	 *
+	 * @param chunkBuffer buffer the chunks are loaded into
+	 * @param cs first chunk
+	 * @param ce last chunk
+	 * @param outputQueue queue the writer was created with
+	 * @param writer
+	 * @throws InterruptedException if the export was stopped
+	 */
+	public static void run(ChunkDataBuffer chunkBuffer, Point cs, Point ce, ThreadOutputQueue outputQueue,
+			ChunkWriterRunnable writer) throws InterruptedException {
+		RegistryWarmup.run(cs, ce);
+		runWithoutWarmup(chunkBuffer, cs, ce, outputQueue, writer);
+	}
+
+	/**
+	 * Like {@link #run}, but without filling the registries first. For
+	 * {@link ExportBenchmark}, which warms them up once before timing the
+	 * stages.
+	 */
+	static void runWithoutWarmup(ChunkDataBuffer chunkBuffer, Point cs, Point ce, ThreadOutputQueue outputQueue,
+			ChunkWriterRunnable writer) throws InterruptedException {
+		int decodeThreads = Math.max(1, Options.decodeThreads);
+		int meshThreads = Math.max(1, Options.exportThreads);
+		ForkJoinPool decodePool = new ForkJoinPool(decodeThreads, decodeThreadFactory(), null, false);
+		ExecutorService meshPool = Executors.newFixedThreadPool(meshThreads, meshThreadFactory());
+		TaskContext context = new TaskContext(chunkBuffer, meshPool, outputQueue, decodeThreads, meshThreads);
+		DecodeTask root = new DecodeTask(null, context, cs.x, cs.y, ce.x, ce.y);
+
+		Thread writeThread = new Thread(writer);
+		writeThread.setName("WriteThread");
+		writeThread.start();
+
+		try {
+			long timer = System.nanoTime();
+
+			// not root.get(), that would have this thread help with the decoding
+			decodePool.execute(root);
+			context.decoded.await();
+			if (root.isCompletedAbnormally())
+				throw new RuntimeException("Error decoding chunks", root.getException());
+			context.decodeStats.finish();
+
+			meshPool.shutdown();
+			meshPool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			context.meshStats.finish();
+			Log.debug("Reading Chunks:" + (System.nanoTime() - timer) / 1000000000d);
+			timer = System.nanoTime();
+
+			outputQueue.finish();
+			writeThread.join();
+
+			Log.info(context.decodeStats.getStats());
+			Log.info(context.meshStats.getStats());
+			Log.debug("Writing File:" + (System.nanoTime() - timer) / 1000000000d);
+			Log.debug("Block cache: " + BlockTypes.getCacheStats());
+			Log.debug("Registry caches: " + Registries.getCacheStats());
+		} finally {
+			context.cancelled = true;
+			decodePool.shutdownNow();
+			meshPool.shutdownNow();
+			writeThread.interrupt();
+			awaitStopped(decodePool, meshPool, writeThread);
+		}
+	}
+
+	/**
+	 * Waits for both stages and the writer to stop after they've been told
+	 * to, so the caller can close the output safely.
+	 */
+	private static void awaitStopped(ExecutorService decodePool, ExecutorService meshPool, Thread writeThread) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				decodePool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+				meshPool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+				writeThread.join();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * @return factory naming the threads of one export's decode pool
+	 */
+	private static ForkJoinWorkerThreadFactory decodeThreadFactory() {
+		final AtomicInteger count = new AtomicInteger();
+		return new ForkJoinWorkerThreadFactory() {
+			@Override
+			public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				thread.setName("DecodeThread-" + count.getAndIncrement());
+				thread.setPriority(Thread.NORM_PRIORITY - 1);
+				return thread;
+			}
+		};
+	}
+
+	/**
+	 * @return factory naming the threads of one export's mesh pool
+	 */
+	private static ThreadFactory meshThreadFactory() {
+		final AtomicInteger count = new AtomicInteger();
+		return new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r);
+				thread.setName("MeshThread-" + count.getAndIncrement());
+				thread.setPriority(Thread.NORM_PRIORITY - 1);
+				return thread;
+			}
+		};
+	}
+
+	/**
+	 * State shared by all the tasks of an export.
+	 */
+	private static class TaskContext {
+		final ChunkDataBuffer chunkBuffer;
+		final ExecutorService meshPool;
+		final ThreadOutputQueue outputQueue;
+		/** One permit per chunk the decode stage may still load ahead. */
+		final Semaphore readAhead = new Semaphore(READ_AHEAD_CHUNKS);
+		/** Counted down once the decode stage has handed every chunk on. */
+		final CountDownLatch decoded = new CountDownLatch(1);
+		final StageStats decodeStats;
+		final StageStats meshStats;
+		/** Delegate of each mesh thread, reset for every chunk. */
+		final ThreadLocal<ThreadChunkDeligate> deligates;
+		volatile boolean cancelled = false;
+
+		TaskContext(ChunkDataBuffer chunkBuffer, ExecutorService meshPool, ThreadOutputQueue outputQueue,
+				int decodeThreads, int meshThreads) {
+			this.chunkBuffer = chunkBuffer;
+			this.meshPool = meshPool;
+			this.outputQueue = outputQueue;
+			decodeStats = new StageStats("Decode stage", decodeThreads);
+			meshStats = new StageStats("Mesh stage", meshThreads);
+			deligates = ThreadLocal.withInitial(() -> new ThreadChunkDeligate(chunkBuffer));
+		}
+	}
+
+	/**
+	 * Loads a rectangle of chunks into the chunk buffer and hands each one to
+	 * the mesh stage.
+	 * <p>
+	 * Rectangles spanning several regions are first split along region
+	 * borders, then the parts inside a region are halved until they're small
+	 * enough. A worker keeps working on the pieces of the region it took, and
+	 * idle workers steal the largest pieces left, which are whole regions
+	 * while there are any. So the threads mostly read different region files,
+	 * and the chunks a worker loads are meshed while their neighbours are
+	 * still cached.
+	 */
+	private static class DecodeTask extends CountedCompleter<Void> {
+		private static final long serialVersionUID = 1L;
+
+		/** Most chunks loaded by one task without splitting it. */
+		private static final int LEAF_CHUNKS = 16;
+
+		final TaskContext context;
+		private final int x0, z0, x1, z1;
+
+		DecodeTask(@CheckForNull DecodeTask parent, TaskContext context, int x0, int z0, int x1, int z1) {
+			super(parent);
+			this.context = context;
+			this.x0 = x0;
+			this.z0 = z0;
+			this.x1 = x1;
+			this.z1 = z1;
+		}
+
+		/**
+		 * Forks the second half and runs the first one on this thread. Nothing
+		 * waits for the halves, this task completes when both of them have, so
+		 * the pool never adds threads to make up for a blocked join.
+		 */
+		private void split(int ax0, int az0, int ax1, int az1, int bx0, int bz0, int bx1, int bz1) {
+			setPendingCount(1);
+			new DecodeTask(this, context, bx0, bz0, bx1, bz1).fork();
+			new DecodeTask(this, context, ax0, az0, ax1, az1).compute();
+		}
+
+		@Override
+		public void onCompletion(CountedCompleter<?> caller) {
+			if (getCompleter() == null)
+				context.decoded.countDown();
+		}
+
+		@Override
+		public boolean onExceptionalCompletion(Throwable ex, CountedCompleter<?> caller) {
+			if (getCompleter() == null)
+				context.decoded.countDown();
+			return true;
+		}
+
+		@Override
+		public void compute() {
+			if (context.cancelled) {
+				tryComplete();
+				return;
+			}
+			int rx0 = x0 >> 5, rx1 = x1 >> 5;
+			int rz0 = z0 >> 5, rz1 = z1 >> 5;
+			if (rx1 > rx0 || rz1 > rz0) {
+				// split on the region border in the middle of the longer side
+				if (rx1 - rx0 >= rz1 - rz0) {
+					int mid = ((rx0 + rx1 + 1) >> 1) << 5;
+					split(x0, z0, mid - 1, z1, mid, z0, x1, z1);
+				} else {
+					int mid = ((rz0 + rz1 + 1) >> 1) << 5;
+					split(x0, z0, x1, mid - 1, x0, mid, x1, z1);
+				}
+			} else if ((x1 - x0 + 1) * (z1 - z0 + 1) > LEAF_CHUNKS) {
+				if (x1 - x0 >= z1 - z0) {
+					int mid = (x0 + x1 + 1) >> 1;
+					split(x0, z0, mid - 1, z1, mid, z0, x1, z1);
+				} else {
+					int mid = (z0 + z1 + 1) >> 1;
+					split(x0, z0, x1, mid - 1, x0, mid, x1, z1);
+				}
+			} else {
+				try {
+					decodeChunks();
+				} finally {
+					tryComplete();
+				}
+			}
+		}
+
+		private void decodeChunks() {
+			List<Point> chunks = new ArrayList<>();
+			for (int cx = x0; cx <= x1; cx++) {
+				for (int cz = z0; cz <= z1; cz++) {
+					chunks.add(new Point(cx, cz));
+				}
+			}
+			chunks.sort(new HilbertComparator(Math.max(x1 - x0, z1 - z0)));
+
+			for (Point p : chunks) {
+				if (context.cancelled || Thread.currentThread().isInterrupted())
+					return;
+
+				long start = System.nanoTime();
+				try {
+					context.readAhead.acquire();
+				} catch (InterruptedException e) {
+					Log.debug(String.format("Decoder %s interrupted!", Thread.currentThread().getName()));
+					Thread.currentThread().interrupt();
+					return;
+				}
+				long loading = System.nanoTime();
+				context.decodeStats.addBlocked(loading - start);
+
+				try {
+					context.chunkBuffer.preload(p);
+				} catch (RuntimeException e) {
+					Log.error("Error decoding chunk " + p.x + "," + p.y, e, false);
+				}
+				context.decodeStats.addBusy(System.nanoTime() - loading);
+
+				try {
+					context.meshPool.execute(new MeshJob(context, p));
+				} catch (RejectedExecutionException e) {
+					return;// stopped
+				}
+			}
+		}
+	}
+
+	/**
+	 * Meshes one loaded chunk and passes it to the writer.
+	 */
+	private static class MeshJob implements Runnable {
+		private final TaskContext context;
+		private final Point p;
+
+		MeshJob(TaskContext context, Point p) {
+			this.context = context;
+			this.p = p;
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (context.cancelled)
+					return;
+
+				long start = System.nanoTime();
+				ChunkOutput output;
+				try {
+					ThreadChunkDeligate chunkDeligate = context.deligates.get();
+					chunkDeligate.setCurrentChunk(p);
+					ChunkProcessor proc = new ChunkProcessor();
+					ArrayList<Face> faces = proc.process(chunkDeligate, p.x, p.y);
+					output = new ChunkOutput(p, faces, proc.getInstances());
+				} catch (RuntimeException e) {
+					Log.error("Error processing chunk " + p.x + "," + p.y, e, false);
+					// still pass it on so the writer's progress adds up
+					output = new ChunkOutput(p, new ArrayList<Face>());
+				}
+				long putting = System.nanoTime();
+				context.meshStats.addBusy(putting - start);
+
+				try {
+					context.outputQueue.put(output);
+				} catch (InterruptedException e) {
+					Log.debug(String.format("Mesher %s interrupted!", Thread.currentThread().getName()));
+					return;
+				}
+				context.meshStats.addBlocked(System.nanoTime() - putting);
+			} finally {
+				context.readAhead.release();
+			}
+		}
+	}
+}
@@ -0,0 +1,678 @@
+package org.jmc.threading;
+
+import java.awt.Point;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.jmc.Options;
+import org.jmc.Options.TextureFormat;
+import org.jmc.ProgressCallback;
+import org.jmc.geom.FaceUtils.Face;
+import org.jmc.geom.UV;
+import org.jmc.geom.Vertex;
+import org.jmc.registry.NamespaceID;
+import org.jmc.registry.Registries;
+import org.jmc.registry.TextureEntry;
+import org.jmc.threading.InstanceLibrary.Instance;
+import org.jmc.threading.InstanceLibrary.Model;
+import org.jmc.threading.ThreadOutputQueue.ChunkOutput;
+import org.jmc.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Writes the chunks to a binary glTF 2.0 (.glb) file.
+ * <p>
+ * Every chunk becomes a node with one mesh, holding an indexed triangle
+ * primitive per material. The vertex data (interleaved float32 position,
+ * normal and UV) and uint32 indices are streamed to a temporary buffer file as
+ * the chunks come in, so are the JSON descriptions of the nodes, meshes,
+ * accessors and buffer views. {@link #finish()} then assembles the GLB from
+ * those files.
+ * <p>
+ * Instanced models are written once each by {@link #finish()}, as a node
+ * using EXT_mesh_gpu_instancing with the translations of all the placements.
+ */
+public class GlbWriterRunnable extends ChunkWriterRunnable implements Closeable {
+
+	private static final int GLB_MAGIC = 0x46546C67;
+	private static final int GLB_VERSION = 2;
+	private static final int CHUNK_JSON = 0x4E4F534A;
+	private static final int CHUNK_BIN = 0x004E4942;
+
+	/** Total size limit of a GLB file, lengths in the header are uint32. */
+	private static final long MAX_GLB_SIZE = 0xFFFFFFFFL;
+
+	private static final int GL_FLOAT = 5126;
+	private static final int GL_UNSIGNED_INT = 5125;
+	private static final int GL_ARRAY_BUFFER = 34962;
+	private static final int GL_ELEMENT_ARRAY_BUFFER = 34963;
+	private static final int GL_NEAREST = 9728;
+	private static final int GL_NEAREST_MIPMAP_LINEAR = 9986;
+
+	/** Bytes per vertex: position, normal and UV as floats. */
+	private static final int VERTEX_STRIDE = 32;
+
+	private static final UV NO_UV = new UV(0, 0);
+
+	private static final String EXT_INSTANCING = "EXT_mesh_gpu_instancing";
+	private static final String EXT_DDS = "MSFT_texture_dds";
+
+	private static final Gson gson = new Gson();
+
+	private final File glbFile;
+
+	private final File binFile;
+	private OutputStream binOut;
+	private long binLength;
+
+	private final JsonArrayFile nodes, meshes, accessors, bufferViews;
+
+	private final JsonArray materials = new JsonArray();
+	private final JsonArray textures = new JsonArray();
+	private final JsonArray images = new JsonArray();
+	private final Map<NamespaceID, Integer> materialIds = new HashMap<>();
+
+	/** Prepended to the texture paths, for files not written next to the tex folder. */
+	private String texturePrefix = "";
+
+	/** Bounds of everything written so far. */
+	private final float[] boundsMin = { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE };
+	private final float[] boundsMax = { -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+
+	/** Placements of the instanced models, written out by {@link #finish()}. */
+	private final Map<Model, InstanceMesh> instanceMeshes = new LinkedHashMap<>();
+	private int instanceNodes = 0;
+
+	/** Buffers for the primitive currently being built, reused between chunks. */
+	private ByteBuffer vertexBuf, indexBuf;
+	private final Map<VertexKey, Integer> vertexMap = new HashMap<>();
+
+	public GlbWriterRunnable(ThreadOutputQueue queue, File glbFile, ProgressCallback progress, int chunksToDo) throws IOException {
+		super(queue, progress, chunksToDo);
+
+		this.glbFile = glbFile;
+		File dir = glbFile.getAbsoluteFile().getParentFile();
+		binFile = File.createTempFile("glb", ".bin", dir);
+		binOut = new BufferedOutputStream(Files.newOutputStream(binFile.toPath()));
+		binLength = 0;
+
+		nodes = new JsonArrayFile(dir);
+		meshes = new JsonArrayFile(dir);
+		accessors = new JsonArrayFile(dir);
+		bufferViews = new JsonArrayFile(dir);
+
+		vertexBuf = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+		indexBuf = ByteBuffer.allocate(1 << 14).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	@Override
+	public void writeChunk(ChunkOutput chunkOut) throws IOException {
+		for (Instance instance : chunkOut.getInstances())
+			addInstance(instance);
+
+		ArrayList<Face> chunkFaces = chunkOut.getFaces();
+		if (chunkFaces == null || chunkFaces.isEmpty())
+			return;
+
+		int mesh = writeMesh(chunkFaces, x_offset, y_offset, z_offset, true);
+		if (mesh < 0)
+			return;
+
+		JsonObject node = new JsonObject();
+		Point chunkCoord = chunkOut.getChunkCoord();
+		if (chunkCoord != null)
+			node.addProperty("name", "chunk_" + chunkCoord.x + "_" + chunkCoord.y);
+		node.addProperty("mesh", mesh);
+		nodes.add(node);
+	}
+
+	/**
+	 * Records the placement of an instance, its model is written by {@link #finish()}.
+	 */
+	private void addInstance(Instance instance) {
+		InstanceMesh im = instanceMeshes.computeIfAbsent(instance.getModel(), InstanceMesh::new);
+		Vertex pos = instance.getPosition();
+		float x = (float) ((pos.x + x_offset) * file_scale);
+		float y = (float) ((pos.y + y_offset) * file_scale);
+		float z = (float) ((pos.z + z_offset) * file_scale);
+		im.translations = ensureCapacity(im.translations, 12);
+		im.translations.putFloat(x).putFloat(y).putFloat(z);
+		im.count++;
+
+		boundsMin[0] = Math.min(boundsMin[0], x + im.min[0]);
+		boundsMin[1] = Math.min(boundsMin[1], y + im.min[1]);
+		boundsMin[2] = Math.min(boundsMin[2], z + im.min[2]);
+		boundsMax[0] = Math.max(boundsMax[0], x + im.max[0]);
+		boundsMax[1] = Math.max(boundsMax[1], y + im.max[1]);
+		boundsMax[2] = Math.max(boundsMax[2], z + im.max[2]);
+	}
+
+	/**
+	 * Writes the faces as a mesh with a primitive per material.
+	 * @param ox x offset of the vertices
+	 * @param oy y offset of the vertices
+	 * @param oz z offset of the vertices
+	 * @param updateBounds whether the vertices count towards the bounds of the file
+	 * @return index of the mesh or -1 if there was nothing to write
+	 */
+	private int writeMesh(List<Face> faces, double ox, double oy, double oz, boolean updateBounds) throws IOException {
+		Map<NamespaceID, List<Face>> byMaterial = new LinkedHashMap<>();
+		for (Face f : faces) {
+			byMaterial.computeIfAbsent(f.texture, k -> new ArrayList<>()).add(f);
+		}
+
+		JsonArray primitives = new JsonArray();
+		for (Map.Entry<NamespaceID, List<Face>> entry : byMaterial.entrySet()) {
+			JsonObject prim = writePrimitive(entry.getValue(), ox, oy, oz, updateBounds);
+			if (prim != null) {
+				prim.addProperty("material", getMaterial(entry.getKey()));
+				primitives.add(prim);
+			}
+		}
+		if (primitives.size() == 0)
+			return -1;
+
+		if (binLength > MAX_GLB_SIZE)
+			throw new IOException("GLB files are limited to 4GB, try exporting a smaller area.");
+
+		JsonObject mesh = new JsonObject();
+		mesh.add("primitives", primitives);
+		return meshes.add(mesh);
+	}
+
+	/**
+	 * Triangulates the faces, merges identical vertices and appends the
+	 * result to the buffer.
+	 * @return the primitive without its material or null if there was nothing to write
+	 */
+	private JsonObject writePrimitive(List<Face> faces, double ox, double oy, double oz, boolean updateBounds) throws IOException {
+		vertexMap.clear();
+		vertexBuf.clear();
+		indexBuf.clear();
+
+		float[] min = { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE };
+		float[] max = { -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+
+		int vertexCount = 0;
+		int indexCount = 0;
+		int[] faceIds = new int[4];
+		for (Face f : faces) {
+			int n = f.vertices.length;
+			if (n < 3)
+				continue;
+			if (faceIds.length < n)
+				faceIds = new int[n];
+
+			Vertex faceNorm = f.norms == null ? calcNormal(f.vertices) : null;
+			for (int i = 0; i < n; i++) {
+				Vertex norm = faceNorm != null ? faceNorm : f.norms[i];
+				UV uv = f.uvs != null ? f.uvs[i] : NO_UV;
+				VertexKey key = new VertexKey(f.vertices[i], norm, uv);
+				Integer id = vertexMap.get(key);
+				if (id == null) {
+					id = vertexCount++;
+					vertexMap.put(key, id);
+					vertexBuf = ensureCapacity(vertexBuf, VERTEX_STRIDE);
+					float x = (float) ((f.vertices[i].x + ox) * file_scale);
+					float y = (float) ((f.vertices[i].y + oy) * file_scale);
+					float z = (float) ((f.vertices[i].z + oz) * file_scale);
+					vertexBuf.putFloat(x).putFloat(y).putFloat(z);
+					vertexBuf.putFloat((float) norm.x).putFloat((float) norm.y).putFloat((float) norm.z);
+					// glTF UVs start at the top left corner
+					vertexBuf.putFloat(uv.u).putFloat(1 - uv.v);
+					min[0] = Math.min(min[0], x);
+					min[1] = Math.min(min[1], y);
+					min[2] = Math.min(min[2], z);
+					max[0] = Math.max(max[0], x);
+					max[1] = Math.max(max[1], y);
+					max[2] = Math.max(max[2], z);
+				}
+				faceIds[i] = id;
+			}
+
+			for (int i = 1; i < n - 1; i++) {
+				indexBuf = ensureCapacity(indexBuf, 12);
+				indexBuf.putInt(faceIds[0]).putInt(faceIds[i]).putInt(faceIds[i + 1]);
+				indexCount += 3;
+			}
+		}
+		if (indexCount == 0)
+			return null;
+
+		int vertexView = writeBufferView(vertexBuf, VERTEX_STRIDE, GL_ARRAY_BUFFER);
+		int indexView = writeBufferView(indexBuf, 0, GL_ELEMENT_ARRAY_BUFFER);
+
+		if (updateBounds) {
+			for (int i = 0; i < 3; i++) {
+				boundsMin[i] = Math.min(boundsMin[i], min[i]);
+				boundsMax[i] = Math.max(boundsMax[i], max[i]);
+			}
+		}
+
+		JsonObject position = accessor(vertexView, 0, GL_FLOAT, vertexCount, "VEC3");
+		position.add("min", toJson(min));
+		position.add("max", toJson(max));
+
+		JsonObject attributes = new JsonObject();
+		attributes.addProperty("POSITION", accessors.add(position));
+		attributes.addProperty("NORMAL", accessors.add(accessor(vertexView, 12, GL_FLOAT, vertexCount, "VEC3")));
+		attributes.addProperty("TEXCOORD_0", accessors.add(accessor(vertexView, 24, GL_FLOAT, vertexCount, "VEC2")));
+
+		JsonObject prim = new JsonObject();
+		prim.add("attributes", attributes);
+		prim.addProperty("indices", accessors.add(accessor(indexView, 0, GL_UNSIGNED_INT, indexCount, "SCALAR")));
+		return prim;
+	}
+
+	/**
+	 * Appends the contents of the buffer to the bin file.
+	 * @return index of the new buffer view
+	 */
+	private int writeBufferView(ByteBuffer buf, int stride, int target) throws IOException {
+		int length = buf.position();
+		binOut.write(buf.array(), 0, length);
+
+		JsonObject view = new JsonObject();
+		view.addProperty("buffer", 0);
+		view.addProperty("byteOffset", binLength);
+		view.addProperty("byteLength", length);
+		if (stride > 0)
+			view.addProperty("byteStride", stride);
+		if (target > 0)
+			view.addProperty("target", target);
+
+		// everything written is made of 4 byte values so the offsets stay aligned
+		binLength += length;
+		return bufferViews.add(view);
+	}
+
+	private static JsonObject accessor(int bufferView, int offset, int componentType, int count, String type) {
+		JsonObject acc = new JsonObject();
+		acc.addProperty("bufferView", bufferView);
+		acc.addProperty("byteOffset", offset);
+		acc.addProperty("componentType", componentType);
+		acc.addProperty("count", count);
+		acc.addProperty("type", type);
+		return acc;
+	}
+
+	/**
+	 * @return index of the material for the texture, creating it if needed
+	 */
+	private int getMaterial(NamespaceID tex) {
+		Integer id = materialIds.get(tex);
+		if (id != null)
+			return id;
+
+		TextureEntry te = Registries.getTexture(tex);
+		Registries.objTextures.add(te);
+
+		boolean alpha = false;
+		try {
+			alpha = te.hasAlpha();
+		} catch (IOException e) {
+			Log.debug(String.format("Couldn't read texture '%s' error: %s", tex, e.getMessage()));
+		}
+
+		JsonObject image = new JsonObject();
+		image.addProperty("uri", texturePrefix + te.getExportFilePath());
+		images.add(image);
+
+		JsonObject texture = new JsonObject();
+		texture.addProperty("sampler", 0);
+		if (Options.textureFormat == TextureFormat.DDS) {
+			// core glTF only has PNG and JPEG, DDS images need the extension
+			image.addProperty("mimeType", "image/vnd-ms.dds");
+			JsonObject dds = new JsonObject();
+			dds.addProperty("source", images.size() - 1);
+			JsonObject extensions = new JsonObject();
+			extensions.add(EXT_DDS, dds);
+			texture.add("extensions", extensions);
+		} else {
+			texture.addProperty("source", images.size() - 1);
+		}
+		textures.add(texture);
+
+		JsonObject baseColor = new JsonObject();
+		baseColor.addProperty("index", textures.size() - 1);
+		JsonObject pbr = new JsonObject();
+		pbr.add("baseColorTexture", baseColor);
+		pbr.addProperty("metallicFactor", 0);
+		pbr.addProperty("roughnessFactor", 1);
+
+		JsonObject material = new JsonObject();
+		material.addProperty("name", te.getMatName());
+		material.add("pbrMetallicRoughness", pbr);
+		if (alpha) {
+			// mostly plants and glass which are meant to be seen from both sides
+			material.addProperty("alphaMode", "MASK");
+			material.addProperty("doubleSided", true);
+		}
+		materials.add(material);
+
+		id = materials.size() - 1;
+		materialIds.put(tex, id);
+		return id;
+	}
+
+	/**
+	 * Sets a path prepended to the texture file names.
+	 * @param prefix e.g. "../" when the GLB isn't written in the output folder
+	 */
+	public void setTexturePrefix(String prefix) {
+		texturePrefix = prefix;
+	}
+
+	/**
+	 * @return true if no geometry was written yet
+	 */
+	public boolean isEmpty() {
+		return nodes.count == 0 && instanceMeshes.isEmpty();
+	}
+
+	/**
+	 * @return minimum and maximum corner of the written geometry, in glTF
+	 *         coordinates after offset and scale
+	 */
+	public float[][] getBounds() {
+		return new float[][] { boundsMin.clone(), boundsMax.clone() };
+	}
+
+	/**
+	 * Writes the GLB file. Must be called after the writer thread has finished.
+	 * @throws IOException
+	 */
+	@Override
+	public void finish() throws IOException {
+		writeInstances();
+
+		binOut.close();
+		nodes.close();
+		meshes.close();
+		accessors.close();
+		bufferViews.close();
+
+		File jsonFile = File.createTempFile("glb", ".json", binFile.getParentFile());
+		try {
+			try (Writer json = Files.newBufferedWriter(jsonFile.toPath(), StandardCharsets.UTF_8)) {
+				writeJson(json);
+			}
+
+			long jsonLength = jsonFile.length();
+			int jsonPadding = (int) ((4 - jsonLength % 4) % 4);
+			long totalLength = 12 + 8 + jsonLength + jsonPadding;
+			if (binLength > 0)
+				totalLength += 8 + binLength;
+			if (totalLength > MAX_GLB_SIZE)
+				throw new IOException("GLB files are limited to 4GB, try exporting a smaller area.");
+
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(glbFile.toPath()))) {
+				ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+				header.putInt(GLB_MAGIC).putInt(GLB_VERSION).putInt((int) totalLength);
+				out.write(header.array());
+
+				writeChunkHeader(out, jsonLength + jsonPadding, CHUNK_JSON);
+				Files.copy(jsonFile.toPath(), out);
+				for (int i = 0; i < jsonPadding; i++)
+					out.write(' ');
+
+				if (binLength > 0) {
+					writeChunkHeader(out, binLength, CHUNK_BIN);
+					Files.copy(binFile.toPath(), out);
+				}
+			}
+		} finally {
+			jsonFile.delete();
+			close();
+		}
+	}
+
+	/**
+	 * Writes a node per instanced model, with the placements as
+	 * EXT_mesh_gpu_instancing translations.
+	 */
+	private void writeInstances() throws IOException {
+		for (InstanceMesh im : instanceMeshes.values()) {
+			int mesh = writeMesh(im.model.getFaces(), 0, 0, 0, false);
+			if (mesh < 0)
+				continue;
+			int view = writeBufferView(im.translations, 0, 0);
+
+			JsonObject attributes = new JsonObject();
+			attributes.addProperty("TRANSLATION", accessors.add(accessor(view, 0, GL_FLOAT, im.count, "VEC3")));
+			JsonObject instancing = new JsonObject();
+			instancing.add("attributes", attributes);
+			JsonObject extensions = new JsonObject();
+			extensions.add(EXT_INSTANCING, instancing);
+
+			JsonObject node = new JsonObject();
+			node.addProperty("name", im.model.getName());
+			node.addProperty("mesh", mesh);
+			node.add("extensions", extensions);
+			nodes.add(node);
+			instanceNodes++;
+		}
+	}
+
+	private void writeJson(Writer json) throws IOException {
+		JsonObject asset = new JsonObject();
+		asset.addProperty("version", "2.0");
+		asset.addProperty("generator", "jMc2Obj");
+
+		json.write("{\"asset\":");
+		gson.toJson(asset, json);
+		JsonArray extensionsUsed = new JsonArray();
+		if (instanceNodes > 0)
+			extensionsUsed.add(EXT_INSTANCING);
+		if (materials.size() > 0 && Options.textureFormat == TextureFormat.DDS) {
+			extensionsUsed.add(EXT_DDS);
+			JsonArray extensionsRequired = new JsonArray();
+			extensionsRequired.add(EXT_DDS);
+			writeProperty(json, "extensionsRequired", extensionsRequired);
+		}
+		if (extensionsUsed.size() > 0)
+			writeProperty(json, "extensionsUsed", extensionsUsed);
+
+		if (nodes.count > 0) {
+			json.write(",\"scene\":0,\"scenes\":[{\"nodes\":[");
+			for (int i = 0; i < nodes.count; i++) {
+				if (i > 0)
+					json.write(',');
+				json.write(Integer.toString(i));
+			}
+			json.write("]}]");
+
+			nodes.copyTo(json, "nodes");
+			meshes.copyTo(json, "meshes");
+			accessors.copyTo(json, "accessors");
+			bufferViews.copyTo(json, "bufferViews");
+			json.write(",\"buffers\":[{\"byteLength\":" + binLength + "}]");
+		}
+
+		if (materials.size() > 0) {
+			JsonObject sampler = new JsonObject();
+			sampler.addProperty("magFilter", GL_NEAREST);
+			// DDS textures come with mipmaps
+			sampler.addProperty("minFilter", Options.textureFormat == TextureFormat.DDS ? GL_NEAREST_MIPMAP_LINEAR : GL_NEAREST);
+			JsonArray samplers = new JsonArray();
+			samplers.add(sampler);
+
+			writeProperty(json, "samplers", samplers);
+			writeProperty(json, "images", images);
+			writeProperty(json, "textures", textures);
+			writeProperty(json, "materials", materials);
+		}
+		json.write('}');
+	}
+
+	private static void writeProperty(Writer json, String name, JsonElement value) throws IOException {
+		json.write(",\"" + name + "\":");
+		gson.toJson(value, json);
+	}
+
+	private static void writeChunkHeader(OutputStream out, long length, int type) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+		buf.putInt((int) length).putInt(type);
+		out.write(buf.array());
+	}
+
+	/**
+	 * Removes the temporary files.
+	 */
+	@Override
+	public void close() {
+		try {
+			binOut.close();
+		} catch (IOException e) {
+		}
+		binFile.delete();
+		nodes.delete();
+		meshes.delete();
+		accessors.delete();
+		bufferViews.delete();
+	}
+
+	private static Vertex calcNormal(Vertex[] verts) {
+		Vertex a = verts[0], b = verts[1], c = verts[2];
+		double ux = b.x - a.x, uy = b.y - a.y, uz = b.z - a.z;
+		double vx = c.x - a.x, vy = c.y - a.y, vz = c.z - a.z;
+		double nx = uy * vz - uz * vy;
+		double ny = uz * vx - ux * vz;
+		double nz = ux * vy - uy * vx;
+		double len = Math.sqrt(nx * nx + ny * ny + nz * nz);
+		if (len == 0)
+			return new Vertex(0, 1, 0);
+		return new Vertex(nx / len, ny / len, nz / len);
+	}
+
+	private static JsonArray toJson(float[] values) {
+		JsonArray arr = new JsonArray();
+		for (float v : values)
+			arr.add(v);
+		return arr;
+	}
+
+	private static ByteBuffer ensureCapacity(ByteBuffer buf, int needed) {
+		if (buf.remaining() >= needed)
+			return buf;
+		ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + needed)).order(ByteOrder.LITTLE_ENDIAN);
+		buf.flip();
+		bigger.put(buf);
+		return bigger;
+	}
+
+	/**
+	 * Translations of the instances of a model.
+	 */
+	private class InstanceMesh {
+		private final Model model;
+		private ByteBuffer translations = ByteBuffer.allocate(1 << 10).order(ByteOrder.LITTLE_ENDIAN);
+		private int count = 0;
+		/** Bounds of the model after scaling. */
+		private final float[] min = new float[3], max = new float[3];
+
+		InstanceMesh(Model model) {
+			this.model = model;
+			double[][] bounds = model.getBounds();
+			for (int i = 0; i < 3; i++) {
+				min[i] = (float) (bounds[0][i] * file_scale);
+				max[i] = (float) (bounds[1][i] * file_scale);
+			}
+		}
+	}
+
+	/**
+	 * Unique combination of vertex attributes within a primitive.
+	 */
+	private static class VertexKey {
+		private final Vertex pos, norm;
+		private final UV uv;
+
+		VertexKey(Vertex pos, Vertex norm, UV uv) {
+			this.pos = pos;
+			this.norm = norm;
+			this.uv = uv;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(pos, norm, uv);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof VertexKey))
+				return false;
+			VertexKey other = (VertexKey) obj;
+			return pos.equals(other.pos) && norm.equals(other.norm) && uv.equals(other.uv);
+		}
+	}
+
+	/**
+	 * JSON array whose elements are written to a temporary file as they are added.
+	 */
+	private static class JsonArrayFile {
+		private final File file;
+		private final Writer writer;
+		private int count = 0;
+
+		JsonArrayFile(File dir) throws IOException {
+			file = File.createTempFile("glb", ".json", dir);
+			writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+		}
+
+		/**
+		 * @return index of the added element
+		 */
+		int add(JsonElement element) throws IOException {
+			if (count > 0)
+				writer.write(',');
+			gson.toJson(element, writer);
+			return count++;
+		}
+
+		void copyTo(Writer out, String name) throws IOException {
+			out.write(",\"" + name + "\":[");
+			try (Reader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+				char[] buf = new char[8192];
+				int len;
+				while ((len = in.read(buf)) > 0)
+					out.write(buf, 0, len);
+			}
+			out.write(']');
+		}
+
+		void close() throws IOException {
+			writer.close();
+		}
+
+		void delete() {
+			try {
+				writer.close();
+			} catch (IOException e) {
+			}
+			file.delete();
+		}
+	}
+}
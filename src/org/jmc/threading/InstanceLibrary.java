@@ -0,0 +1,200 @@
+package org.jmc.threading;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jmc.geom.FaceUtils.Face;
+import org.jmc.geom.Vertex;
+
+/**
+ * Library of the block models exported as instances, shared by all the reader
+ * threads.
+ * <p>
+ * Blocks marked as instanced in blocks.conf are rendered as usual and their
+ * faces are then moved to the block origin. Every distinct set of faces
+ * becomes a {@link Model} that the writers output once, and each block only
+ * records an {@link Instance} with the position of the model.
+ */
+public class InstanceLibrary {
+
+	/**
+	 * Local coordinates are rounded to this fraction of a block, so the same
+	 * model compares equal wherever it was placed.
+	 */
+	private static final double PRECISION = 1 << 16;
+
+	private static final ConcurrentHashMap<ModelKey, Model> models = new ConcurrentHashMap<>();
+	private static final AtomicInteger nextId = new AtomicInteger();
+
+	/**
+	 * Faces of an instanced model, relative to the block origin.
+	 */
+	public static class Model {
+		private final int id;
+		private final List<Face> faces;
+
+		private Model(int id, List<Face> faces) {
+			this.id = id;
+			this.faces = faces;
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		/**
+		 * @return name of the model in the exported files
+		 */
+		public String getName() {
+			return "instance_" + id;
+		}
+
+		public List<Face> getFaces() {
+			return faces;
+		}
+
+		/**
+		 * @return minimum and maximum corner of the model
+		 */
+		public double[][] getBounds() {
+			double[] min = { Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE };
+			double[] max = { -Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE };
+			for (Face f : faces) {
+				for (Vertex v : f.vertices) {
+					min[0] = Math.min(min[0], v.x);
+					min[1] = Math.min(min[1], v.y);
+					min[2] = Math.min(min[2], v.z);
+					max[0] = Math.max(max[0], v.x);
+					max[1] = Math.max(max[1], v.y);
+					max[2] = Math.max(max[2], v.z);
+				}
+			}
+			return new double[][] { min, max };
+		}
+	}
+
+	/**
+	 * Placement of a model in the world.
+	 */
+	public static class Instance {
+		private final Model model;
+		private final Vertex position;
+
+		public Instance(Model model, Vertex position) {
+			this.model = model;
+			this.position = position;
+		}
+
+		public Model getModel() {
+			return model;
+		}
+
+		public Vertex getPosition() {
+			return position;
+		}
+
+		/**
+		 * @return copies of the model faces moved to the instance position,
+		 *         for writers that don't support instancing
+		 */
+		public List<Face> getFaces() {
+			List<Face> result = new ArrayList<>(model.faces.size());
+			for (Face f : model.faces) {
+				Vertex[] verts = new Vertex[f.vertices.length];
+				for (int i = 0; i < verts.length; i++)
+					verts[i] = Vertex.add(f.vertices[i], position);
+				result.add(new Face(verts, f.uvs, f.norms, f.texture));
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Finds the model matching the faces of a block, adding it to the library
+	 * if it's new.
+	 * @param faces faces of the block in world coordinates
+	 * @param origin origin of the block
+	 * @return the shared model
+	 */
+	public static Model getModel(List<Face> faces, Vertex origin) {
+		List<Face> local = new ArrayList<>(faces.size());
+		for (Face f : faces) {
+			Vertex[] verts = new Vertex[f.vertices.length];
+			for (int i = 0; i < verts.length; i++) {
+				Vertex v = f.vertices[i];
+				verts[i] = new Vertex(round(v.x - origin.x), round(v.y - origin.y), round(v.z - origin.z));
+			}
+			local.add(new Face(verts, f.uvs, f.norms, f.texture));
+		}
+		return models.computeIfAbsent(new ModelKey(local), key -> new Model(nextId.getAndIncrement(), key.faces));
+	}
+
+	/**
+	 * @return all the models in the library, in the order they were added
+	 */
+	public static List<Model> getModels() {
+		List<Model> result = new ArrayList<>(models.values());
+		Collections.sort(result, (a, b) -> Integer.compare(a.id, b.id));
+		return result;
+	}
+
+	/**
+	 * Empties the library, called at the start of each export.
+	 */
+	public static void clear() {
+		models.clear();
+		nextId.set(0);
+	}
+
+	private static double round(double val) {
+		return Math.round(val * PRECISION) / PRECISION;
+	}
+
+	/**
+	 * Compares the contents of the faces, which don't implement equals themselves.
+	 */
+	private static class ModelKey {
+		private final List<Face> faces;
+		private final int hash;
+
+		ModelKey(List<Face> faces) {
+			this.faces = faces;
+			int h = 1;
+			for (Face f : faces) {
+				h = 31 * h + Arrays.hashCode(f.vertices);
+				h = 31 * h + Arrays.hashCode(f.uvs);
+				h = 31 * h + Arrays.hashCode(f.norms);
+				h = 31 * h + Objects.hashCode(f.texture);
+			}
+			hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof ModelKey))
+				return false;
+			ModelKey other = (ModelKey) obj;
+			if (hash != other.hash || faces.size() != other.faces.size())
+				return false;
+			for (int i = 0; i < faces.size(); i++) {
+				Face a = faces.get(i), b = other.faces.get(i);
+				if (!Arrays.equals(a.vertices, b.vertices) || !Arrays.equals(a.uvs, b.uvs)
+						|| !Arrays.equals(a.norms, b.norms) || !Objects.equals(a.texture, b.texture))
+					return false;
+			}
+			return true;
+		}
+	}
+}
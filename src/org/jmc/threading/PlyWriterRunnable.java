@@ -0,0 +1,155 @@
+package org.jmc.threading;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jmc.ProgressCallback;
+import org.jmc.geom.FaceUtils.Face;
+import org.jmc.geom.Vertex;
+import org.jmc.threading.ThreadOutputQueue.ChunkOutput;
+
+/**
+ * Writes the chunk geometry to a binary little endian PLY file.
+ * <p>
+ * Only the positions and triangles are written, materials, UVs and normals
+ * are ignored. Identical positions are merged within each chunk. The element
+ * counts go in the header, so the vertices and faces are streamed to temporary
+ * files and {@link #finish()} puts the PLY together.
+ */
+public class PlyWriterRunnable extends ChunkWriterRunnable implements Closeable {
+
+	/** Bytes per face: uchar count and three int indices. */
+	private static final int FACE_SIZE = 13;
+
+	private final File plyFile;
+
+	private final File vertexFile, faceFile;
+	private final OutputStream vertexOut, faceOut;
+	private long vertexCount = 0, faceCount = 0;
+
+	private final ByteBuffer vertexBuf, faceBuf;
+	private final Map<Vertex, Integer> chunkVertices = new HashMap<>();
+
+	public PlyWriterRunnable(ThreadOutputQueue queue, File plyFile, ProgressCallback progress, int chunksToDo) throws IOException {
+		super(queue, progress, chunksToDo);
+
+		this.plyFile = plyFile;
+		File dir = plyFile.getAbsoluteFile().getParentFile();
+		vertexFile = File.createTempFile("ply", ".bin", dir);
+		vertexOut = new BufferedOutputStream(Files.newOutputStream(vertexFile.toPath()));
+		faceFile = File.createTempFile("ply", ".bin", dir);
+		faceOut = new BufferedOutputStream(Files.newOutputStream(faceFile.toPath()));
+
+		vertexBuf = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+		faceBuf = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	@Override
+	public void writeChunk(ChunkOutput chunkOut) throws IOException {
+		ArrayList<Face> chunkFaces = chunkOut.getFacesWithInstances();
+		if (chunkFaces == null || chunkFaces.isEmpty())
+			return;
+
+		chunkVertices.clear();
+		int[] faceIds = new int[4];
+		for (Face f : chunkFaces) {
+			int n = f.vertices.length;
+			if (n < 3)
+				continue;
+			if (faceIds.length < n)
+				faceIds = new int[n];
+
+			for (int i = 0; i < n; i++) {
+				Integer id = chunkVertices.get(f.vertices[i]);
+				if (id == null) {
+					if (vertexCount > Integer.MAX_VALUE)
+						throw new IOException("Too many vertices for a PLY file, try exporting a smaller area.");
+					id = (int) vertexCount++;
+					chunkVertices.put(f.vertices[i], id);
+					if (vertexBuf.remaining() < 12)
+						flush(vertexBuf, vertexOut);
+					vertexBuf.putFloat((float) ((f.vertices[i].x + x_offset) * file_scale));
+					vertexBuf.putFloat((float) ((f.vertices[i].y + y_offset) * file_scale));
+					vertexBuf.putFloat((float) ((f.vertices[i].z + z_offset) * file_scale));
+				}
+				faceIds[i] = id;
+			}
+
+			for (int i = 1; i < n - 1; i++) {
+				if (faceBuf.remaining() < FACE_SIZE)
+					flush(faceBuf, faceOut);
+				faceBuf.put((byte) 3).putInt(faceIds[0]).putInt(faceIds[i]).putInt(faceIds[i + 1]);
+				faceCount++;
+			}
+		}
+		flush(vertexBuf, vertexOut);
+		flush(faceBuf, faceOut);
+	}
+
+	private static void flush(ByteBuffer buf, OutputStream out) throws IOException {
+		out.write(buf.array(), 0, buf.position());
+		buf.clear();
+	}
+
+	/**
+	 * @return true if no geometry was written yet
+	 */
+	public boolean isEmpty() {
+		return faceCount == 0;
+	}
+
+	/**
+	 * Writes the PLY file. Must be called after the writer thread has finished.
+	 * @throws IOException
+	 */
+	@Override
+	public void finish() throws IOException {
+		vertexOut.close();
+		faceOut.close();
+
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(plyFile.toPath()))) {
+			String header = "ply\n"
+					+ "format binary_little_endian 1.0\n"
+					+ "comment generated by jMc2Obj\n"
+					+ "element vertex " + vertexCount + "\n"
+					+ "property float x\n"
+					+ "property float y\n"
+					+ "property float z\n"
+					+ "element face " + faceCount + "\n"
+					+ "property list uchar int vertex_indices\n"
+					+ "end_header\n";
+			out.write(header.getBytes(StandardCharsets.US_ASCII));
+			Files.copy(vertexFile.toPath(), out);
+			Files.copy(faceFile.toPath(), out);
+		} finally {
+			close();
+		}
+	}
+
+	/**
+	 * Removes the temporary files.
+	 */
+	@Override
+	public void close() {
+		try {
+			vertexOut.close();
+		} catch (IOException e) {
+		}
+		try {
+			faceOut.close();
+		} catch (IOException e) {
+		}
+		vertexFile.delete();
+		faceFile.delete();
+	}
+}
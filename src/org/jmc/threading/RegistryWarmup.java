@@ -0,0 +1,159 @@
+package org.jmc.threading;
+
+import java.awt.Point;
+import java.io.FileNotFoundException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jmc.BlockData;
+import org.jmc.BlockInfo;
+import org.jmc.BlockTypes;
+import org.jmc.Blockstate;
+import org.jmc.Options;
+import org.jmc.Region;
+import org.jmc.RegionCache;
+import org.jmc.models.Registry;
+import org.jmc.registry.BlockstateEntry;
+import org.jmc.registry.BlockstateEntry.ModelInfo;
+import org.jmc.registry.BlockstateEntry.ModelListWeighted;
+import org.jmc.registry.ModelEntry;
+import org.jmc.registry.NamespaceID;
+import org.jmc.registry.Registries;
+import org.jmc.util.Log;
+
+/**
+ * Fills the block, blockstate, model and texture registries with everything
+ * the selected chunks use before the export starts.
+ * <p>
+ * Without this the first chunks of an export are slow, every reader thread
+ * that meets a new block has to build its entries, and the others wait for it
+ * in {@link org.jmc.util.CachedGetter#get(Object)}. Here only the block
+ * palettes of the chunks are read, which is cheap, and the distinct states are
+ * resolved in parallel, so the readers only ever find finished entries.
+ */
+public class RegistryWarmup {
+
+	/**
+	 * Reads the palettes of the chunks from cs to ce (inclusive) and resolves
+	 * every state in them, on {@link Options#exportThreads} threads.
+	 * Chunks or regions that can't be read are skipped, the readers report
+	 * them.
+	 * @param cs first chunk
+	 * @param ce last chunk
+	 * @throws InterruptedException if the export was stopped
+	 */
+	public static void run(Point cs, Point ce) throws InterruptedException {
+		long timer = System.nanoTime();
+
+		Map<Point, List<Point>> regions = new HashMap<>();
+		for (int cx = cs.x; cx <= ce.x; cx++) {
+			for (int cz = cs.y; cz <= ce.y; cz++) {
+				Point region = new Point(cx >> 5, cz >> 5);
+				regions.computeIfAbsent(region, r -> new ArrayList<>()).add(new Point(cx, cz));
+			}
+		}
+
+		Set<Map.Entry<NamespaceID, Blockstate>> states = ConcurrentHashMap.newKeySet();
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Options.exportThreads));
+		try {
+			List<Future<?>> scans = new ArrayList<>();
+			for (Map.Entry<Point, List<Point>> entry : regions.entrySet()) {
+				scans.add(pool.submit(() -> scanRegion(entry.getKey(), entry.getValue(), states)));
+			}
+			waitFor(scans);
+			long scanTime = System.nanoTime() - timer;
+
+			List<Future<?>> resolves = new ArrayList<>();
+			for (Map.Entry<NamespaceID, Blockstate> state : states) {
+				resolves.add(pool.submit(() -> resolve(state.getKey(), state.getValue())));
+			}
+			waitFor(resolves);
+
+			Log.debug(String.format("Registry warm-up: %d states, scan %.3fs, resolve %.3fs", states.size(),
+					scanTime / 1000000000d, (System.nanoTime() - timer - scanTime) / 1000000000d));
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static void waitFor(List<Future<?>> futures) throws InterruptedException {
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				// the entry is built again when the readers get to it
+				Log.debug("Registry warm-up failed: " + e.getCause());
+			}
+		}
+	}
+
+	private static void scanRegion(Point regionCoord, List<Point> chunks, Set<Map.Entry<NamespaceID, Blockstate>> states) {
+		Region region;
+		try {
+			region = RegionCache.get(Options.worldDir, Options.dimension, regionCoord);
+		} catch (FileNotFoundException e) {
+			return;
+		} catch (Exception e) {
+			Log.debug("Couldn't open region " + regionCoord.x + "," + regionCoord.y + ": " + e.getMessage());
+			return;
+		}
+		// most of the states repeat, collect them here to keep the shared set quiet
+		Set<Map.Entry<NamespaceID, Blockstate>> found = new HashSet<>();
+		for (Point chunk : chunks) {
+			if (Thread.currentThread().isInterrupted())
+				return;
+			try {
+				region.readChunkPalette(chunk.x, chunk.y, block -> found.add(new SimpleImmutableEntry<>(block.id, block.state)));
+			} catch (Exception e) {
+				continue;
+			}
+		}
+		states.addAll(found);
+	}
+
+	/**
+	 * Builds the entries a block state needs: its block info and, for blocks
+	 * drawn from the resource packs, the blockstate, every model it can pick
+	 * and the textures of those models.
+	 */
+	private static void resolve(NamespaceID id, Blockstate state) {
+		BlockData data = new BlockData(id, (Blockstate) state.clone());
+		BlockInfo info = BlockTypes.get(data);
+		if (info.getActWaterlogged()) {
+			data.state.putIfAbsent("waterlogged", "true");
+		}
+		if (!(info.getModel() instanceof Registry)) {
+			return;
+		}
+		BlockstateEntry bsEntry = Registries.getBlockstate(id);
+		if (bsEntry == null) {
+			return;
+		}
+		for (ModelListWeighted modelList : bsEntry.getModelsFor(data.state)) {
+			for (ModelInfo modelInfo : modelList.getModels()) {
+				if (modelInfo.id == null) {
+					continue;
+				}
+				ModelEntry modelEntry = Registries.getModel(modelInfo.id);
+				if (modelEntry == null) {
+					continue;
+				}
+				for (String texture : modelEntry.generateModel().textures.values()) {
+					if (!texture.startsWith("#")) {
+						Registries.getTexture(NamespaceID.fromString(texture));
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package org.jmc.threading;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time the threads of one stage of the {@link ExportPipeline} spent working
+ * and waiting for the next stage. Whatever is left of their time they waited
+ * for work from the stage before.
+ */
+class StageStats {
+	private final String name;
+	private final int threads;
+	private final long start = System.nanoTime();
+	private volatile long end = 0;
+
+	private final LongAdder chunks = new LongAdder();
+	private final LongAdder busyNanos = new LongAdder();
+	private final LongAdder blockedNanos = new LongAdder();
+
+	StageStats(String name, int threads) {
+		this.name = name;
+		this.threads = threads;
+	}
+
+	/**
+	 * Counts a chunk done by the stage.
+	 * @param nanos time spent on it
+	 */
+	void addBusy(long nanos) {
+		chunks.increment();
+		busyNanos.add(nanos);
+	}
+
+	/**
+	 * @param nanos time spent waiting for the next stage
+	 */
+	void addBlocked(long nanos) {
+		blockedNanos.add(nanos);
+	}
+
+	/**
+	 * Marks the stage as done, its threads count as idle until then.
+	 */
+	void finish() {
+		end = System.nanoTime();
+	}
+
+	/**
+	 * @return how much of the threads' time was spent working, waiting for
+	 *         the next stage and waiting for work
+	 */
+	String getStats() {
+		long wall = (end != 0 ? end : System.nanoTime()) - start;
+		double total = Math.max(1, (double) wall * threads);
+		double busy = busyNanos.sum() * 100 / total;
+		double blocked = blockedNanos.sum() * 100 / total;
+		return String.format("%s: %d threads, %d chunks in %.2fs, %.0f%% busy, %.0f%% waiting for the next stage, %.0f%% idle",
+				name, threads, chunks.sum(), wall / 1000000000d, busy, blocked, Math.max(0, 100 - busy - blocked));
+	}
+}
@@ -0,0 +1,145 @@
+package org.jmc.threading;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import org.jmc.ProgressCallback;
+import org.jmc.geom.FaceUtils.Face;
+import org.jmc.geom.Vertex;
+import org.jmc.threading.ThreadOutputQueue.ChunkOutput;
+
+/**
+ * Writes the chunk geometry to a binary STL file.
+ * <p>
+ * Only the triangles are written, materials and UVs are ignored and the
+ * facet normals are calculated from the triangles. The triangles are streamed
+ * straight to the file, {@link #finish()} fills in the triangle count.
+ * <p>
+ * STL files are normally Z up, so Minecraft (x, y, z) becomes (x, -z, y).
+ */
+public class StlWriterRunnable extends ChunkWriterRunnable implements Closeable {
+
+	private static final int HEADER_SIZE = 80;
+
+	/** Bytes per triangle: normal, 3 vertices and the attribute count. */
+	private static final int TRIANGLE_SIZE = 50;
+
+	/** The triangle count is a uint32. */
+	private static final long MAX_TRIANGLES = 0xFFFFFFFFL;
+
+	private final File stlFile;
+	private final OutputStream out;
+	private long triangleCount = 0;
+
+	private final ByteBuffer buf;
+	private final float[][] corners = new float[3][3];
+
+	public StlWriterRunnable(ThreadOutputQueue queue, File stlFile, ProgressCallback progress, int chunksToDo) throws IOException {
+		super(queue, progress, chunksToDo);
+
+		this.stlFile = stlFile;
+		out = new BufferedOutputStream(Files.newOutputStream(stlFile.toPath()));
+
+		byte[] header = new byte[HEADER_SIZE + 4];
+		byte[] text = "binary STL generated by jMc2Obj".getBytes(StandardCharsets.US_ASCII);
+		System.arraycopy(text, 0, header, 0, text.length);
+		out.write(header);
+
+		buf = ByteBuffer.allocate(TRIANGLE_SIZE * 1024).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	@Override
+	public void writeChunk(ChunkOutput chunkOut) throws IOException {
+		ArrayList<Face> chunkFaces = chunkOut.getFacesWithInstances();
+		if (chunkFaces == null || chunkFaces.isEmpty())
+			return;
+
+		for (Face f : chunkFaces) {
+			int n = f.vertices.length;
+			if (n < 3)
+				continue;
+
+			setCorner(0, f.vertices[0]);
+			for (int i = 1; i < n - 1; i++) {
+				setCorner(1, f.vertices[i]);
+				setCorner(2, f.vertices[i + 1]);
+				writeTriangle();
+			}
+		}
+		out.write(buf.array(), 0, buf.position());
+		buf.clear();
+	}
+
+	private void setCorner(int i, Vertex v) {
+		corners[i][0] = (float) ((v.x + x_offset) * file_scale);
+		corners[i][1] = (float) -((v.z + z_offset) * file_scale);
+		corners[i][2] = (float) ((v.y + y_offset) * file_scale);
+	}
+
+	private void writeTriangle() throws IOException {
+		if (++triangleCount > MAX_TRIANGLES)
+			throw new IOException("Too many triangles for an STL file, try exporting a smaller area.");
+		if (buf.remaining() < TRIANGLE_SIZE) {
+			out.write(buf.array(), 0, buf.position());
+			buf.clear();
+		}
+
+		float[] a = corners[0], b = corners[1], c = corners[2];
+		float ux = b[0] - a[0], uy = b[1] - a[1], uz = b[2] - a[2];
+		float vx = c[0] - a[0], vy = c[1] - a[1], vz = c[2] - a[2];
+		float nx = uy * vz - uz * vy;
+		float ny = uz * vx - ux * vz;
+		float nz = ux * vy - uy * vx;
+		float len = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+		if (len > 0) {
+			nx /= len;
+			ny /= len;
+			nz /= len;
+		}
+
+		buf.putFloat(nx).putFloat(ny).putFloat(nz);
+		for (float[] corner : corners)
+			buf.putFloat(corner[0]).putFloat(corner[1]).putFloat(corner[2]);
+		buf.putShort((short) 0);
+	}
+
+	/**
+	 * @return true if no geometry was written yet
+	 */
+	public boolean isEmpty() {
+		return triangleCount == 0;
+	}
+
+	/**
+	 * Completes the STL file. Must be called after the writer thread has finished.
+	 * @throws IOException
+	 */
+	@Override
+	public void finish() throws IOException {
+		out.close();
+
+		try (RandomAccessFile raf = new RandomAccessFile(stlFile, "rw")) {
+			ByteBuffer count = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+			count.putInt((int) triangleCount);
+			raf.seek(HEADER_SIZE);
+			raf.write(count.array());
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			out.close();
+		} catch (IOException e) {
+		}
+	}
+}
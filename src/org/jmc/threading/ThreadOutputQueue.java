@@ -2,21 +2,39 @@ package org.jmc.threading;
 
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
+import javax.annotation.CheckForNull;
+
 import org.jmc.geom.FaceUtils.Face;
+import org.jmc.threading.InstanceLibrary.Instance;
 
+/**
+ * Bounded queue passing the processed chunks from the readers to the writer
+ * thread, so the readers can't get too far ahead of the writer.
+ */
 public class ThreadOutputQueue{
 	private final BlockingQueue<ChunkOutput> outputQueue;
 	
+	/** Put by {@link #finish()} after the last chunk. */
+	private static final ChunkOutput END = new ChunkOutput(null, null);
+	
 	public static class ChunkOutput {
 		private Point chunkCoord;
 		private ArrayList<Face> faces;
+		private List<Instance> instances;
 		
 		public ChunkOutput(Point chunkCoord, ArrayList<Face> faces) {
+			this(chunkCoord, faces, Collections.<Instance>emptyList());
+		}
+		
+		public ChunkOutput(Point chunkCoord, ArrayList<Face> faces, List<Instance> instances) {
 			this.chunkCoord = chunkCoord;
 			this.faces = faces;
+			this.instances = instances;
 		}
 		
 		public Point getChunkCoord() {
@@ -26,6 +44,26 @@ public class ThreadOutputQueue{
 		public ArrayList<Face> getFaces() {
 			return faces;
 		}
+
+		/**
+		 * @return the instanced models placed in the chunk
+		 */
+		public List<Instance> getInstances() {
+			return instances;
+		}
+
+		/**
+		 * @return the faces with the instances expanded into full geometry,
+		 *         for writers that don't support instancing
+		 */
+		public ArrayList<Face> getFacesWithInstances() {
+			if (instances.isEmpty())
+				return faces;
+			ArrayList<Face> all = new ArrayList<Face>(faces);
+			for (Instance instance : instances)
+				all.addAll(instance.getFaces());
+			return all;
+		}
 	}
 	
 	public ThreadOutputQueue(int queueSize) {
@@ -42,25 +80,26 @@ public class ThreadOutputQueue{
 	}
 	
 	/**
-	 * Calls {@link BlockingQueue#take()} and notifies {@link #waitUntilEmpty()}
+	 * Calls {@link BlockingQueue#take()}
+	 * @return the next chunk, or null once {@link #finish()} was called and
+	 *         every chunk before it was taken
 	 * @throws InterruptedException
 	 */
+	@CheckForNull
 	public ChunkOutput take() throws InterruptedException {
 		ChunkOutput outChunk = outputQueue.take();
-		synchronized (this) {
-			notifyAll();
+		if (outChunk == END) {
+			return null;
 		}
 		return outChunk;
 	}
 	
-	
 	/**
-	 * Waits on this until take is called and queue is emptied
+	 * Marks the end of the chunks, the writer stops after taking all the
+	 * chunks put before this.
 	 * @throws InterruptedException
 	 */
-	public synchronized void waitUntilEmpty() throws InterruptedException {
-		while (!outputQueue.isEmpty()) {
-			wait();
-		}
+	public void finish() throws InterruptedException {
+		outputQueue.put(END);
 	}
 }
@@ -0,0 +1,182 @@
+package org.jmc.threading;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.CheckForNull;
+
+import org.jmc.ChunkDataBuffer;
+import org.jmc.Options;
+import org.jmc.ProgressCallback;
+import org.jmc.geom.FaceUtils.Face;
+import org.jmc.threading.ThreadOutputQueue.ChunkOutput;
+import org.jmc.util.Hilbert.HilbertComparator;
+import org.jmc.util.Log;
+
+/**
+ * Splits a range of chunks into square tiles and writes the tiles in parallel.
+ * Unlike {@link ExportPipeline} every tile is processed start to end by a
+ * single thread with its own writer, so tiles don't share any output state.
+ */
+public class TilePipeline {
+
+	/**
+	 * Writes a single tile.
+	 * @param <T> result of the tile, e.g. its bounds
+	 */
+	public interface TileJob<T> {
+		/**
+		 * @param tile coordinates of the tile
+		 * @param chunks chunks in the tile, in the order they should be written
+		 * @return result of the tile or null if it's empty
+		 */
+		@CheckForNull
+		T writeTile(Point tile, List<Point> chunks) throws Exception;
+	}
+
+	private final ChunkDataBuffer chunkBuffer;
+	private final Point cs, ce;
+	private final int tileSize;
+
+	@CheckForNull
+	private final ProgressCallback progress;
+	private final int chunksToDo;
+	private final AtomicInteger chunksDone = new AtomicInteger();
+
+	/**
+	 * @param chunkBuffer buffer shared by all the tiles
+	 * @param cs first chunk
+	 * @param ce last chunk
+	 * @param tileSize width of the tiles in chunks
+	 * @param progress
+	 */
+	public TilePipeline(ChunkDataBuffer chunkBuffer, Point cs, Point ce, int tileSize, @CheckForNull ProgressCallback progress) {
+		this.chunkBuffer = chunkBuffer;
+		this.cs = cs;
+		this.ce = ce;
+		this.tileSize = Math.max(1, tileSize);
+		this.progress = progress;
+		chunksToDo = (ce.x - cs.x + 1) * (ce.y - cs.y + 1);
+	}
+
+	/**
+	 * @return coordinates of the first tile
+	 */
+	public Point getTileStart() {
+		return new Point(Math.floorDiv(cs.x, tileSize), Math.floorDiv(cs.y, tileSize));
+	}
+
+	/**
+	 * @return coordinates of the last tile
+	 */
+	public Point getTileEnd() {
+		return new Point(Math.floorDiv(ce.x, tileSize), Math.floorDiv(ce.y, tileSize));
+	}
+
+	/**
+	 * @return first and last chunk of the tile, clipped to the selection
+	 */
+	public Point[] getTileChunks(Point tile) {
+		return new Point[] {
+				new Point(Math.max(cs.x, tile.x * tileSize), Math.max(cs.y, tile.y * tileSize)),
+				new Point(Math.min(ce.x, tile.x * tileSize + tileSize - 1), Math.min(ce.y, tile.y * tileSize + tileSize - 1)) };
+	}
+
+	/**
+	 * Runs the job for every tile on {@link Options#exportThreads} threads.
+	 * @return results of the non-empty tiles
+	 * @throws IOException if a tile failed
+	 * @throws InterruptedException if the export was stopped
+	 */
+	public <T> Map<Point, T> run(TileJob<T> job) throws IOException, InterruptedException {
+		Point ts = getTileStart();
+		Point te = getTileEnd();
+		Log.info(String.format("Processing %d tiles...", (te.x - ts.x + 1) * (te.y - ts.y + 1)));
+		RegistryWarmup.run(cs, ce);
+
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Options.exportThreads));
+		try {
+			Map<Point, Future<T>> jobs = new HashMap<>();
+			for (int tx = ts.x; tx <= te.x; tx++) {
+				for (int tz = ts.y; tz <= te.y; tz++) {
+					Point tile = new Point(tx, tz);
+					Point[] range = getTileChunks(tile);
+					List<Point> chunks = new ArrayList<>();
+					for (int cx = range[0].x; cx <= range[1].x; cx++) {
+						for (int cz = range[0].y; cz <= range[1].y; cz++) {
+							chunks.add(new Point(cx, cz));
+						}
+					}
+					chunks.sort(new HilbertComparator(Math.max(range[1].x - range[0].x, range[1].y - range[0].y)));
+					jobs.put(tile, pool.submit(() -> job.writeTile(tile, chunks)));
+				}
+			}
+
+			Map<Point, T> results = new HashMap<>();
+			for (Map.Entry<Point, Future<T>> entry : jobs.entrySet()) {
+				try {
+					T result = entry.getValue().get();
+					if (result != null)
+						results.put(entry.getKey(), result);
+				} catch (ExecutionException e) {
+					throw new IOException("Error writing tile " + entry.getKey().x + "," + entry.getKey().y, e.getCause());
+				}
+			}
+			return results;
+		} finally {
+			pool.shutdownNow();
+			awaitStopped(pool);
+		}
+	}
+
+	/**
+	 * Waits for the tiles still being written to stop after the pool was shut
+	 * down, so no tile files are written after {@link #run} returns.
+	 */
+	private static void awaitStopped(ExecutorService pool) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * Processes the chunks on the calling thread and passes them straight to
+	 * the writer. Meant to be called from {@link TileJob#writeTile}.
+	 * @throws IOException
+	 * @throws InterruptedException if the export was stopped
+	 */
+	public void processChunks(List<Point> chunks, ChunkWriterRunnable writer) throws IOException, InterruptedException {
+		ThreadChunkDeligate chunkDeligate = new ThreadChunkDeligate(chunkBuffer);
+		for (Point p : chunks) {
+			if (Thread.interrupted())
+				throw new InterruptedException();
+
+			chunkDeligate.setCurrentChunk(p);
+			ChunkProcessor proc = new ChunkProcessor();
+			ArrayList<Face> faces = proc.process(chunkDeligate, p.x, p.y);
+			writer.writeChunk(new ChunkOutput(p, faces, proc.getInstances()));
+
+			int done = chunksDone.incrementAndGet();
+			if (progress != null)
+				progress.setProgress((float) done / chunksToDo);
+		}
+	}
+}
@@ -6,23 +6,45 @@ import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.jmc.geom.FaceUtils.Face;
 import org.jmc.geom.FaceUtils.OBJFace;
 import org.jmc.Options;
 import org.jmc.ProgressCallback;
-import org.jmc.UVRecalculate;
+import org.jmc.TextureAtlas;
+import org.jmc.TextureAtlas.Placement;
 import org.jmc.geom.UV;
 import org.jmc.geom.Vertex;
 import org.jmc.registry.NamespaceID;
 import org.jmc.registry.Registries;
 import org.jmc.registry.TextureEntry;
+import org.jmc.threading.InstanceLibrary.Instance;
 import org.jmc.threading.ThreadOutputQueue.ChunkOutput;
+import org.jmc.util.BoundedPalette;
 import org.jmc.util.Log;
 
-public class WriterRunnable implements Runnable {
+public class WriterRunnable extends ChunkWriterRunnable {
+
+	/**
+	 * Maximum number of texture coordinates and normals remembered for reuse.
+	 * Merged faces produce mostly unique UVs so these can't be kept for the whole export.
+	 */
+	private static final int PALETTE_CAPACITY = 1 << 16;
+
+	/**
+	 * Normals of axis aligned faces, these are always written at the start of the file.
+	 */
+	private static final Vertex[] FIXED_NORMALS = { new Vertex(1, 0, 0), new Vertex(-1, 0, 0), new Vertex(0, 1, 0),
+			new Vertex(0, -1, 0), new Vertex(0, 0, 1), new Vertex(0, 0, -1) };
+
+	/**
+	 * Corners of the unit square, used by most full block faces.
+	 */
+	private static final UV[] FIXED_UVS = { new UV(0, 0), new UV(1, 0), new UV(1, 1), new UV(0, 1) };
 
 	/**
 	 * List of vertices currently being exported.
@@ -47,14 +69,14 @@ public class WriterRunnable implements Runnable {
 	private Map<Vertex, Integer> vertexMap;
 
 	/**
-	 * Map of texture coordinates to their respective indexes in the OBJ file.
+	 * Palette of texture coordinates to their respective indexes in the OBJ file.
 	 */
-	private Map<UV, Integer> texCoordMap;
+	private BoundedPalette<UV> texCoordMap;
 
 	/**
-	 * Map of normals to their respective indexes in the OBJ file.
+	 * Palette of normals to their respective indexes in the OBJ file.
 	 */
-	private Map<Vertex, Integer> normalsMap;
+	private BoundedPalette<Vertex> normalsMap;
 
 	private int vertex_counter, tex_counter, norm_counter;
 	
@@ -65,106 +87,106 @@ public class WriterRunnable implements Runnable {
 	 */
 	private boolean print_usemtl;
 
+	private PrintWriter obj_writer;
+	
 	/**
-	 * Offsets of the file. Used to position the chunk in its right location.
+	 * If not null, instances are written to this list instead of being
+	 * expanded into faces.
 	 */
-	private double x_offset, y_offset, z_offset;
-
-	private float file_scale;
+	private PrintWriter instance_writer = null;
 	
-	private ThreadOutputQueue outputQueue;
+	/**
+	 * If not null, textures are packed into this atlas and the faces use the
+	 * materials of its pages.
+	 */
+	private TextureAtlas atlas = null;
 	
-	private PrintWriter obj_writer;
+	/**
+	 * Textures used by the faces written by this writer.
+	 */
+	private Set<TextureEntry> usedTextures = new HashSet<TextureEntry>();
 	
-	private ProgressCallback progress;
-	private int chunksToDo;
+	/**
+	 * Bounds of the vertices written so far.
+	 */
+	private float[] boundsMin = { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE };
+	private float[] boundsMax = { -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
 	
 	public WriterRunnable(ThreadOutputQueue queue, PrintWriter writer, ProgressCallback progress, int chunksToDo) {
-		super();
+		super(queue, progress, chunksToDo);
 		
-		outputQueue = queue;
 		obj_writer = writer;
-		this.progress = progress;
-		this.chunksToDo = chunksToDo;
 		
-		x_offset = 0;
-		y_offset = 0;
-		z_offset = 0;
-		file_scale = 1.0f;
 		print_usemtl=true;
 		
 		obj_idx_count = -1;
 		vertexMap = new HashMap<Vertex, Integer>();
 		vertex_counter = 1;
-		texCoordMap = new HashMap<UV, Integer>();
+		texCoordMap = new BoundedPalette<UV>(PALETTE_CAPACITY);
 		tex_counter = 1;
-		normalsMap = new HashMap<Vertex, Integer>();
+		normalsMap = new BoundedPalette<Vertex>(PALETTE_CAPACITY);
 		norm_counter = 1;
 		
 		exportVertices = new ArrayList<Vertex>();
 		exportTexCoords = new ArrayList<UV>();
 		exportNormals = new ArrayList<Vertex>();
 		exportFaces = new ArrayList<OBJFace>();
+		
+		// queued here so they get written out with the first chunk
+		for (UV uv : FIXED_UVS) {
+			exportTexCoords.add(uv);
+			texCoordMap.putFixed(uv, tex_counter++);
+		}
+		for (Vertex norm : FIXED_NORMALS) {
+			exportNormals.add(norm);
+			normalsMap.putFixed(norm, norm_counter++);
+		}
 	}
 
 	@Override
-	public void run() {
-		ChunkOutput chunkOut;
-		int chunksDone = 0;
-		while (!Thread.interrupted()) {
-			//Check for chunks in queue
-			try {
-				chunkOut = outputQueue.take();
-			} catch (InterruptedException e) {
-				Log.debug(String.format("Writer %s interrupted!", Thread.currentThread().getName()));
-				break;
-			}
-			
-			Point chunkCoord = chunkOut.getChunkCoord();
-			ArrayList<Face> chunkFaces = chunkOut.getFaces();
-			
-			addOBJFaces(chunkFaces);
-			
-			// export the chunk to the OBJ
-			appendTextures(obj_writer);
-			appendNormals(obj_writer);
-			appendVertices(obj_writer);
-			if (Options.objectPerChunk && !Options.objectPerBlock && chunkCoord != null)
-				obj_writer.println("o chunk_" + chunkCoord.x + "_" + chunkCoord.y);
-			appendFaces(obj_writer);
-			clearData();
-			
-			chunksDone++;
-			if (progress != null) {
-				float progValue = (float)chunksDone / (float)chunksToDo;
-				progress.setProgress(progValue);
-			}
+	public void writeChunk(ChunkOutput chunkOut) {
+		Point chunkCoord = chunkOut.getChunkCoord();
+		ArrayList<Face> chunkFaces;
+		if (instance_writer != null) {
+			chunkFaces = chunkOut.getFaces();
+			appendInstances(instance_writer, chunkOut.getInstances());
+		} else {
+			chunkFaces = chunkOut.getFacesWithInstances();
 		}
+		
+		addOBJFaces(chunkFaces);
+		
+		// export the chunk to the OBJ
+		appendTextures(obj_writer);
+		appendNormals(obj_writer);
+		appendVertices(obj_writer);
+		if (Options.objectPerChunk && !Options.objectPerBlock && chunkCoord != null)
+			obj_writer.println("o chunk_" + chunkCoord.x + "_" + chunkCoord.y);
+		appendFaces(obj_writer);
+		clearData();
 	}
 
 	/**
-	 * Offset all the vertices by these amounts.
-	 * Used to position the chunk in its right location.
-	 * @param x x offset
-	 * @param y y offset
-	 * @param z z offset
+	 * Writes the placements of the instanced models as CSV lines to the given
+	 * writer, instead of writing their faces to the OBJ file.
+	 * @param writer
 	 */
-	public void setOffset(double x, double y, double z)
+	public void setInstanceWriter(PrintWriter writer)
 	{
-		x_offset=x;
-		y_offset=y;
-		z_offset=z;
+		instance_writer = writer;
+		writer.println("model,x,y,z");
 	}
-
+	
 	/**
-	 * Scales the map by a float value.
-	 * @param scale
+	 * Packs the textures into the given atlas and remaps the UVs of the faces
+	 * to it. Textures that don't fit keep their own material.
+	 * @param atlas
 	 */
-	public void setScale(float scale)
+	public void setAtlas(TextureAtlas atlas)
 	{
-		file_scale=scale;
+		this.atlas = atlas;
 	}
-
+	
 	/**
 	 * Sets the print usemtl switch.
 	 * @param val
@@ -174,6 +196,28 @@ public class WriterRunnable implements Runnable {
 		print_usemtl=val;
 	}
 	
+	/**
+	 * @return the textures used by the faces written by this writer
+	 */
+	public Set<TextureEntry> getUsedTextures() {
+		return usedTextures;
+	}
+	
+	/**
+	 * @return minimum and maximum corner of the written vertices, after offset and scale
+	 */
+	public float[][] getBounds() {
+		return new float[][] { boundsMin.clone(), boundsMax.clone() };
+	}
+	
+	/**
+	 * Logs how well the UV and normal palettes did at avoiding duplicate entries.
+	 */
+	public void logPaletteStats() {
+		Log.debug("UV palette: " + texCoordMap.getStats());
+		Log.debug("Normal palette: " + normalsMap.getStats());
+	}
+	
 	/**
 	 * Write texture coordinates. These will be shared by all chunks.
 	 * @param out writer of the OBJ file
@@ -194,6 +238,20 @@ public class WriterRunnable implements Runnable {
 		}
 	}
 
+	/**
+	 * Appends the placements of the instances to the list.
+	 * @param out
+	 */
+	private void appendInstances(PrintWriter out, List<Instance> instances) {
+		for (Instance instance : instances) {
+			Vertex pos = instance.getPosition();
+			double x = (pos.x + x_offset) * file_scale;
+			double y = (pos.y + y_offset) * file_scale;
+			double z = (pos.z + z_offset) * file_scale;
+			out.println(instance.getModel().getName() + "," + formatDouble(x, 3) + "," + formatDouble(y, 3) + "," + formatDouble(z, 3));
+		}
+	}
+
 	/**
 	 * Appends vertices to the file.
 	 * @param out
@@ -204,6 +262,12 @@ public class WriterRunnable implements Runnable {
 			double y = (vertex.y + y_offset) * file_scale;
 			double z = (vertex.z + z_offset) * file_scale;
 			out.println("v " + formatDouble(x, 3) + " " + formatDouble(y, 3) + " " + formatDouble(z, 3));
+			boundsMin[0] = Math.min(boundsMin[0], (float)x);
+			boundsMin[1] = Math.min(boundsMin[1], (float)y);
+			boundsMin[2] = Math.min(boundsMin[2], (float)z);
+			boundsMax[0] = Math.max(boundsMax[0], (float)x);
+			boundsMax[1] = Math.max(boundsMax[1], (float)y);
+			boundsMax[2] = Math.max(boundsMax[2], (float)z);
 		}
 	}
 
@@ -215,17 +279,30 @@ public class WriterRunnable implements Runnable {
 	private void appendFaces(PrintWriter out)
 	{		
 		Collections.sort(exportFaces);
-		NamespaceID last_mtl=null;	
+		NamespaceID last_tex=null;
+		String last_mtl=null;
 		Long last_obj_idx=Long.valueOf(-1);
 		for(OBJFace f:exportFaces)
 		{
-			if(!f.tex.equals(last_mtl) && print_usemtl)
+			if(!f.tex.equals(last_tex) && print_usemtl)
 			{
 				TextureEntry te = Registries.getTexture(f.tex);
-				Registries.objTextures.add(te);
-				out.println();
-				out.println("usemtl "+te.getMatName());
-				last_mtl=f.tex;
+				Placement placement = atlas != null ? atlas.place(te) : null;
+				String mtl;
+				if (placement != null) {
+					mtl = placement.getPage().getName();
+				} else {
+					Registries.objTextures.add(te);
+					usedTextures.add(te);
+					mtl = te.getMatName();
+				}
+				// textures on the same atlas page share the material
+				if (!mtl.equals(last_mtl)) {
+					out.println();
+					out.println("usemtl "+mtl);
+					last_mtl=mtl;
+				}
+				last_tex=f.tex;
 			}
 			
 			if(!f.obj_idx.equals(last_obj_idx))
@@ -278,9 +355,11 @@ public class WriterRunnable implements Runnable {
 			{
 				face.uv = null;
 			}
-			else if(Options.textureMerge)
+			else if (atlas != null)
 			{
-				//uv=UVRecalculate.recalculate(uv, tex); TODO fix single tex export
+				Placement placement = atlas.place(Registries.getTexture(tex));
+				if (placement != null)
+					uv = placement.remap(uv);
 			}
 		
 			for (int i = 0; i < verts.length; i++)
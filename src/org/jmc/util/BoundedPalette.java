@@ -0,0 +1,84 @@
+package org.jmc.util;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Maps values to their index in the output file, holding at most
+ * {@code capacity} entries. When full the least recently used entry is
+ * evicted, a later lookup of that value will then simply miss and the value
+ * gets written again under a new index.
+ * <p>
+ * Fixed entries are kept in a separate table and are never evicted.
+ * Not thread safe.
+ */
+public class BoundedPalette<K> {
+	private final Map<K, Integer> fixed = new HashMap<>();
+	private final LinkedHashMap<K, Integer> entries;
+	private final int capacity;
+
+	private long hits, fixedHits, misses, evictions;
+
+	/**
+	 * @param capacity maximum number of non-fixed entries to keep
+	 */
+	public BoundedPalette(int capacity) {
+		this.capacity = capacity;
+		entries = new LinkedHashMap<K, Integer>(Math.min(capacity, 1 << 12), 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, Integer> eldest) {
+				if (size() > BoundedPalette.this.capacity) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Adds an entry that will never be evicted.
+	 */
+	public void putFixed(K key, int index) {
+		fixed.put(key, index);
+	}
+
+	/**
+	 * @return the index of {@code key} or null if it isn't in the palette
+	 */
+	public Integer get(K key) {
+		Integer index = fixed.get(key);
+		if (index != null) {
+			fixedHits++;
+			return index;
+		}
+		index = entries.get(key);
+		if (index != null) {
+			hits++;
+		} else {
+			misses++;
+		}
+		return index;
+	}
+
+	public void put(K key, int index) {
+		entries.put(key, index);
+	}
+
+	public int size() {
+		return fixed.size() + entries.size();
+	}
+
+	/**
+	 * @return a one line summary of the lookup statistics
+	 */
+	public String getStats() {
+		long total = hits + fixedHits + misses;
+		double rate = total == 0 ? 0 : (hits + fixedHits) * 100.0 / total;
+		return String.format("%d lookups, %.1f%% hit rate (%d fixed, %d cached, %d missed), %d evicted",
+				total, rate, fixedHits, hits, misses, evictions);
+	}
+}
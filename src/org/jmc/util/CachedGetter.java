@@ -5,15 +5,29 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.annotation.CheckForNull;
 
+/**
+ * Cache that creates each value on first use with {@link #make(Object)}.
+ * <p>
+ * Every key maps to a future of its value. The first thread to miss a key
+ * becomes its creator, other threads asking for the same key wait on that
+ * future only, so misses on different keys never wait for each other and hits
+ * never lock at all. Null values are cached like any other.
+ */
 public abstract class CachedGetter <K, V> {
-	private final Map<K, Optional<V>> entries = new ConcurrentHashMap<>();
-	private final Map<K, AtomicBoolean> creatingStates = new HashMap<>();
-	
+	private final Map<K, CompletableFuture<Optional<V>>> entries = new ConcurrentHashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder creations = new LongAdder();
+	private final LongAdder waits = new LongAdder();
+	private final LongAdder waitNanos = new LongAdder();
+
 	/**Gets the cached value for {@code key}.
 	 * Calls {@link #make(K)} to create and cache if it doesn't have a mapping
 	 * @param key
@@ -21,112 +35,123 @@ public abstract class CachedGetter <K, V> {
 	 */
 	@CheckForNull
 	public V get(K key) {
-		Optional<V> entryOpt = entries.get(key);
-		if (entryOpt != null) {// fast path
-			return entryOpt.orElse(null);// if it exists then just return
-		} 
-		AtomicBoolean creatingState;
-		synchronized (this) {
-			entryOpt = entries.get(key);
-			if (entryOpt != null) {// check again, in case
-				return entryOpt.orElse(null);// if it exists then just return
+		CompletableFuture<Optional<V>> future = entries.get(key);
+		if (future == null) {
+			CompletableFuture<Optional<V>> created = new CompletableFuture<>();
+			future = entries.putIfAbsent(key, created);
+			if (future == null) {// we are the creator
+				return create(key, created);
 			}
-			creatingState = creatingStates.get(key);
-			if (creatingState == null) {
-				creatingState = new AtomicBoolean(false);
-				creatingStates.put(key, creatingState);
-			}
-			if (!creatingState.compareAndSet(false, true)) {// try and become creator
-				while (creatingState.get()) {
-					try {
-						this.wait();// wait until created
-					} catch (InterruptedException e) {
-						Thread.currentThread().interrupt();
-						return null;
-					}
-				}
-				entryOpt = entries.get(key);
-				if (entryOpt != null) {
-					return entryOpt.orElse(null);
-				} else {// entry was removed just after creation, we still want to get it.
-					assert (creatingStates.get(key) == null);
-					creatingState = new AtomicBoolean(true);
-					creatingStates.put(key, creatingState);// become new creator
-				}
+		}
+		if (future.isDone()) {// fast path
+			hits.increment();
+		} else {// someone else is creating it, wait until created
+			waits.increment();
+			long start = System.nanoTime();
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e);// never completed exceptionally
+			} finally {
+				waitNanos.add(System.nanoTime() - start);
 			}
 		}
-		// we are the creator, add to map
+		return future.join().orElse(null);
+	}
+
+	private V create(K key, CompletableFuture<Optional<V>> future) {
+		creations.increment();
 		V entry = null;
 		try {
 			entry = make(key);
 		} finally {
-			synchronized (this) {
-				if (!creatingState.get()) { // someone else created or put while we were making, use theirs.
-					entry = entries.get(key).orElse(null);
-				} else {
-					entries.put(key, Optional.ofNullable(entry));
-					creatingStates.remove(key);
-					creatingState.set(false);
-					this.notifyAll();
-				}
+			if (!future.complete(Optional.ofNullable(entry))) {
+				// someone else put a value while we were making, use theirs.
+				entry = future.join().orElse(null);
 			}
 		}
 		return entry;
 	}
-	
+
+	/**
+	 * Creates the value for {@code key} if it's not cached yet. Unlike
+	 * {@link #get(Object)} this doesn't wait if another thread is already
+	 * creating it.
+	 * @param key
+	 */
+	public void prefetch(K key) {
+		if (entries.containsKey(key))
+			return;
+		CompletableFuture<Optional<V>> created = new CompletableFuture<>();
+		if (entries.putIfAbsent(key, created) == null) {
+			create(key, created);
+		}
+	}
+
 	/** @return Unmodifiable map of the entries */
 	public Map<K,V> getAll() {
 		HashMap<K, V> map = new HashMap<>();
-		synchronized (this) {
-			for (Entry<K, Optional<V>> e : entries.entrySet()) {
-				map.put(e.getKey(), e.getValue().orElse(null));
+		for (Entry<K, CompletableFuture<Optional<V>>> e : entries.entrySet()) {
+			if (e.getValue().isDone()) {
+				map.put(e.getKey(), e.getValue().join().orElse(null));
 			}
 		}
 		return Collections.unmodifiableMap(map);
 	}
-	
+
 	/** Waits for any keys to be created then removes all values from the cache.
 	 * Other threads may still be waiting in {@link #get(K)} after this and immediately create the key again.*/
-	public synchronized void clear() {
-		for (K key : creatingStates.keySet()) {
-			waitForCreating(key);
+	public void clear() {
+		for (CompletableFuture<Optional<V>> future : entries.values()) {
+			future.join();
 		}
 		entries.clear();
-		creatingStates.clear();
 	}
-	
-	/** Waits if key is being created then puts value into the map.
-	 * Will override a key even if it is mid creation*/
-	public synchronized void put(K key, V value) {
-		AtomicBoolean creatingState = creatingStates.get(key);
-		if (creatingState != null) { // If it is being created, set as done and notify.
-			creatingStates.remove(key);
-			creatingState.set(false);
-			this.notifyAll();
+
+	/** Puts value into the map.
+	 * Will override a key even if it is mid creation, the creator and anyone
+	 * waiting for it get this value instead.*/
+	public void put(K key, V value) {
+		Optional<V> valueOpt = Optional.ofNullable(value);
+		CompletableFuture<Optional<V>> old = entries.put(key, CompletableFuture.completedFuture(valueOpt));
+		if (old != null) {
+			old.complete(valueOpt);
 		}
-		entries.put(key, Optional.ofNullable(value));
 	}
-	
-	public synchronized int size() {
-		return entries.size();
-	}
-	
-	protected synchronized void waitForCreating(K key) {
-		AtomicBoolean creatingState = creatingStates.get(key);
-		if (creatingState != null) {
-			waitForCreating(creatingState);
+
+	/** @return number of values that have been created or put */
+	public int size() {
+		int size = 0;
+		for (CompletableFuture<Optional<V>> future : entries.values()) {
+			if (future.isDone()) {
+				size++;
+			}
 		}
+		return size;
 	}
-	protected synchronized void waitForCreating(AtomicBoolean creatingState) {
-		while (creatingState.get()) {
-			try {
-				this.wait();
-			} catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-			}
+
+	protected void waitForCreating(K key) {
+		CompletableFuture<Optional<V>> future = entries.get(key);
+		if (future != null) {
+			future.join();
 		}
 	}
-	
+
+	/**
+	 * @return how often lookups hit, created a value or had to wait for
+	 *         another thread creating the same key
+	 */
+	public String getStats() {
+		long hit = hits.sum(), created = creations.sum(), waited = waits.sum();
+		long total = hit + created + waited;
+		double rate = total == 0 ? 0 : hit * 100.0 / total;
+		return String.format("%d lookups, %.1f%% hit rate (%d created, %d waited for %.1fms)",
+				total, rate, created, waited, waitNanos.sum() / 1000000d);
+	}
+
 	/** Creates a {@code value} for the given {@code key} */
 	public abstract V make(K key);
 }
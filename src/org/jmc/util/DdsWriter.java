@@ -0,0 +1,147 @@
+package org.jmc.util;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+/**
+ * Writes images as uncompressed 32-bit DDS files with a full chain of
+ * mipmaps, down to 1x1, so programs loading the export don't have to make
+ * them.
+ * <p>
+ * Each level is a 2x2 box filter of the previous one, done in integer math
+ * on the ARGB pixels. The colour is weighted by alpha, so fully transparent
+ * pixels (which often have black or junk colour) don't darken the edges of
+ * cut-out textures like leaves and plants.
+ */
+public class DdsWriter {
+
+	private static final int DDS_MAGIC = 0x20534444; // "DDS "
+	private static final int HEADER_SIZE = 124;
+	private static final int PIXELFORMAT_SIZE = 32;
+
+	private static final int DDSD_CAPS = 0x1;
+	private static final int DDSD_HEIGHT = 0x2;
+	private static final int DDSD_WIDTH = 0x4;
+	private static final int DDSD_PITCH = 0x8;
+	private static final int DDSD_PIXELFORMAT = 0x1000;
+	private static final int DDSD_MIPMAPCOUNT = 0x20000;
+
+	private static final int DDPF_ALPHAPIXELS = 0x1;
+	private static final int DDPF_RGB = 0x40;
+
+	private static final int DDSCAPS_COMPLEX = 0x8;
+	private static final int DDSCAPS_TEXTURE = 0x1000;
+	private static final int DDSCAPS_MIPMAP = 0x400000;
+
+	/**
+	 * Writes the image and its mipmaps.
+	 * @param image the image
+	 * @param file the .dds file to write
+	 */
+	public static void write(BufferedImage image, File file) throws IOException {
+		int w = image.getWidth();
+		int h = image.getHeight();
+		int[][] levels = buildMipChain(image.getRGB(0, 0, w, h, null, 0, w), w, h);
+
+		int pixels = 0;
+		for (int[] level : levels)
+			pixels += level.length;
+
+		ByteBuffer buf = ByteBuffer.allocate(4 + HEADER_SIZE + pixels * 4).order(ByteOrder.LITTLE_ENDIAN);
+		buf.putInt(DDS_MAGIC);
+		buf.putInt(HEADER_SIZE);
+		buf.putInt(DDSD_CAPS | DDSD_HEIGHT | DDSD_WIDTH | DDSD_PITCH | DDSD_PIXELFORMAT | DDSD_MIPMAPCOUNT);
+		buf.putInt(h);
+		buf.putInt(w);
+		buf.putInt(w * 4);
+		buf.putInt(0);// depth
+		buf.putInt(levels.length);
+		for (int i = 0; i < 11; i++)
+			buf.putInt(0);// reserved
+
+		buf.putInt(PIXELFORMAT_SIZE);
+		buf.putInt(DDPF_RGB | DDPF_ALPHAPIXELS);
+		buf.putInt(0);// fourCC
+		buf.putInt(32);
+		buf.putInt(0x00ff0000);
+		buf.putInt(0x0000ff00);
+		buf.putInt(0x000000ff);
+		buf.putInt(0xff000000);
+
+		buf.putInt(DDSCAPS_TEXTURE | (levels.length > 1 ? DDSCAPS_COMPLEX | DDSCAPS_MIPMAP : 0));
+		for (int i = 0; i < 4; i++)
+			buf.putInt(0);// caps2-4, reserved
+
+		// ARGB ints in little endian are B, G, R, A bytes, matching the masks
+		for (int[] level : levels) {
+			buf.asIntBuffer().put(level);
+			buf.position(buf.position() + level.length * 4);
+		}
+
+		try (OutputStream out = Files.newOutputStream(file.toPath())) {
+			out.write(buf.array());
+		}
+	}
+
+	/**
+	 * @param argb pixels of the full size image
+	 * @param w width
+	 * @param h height
+	 * @return the image followed by every smaller level, the last one 1x1
+	 */
+	public static int[][] buildMipChain(int[] argb, int w, int h) {
+		int count = 1;
+		for (int s = Math.max(w, h); s > 1; s >>= 1)
+			count++;
+		int[][] levels = new int[count][];
+		levels[0] = argb;
+		for (int i = 1; i < count; i++) {
+			levels[i] = downsample(levels[i - 1], w, h);
+			w = Math.max(1, w / 2);
+			h = Math.max(1, h / 2);
+		}
+		return levels;
+	}
+
+	/**
+	 * Halves an image with an alpha weighted 2x2 box filter. An odd last row
+	 * or column is left out, a side of 1 stays 1.
+	 */
+	private static int[] downsample(int[] src, int w, int h) {
+		int dw = Math.max(1, w / 2);
+		int dh = Math.max(1, h / 2);
+		int[] dst = new int[dw * dh];
+		for (int y = 0; y < dh; y++) {
+			int row0 = Math.min(2 * y, h - 1) * w;
+			int row1 = Math.min(2 * y + 1, h - 1) * w;
+			for (int x = 0; x < dw; x++) {
+				int x0 = Math.min(2 * x, w - 1);
+				int x1 = Math.min(2 * x + 1, w - 1);
+				dst[y * dw + x] = average(src[row0 + x0], src[row0 + x1], src[row1 + x0], src[row1 + x1]);
+			}
+		}
+		return dst;
+	}
+
+	private static int average(int p0, int p1, int p2, int p3) {
+		int a0 = p0 >>> 24, a1 = p1 >>> 24, a2 = p2 >>> 24, a3 = p3 >>> 24;
+		int a = a0 + a1 + a2 + a3;
+		int r, g, b;
+		if (a == 0) {
+			r = (((p0 >> 16) & 0xff) + ((p1 >> 16) & 0xff) + ((p2 >> 16) & 0xff) + ((p3 >> 16) & 0xff) + 2) >> 2;
+			g = (((p0 >> 8) & 0xff) + ((p1 >> 8) & 0xff) + ((p2 >> 8) & 0xff) + ((p3 >> 8) & 0xff) + 2) >> 2;
+			b = ((p0 & 0xff) + (p1 & 0xff) + (p2 & 0xff) + (p3 & 0xff) + 2) >> 2;
+		} else {
+			int half = a / 2;
+			r = (((p0 >> 16) & 0xff) * a0 + ((p1 >> 16) & 0xff) * a1 + ((p2 >> 16) & 0xff) * a2 + ((p3 >> 16) & 0xff) * a3 + half) / a;
+			g = (((p0 >> 8) & 0xff) * a0 + ((p1 >> 8) & 0xff) * a1 + ((p2 >> 8) & 0xff) * a2 + ((p3 >> 8) & 0xff) * a3 + half) / a;
+			b = ((p0 & 0xff) * a0 + (p1 & 0xff) * a1 + (p2 & 0xff) * a2 + (p3 & 0xff) * a3 + half) / a;
+		}
+		return ((a + 2) >> 2) << 24 | r << 16 | g << 8 | b;
+	}
+}
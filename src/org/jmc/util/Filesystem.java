@@ -260,17 +260,44 @@ public class Filesystem {
 		}
 		is.close();
 
-		byte[] digest = md.digest();
-
-		char[] hexArray = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F' };
-		char[] hexChars = new char[digest.length * 2];
+		return toHex(md.digest(), true);
+	}
+	
+	
+	/**
+	 * Calculates the SHA-256 of the given data, as if the parts were one array.
+	 * 
+	 * @param parts
+	 * @return hash as a string of lowercase hex characters
+	 */
+	public static String getSha256(byte[]... parts) {
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+		for (byte[] part : parts)
+			md.update(part);
+		return toHex(md.digest(), false);
+	}
+	
+	/**
+	 * @param bytes
+	 * @param upperCase whether to use uppercase hex characters
+	 * @return the bytes as a string of hex characters
+	 */
+	private static String toHex(byte[] bytes, boolean upperCase) {
+		char[] hexArray = (upperCase ? "0123456789ABCDEF" : "0123456789abcdef").toCharArray();
+		char[] hexChars = new char[bytes.length * 2];
 		int v;
-		for (int i = 0; i < digest.length; i++) {
-			v = digest[i] & 0xFF;
+		for (int i = 0; i < bytes.length; i++) {
+			v = bytes[i] & 0xFF;
 			hexChars[2 * i] = hexArray[v >> 4];
 			hexChars[2 * i + 1] = hexArray[v & 0x0f];
 		}
-		return new String(hexChars, 0, digest.length * 2);
+		return new String(hexChars);
 	}
 	
 	
@@ -0,0 +1,142 @@
+package org.jmc.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip output stream that compresses on several threads.
+ * <p>
+ * The data is cut into fixed size blocks which are each compressed as an
+ * independent gzip member, like pigz does. Concatenated members are a valid
+ * gzip file that any gzip reader can decompress. The compressed blocks are
+ * written in order and only a limited number of blocks are held in memory at
+ * any time, writes block when that limit is reached.
+ * <p>
+ * {@link #flush()} only writes out blocks that are already compressed, the
+ * partially filled block is written on {@link #close()}.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+	/** Size of the uncompressed blocks. */
+	private static final int BLOCK_SIZE = 1 << 20;
+
+	private final OutputStream out;
+	private final ExecutorService executor;
+	private final int maxInFlight;
+
+	private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+	private byte[] block = new byte[BLOCK_SIZE];
+	private int blockLen = 0;
+
+	private boolean closed = false;
+
+	/**
+	 * Compresses on the common fork join pool.
+	 * @param out stream to write the compressed data to
+	 */
+	public ParallelGzipOutputStream(OutputStream out) {
+		this(out, ForkJoinPool.commonPool(), Math.max(2, 2 * ForkJoinPool.getCommonPoolParallelism()));
+	}
+
+	/**
+	 * @param out stream to write the compressed data to
+	 * @param executor executor to compress the blocks on
+	 * @param maxInFlight maximum number of blocks being compressed or waiting to be written
+	 */
+	public ParallelGzipOutputStream(OutputStream out, ExecutorService executor, int maxInFlight) {
+		this.out = out;
+		this.executor = executor;
+		this.maxInFlight = Math.max(1, maxInFlight);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (blockLen == BLOCK_SIZE)
+			submitBlock();
+		block[blockLen++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (blockLen == BLOCK_SIZE)
+				submitBlock();
+			int n = Math.min(len, BLOCK_SIZE - blockLen);
+			System.arraycopy(b, off, block, blockLen, n);
+			blockLen += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		while (!pending.isEmpty() && pending.peekFirst().isDone()) {
+			writeFirst();
+		}
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		try {
+			if (blockLen > 0)
+				submitBlock();
+			while (!pending.isEmpty()) {
+				writeFirst();
+			}
+		} finally {
+			for (Future<byte[]> f : pending) {
+				f.cancel(true);
+			}
+			out.close();
+		}
+	}
+
+	private void submitBlock() throws IOException {
+		final byte[] data = block;
+		final int len = blockLen;
+		pending.addLast(executor.submit(() -> compress(data, len)));
+		block = new byte[BLOCK_SIZE];
+		blockLen = 0;
+
+		while (pending.size() > maxInFlight) {
+			writeFirst();
+		}
+	}
+
+	/**
+	 * Waits for the oldest block to be compressed and writes it.
+	 */
+	private void writeFirst() throws IOException {
+		Future<byte[]> first = pending.removeFirst();
+		try {
+			out.write(first.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while compressing");
+		} catch (ExecutionException e) {
+			throw new IOException("Error compressing block", e.getCause());
+		}
+	}
+
+	private static byte[] compress(byte[] data, int len) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(len / 4 + 64);
+		try (GZIPOutputStream gz = new GZIPOutputStream(bos, 1 << 16)) {
+			gz.write(data, 0, len);
+		}
+		return bos.toByteArray();
+	}
+}
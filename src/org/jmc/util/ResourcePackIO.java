@@ -1,5 +1,6 @@
 package org.jmc.util;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -10,11 +11,16 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
+import javax.annotation.CheckForNull;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.BOMInputStream;
@@ -22,12 +28,46 @@ import org.jmc.Options;
 
 public class ResourcePackIO {
 	
+	@CheckForNull
+	private static volatile ResourcePackIndex index;
+	
 	public static BufferedImage loadImage(String imagePath) throws IOException {
 		try (InputStream is = loadResourceAsStream(imagePath)) {
 			return ImageIO.read(is);
 		}
 	}
 	
+	/**
+	 * Loads one square frame of an animation strip. Only the rows up to the
+	 * end of the frame are decoded, the rest of the strip is never read into
+	 * memory.
+	 * @param imagePath path of the image
+	 * @param frame index of the frame, counted from the top. Falls back to the
+	 *        first frame if the strip isn't that long.
+	 * @return the frame, as wide as the image and at most as high as it is wide
+	 */
+	public static BufferedImage loadImageFrame(String imagePath, int frame) throws IOException {
+		try (ImageInputStream iis = ImageIO.createImageInputStream(loadResourceAsStream(imagePath))) {
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+			if (!readers.hasNext())
+				throw new IOException("Unknown image format: " + imagePath);
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(iis, true, true);
+				int width = reader.getWidth(0);
+				int height = reader.getHeight(0);
+				int frameHeight = Math.min(width, height);
+				if ((long) (frame + 1) * frameHeight > height)
+					frame = 0;
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setSourceRegion(new Rectangle(0, frame * frameHeight, width, frameHeight));
+				return reader.read(0, param);
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+	
 	public static Reader loadText(String textPath) throws FileNotFoundException {
 		return new InputStreamReader(new BOMInputStream(loadResourceAsStream(textPath)));
 	}
@@ -55,17 +95,12 @@ public class ResourcePackIO {
 	 *  @return the file as bytes
 	 */
 	public static byte[] loadResource(String filePath) throws FileNotFoundException {
-		List<File> packs = Options.resourcePacks;
-		byte[] data = null;
-		synchronized (packs) {
-			for (File pack : packs) {
-				try {
-					data = loadResource(pack, filePath);
-					break;
-				} catch (IOException e) {
-					continue;
-				}
-			}
+		ResourcePackIndex current = acquireIndex();
+		byte[] data;
+		try {
+			data = current.load(filePath);
+		} finally {
+			current.release();
 		}
 		if (data == null) {
 			throw new FileNotFoundException(String.format("Couldn't find %s in current resource packs", filePath));
@@ -78,19 +113,12 @@ public class ResourcePackIO {
 	 *  @return the file/s as array of bytes
 	 */
 	public static List<byte[]> loadAllResources(String filePath) throws FileNotFoundException {
-		List<File> packs = Options.resourcePacks;
-		ArrayList<byte[]> resources = new ArrayList<>();
-		synchronized (packs) {
-			for (File pack : packs) {
-				try {
-					byte[] data = loadResource(pack, filePath);
-					if (data != null) {
-						resources.add(data);
-					}
-				} catch (IOException e) {
-					continue;
-				}
-			}
+		ResourcePackIndex current = acquireIndex();
+		List<byte[]> resources;
+		try {
+			resources = current.loadAll(filePath);
+		} finally {
+			current.release();
 		}
 		if (resources.isEmpty()) {
 			throw new FileNotFoundException(String.format("Couldn't find %s in current resource packs", filePath));
@@ -98,6 +126,64 @@ public class ResourcePackIO {
 		return resources;
 	}
 	
+	/**
+	 * Gets the index of the current {@link Options#resourcePacks}, building
+	 * it on first use or when the pack list has changed.
+	 */
+	private static ResourcePackIndex getIndex() {
+		ResourcePackIndex current = index;
+		List<File> packs = Options.resourcePacks;
+		if (current != null && current.isFor(packs))
+			return current;
+		synchronized (ResourcePackIO.class) {
+			// the list is changed while holding its lock, so it's complete here
+			synchronized (packs) {
+				if (index == null || !index.isFor(packs)) {
+					ResourcePackIndex old = index;
+					index = new ResourcePackIndex(packs);
+					if (old != null)
+						old.retire();
+				}
+			}
+			return index;
+		}
+	}
+	
+	/**
+	 * Gets the current index and registers a lookup on it, so it isn't closed
+	 * before {@link ResourcePackIndex#release()} even if it's replaced.
+	 */
+	private static ResourcePackIndex acquireIndex() {
+		while (true) {
+			ResourcePackIndex current = getIndex();
+			if (current.acquire())
+				return current;
+		}
+	}
+	
+	/**
+	 * @return hash that changes whenever the list of resource packs or their
+	 *         contents might have changed
+	 */
+	public static String getFingerprint() {
+		return getIndex().getFingerprint();
+	}
+	
+	/**
+	 * Drops the index of the resource packs so they are read again on the
+	 * next lookup, e.g. after their contents changed on disk.
+	 * Lookups that are still running finish with the old index, its packs
+	 * are closed after them.
+	 */
+	public static void invalidate() {
+		synchronized (ResourcePackIO.class) {
+			if (index != null) {
+				index.retire();
+				index = null;
+			}
+		}
+	}
+	
 	public static byte[] loadResource(File packPath, String filePath) throws IOException {
 		if (packPath.isFile() && packPath.getName().equals("pack.mcmeta")) {
 			packPath = packPath.getParentFile();
@@ -0,0 +1,254 @@
+package org.jmc.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Index of the files in a list of resource packs.
+ * <p>
+ * Every pack is opened once, zip packs stay open until the index is retired
+ * and the last lookup on it has finished.
+ * Each path maps to the packs that contain it, in the order of the pack list,
+ * so the first one is the pack that overrides the others. Reading a file
+ * doesn't have to search the packs or parse their central directories again.
+ * <p>
+ * Lookups are thread safe, the index doesn't change after it's built. Each
+ * lookup has to be between {@link #acquire()} and {@link #release()}, so an
+ * index that was replaced isn't closed while another thread still reads it.
+ */
+class ResourcePackIndex implements Closeable {
+
+	/**
+	 * A file in one of the packs.
+	 */
+	private interface Source {
+		byte[] read() throws IOException;
+	}
+
+	private static class ZipSource implements Source {
+		private final ZipFile zip;
+		private final ZipEntry entry;
+
+		ZipSource(ZipFile zip, ZipEntry entry) {
+			this.zip = zip;
+			this.entry = entry;
+		}
+
+		@Override
+		public byte[] read() throws IOException {
+			try (InputStream is = zip.getInputStream(entry)) {
+				return IOUtils.toByteArray(is);
+			} catch (IllegalStateException e) {
+				// the zip was closed, shouldn't happen while the index is acquired
+				throw new IOException(e.getMessage(), e);
+			}
+		}
+	}
+
+	private static class FileSource implements Source {
+		private final File file;
+
+		FileSource(File file) {
+			this.file = file;
+		}
+
+		@Override
+		public byte[] read() throws IOException {
+			try (FileInputStream fis = new FileInputStream(file)) {
+				return IOUtils.toByteArray(fis);
+			}
+		}
+	}
+
+	private final List<File> packs;
+	private final Map<String, List<Source>> files = new HashMap<>();
+	private final List<ZipFile> zips = new ArrayList<>();
+	private final String fingerprint;
+
+	/**
+	 * Twice the number of lookups running, plus one once the index has been
+	 * retired.
+	 */
+	private final AtomicInteger users = new AtomicInteger();
+
+	/**
+	 * Opens the packs and reads their contents. Packs that can't be read are
+	 * logged and left out.
+	 * @param packs the packs, highest priority first
+	 */
+	ResourcePackIndex(List<File> packs) {
+		this.packs = new ArrayList<>(packs);
+		StringBuilder stamps = new StringBuilder();
+		for (File pack : this.packs) {
+			if (pack.isFile() && pack.getName().equals("pack.mcmeta")) {
+				pack = pack.getParentFile();
+			}
+			try {
+				if (pack.isDirectory()) {
+					addDirectory(pack.toPath(), stamps);
+				} else {
+					addZip(pack, stamps);
+				}
+			} catch (IOException e) {
+				Log.info("Couldn't read resource pack " + pack + ": " + e.getMessage());
+			}
+		}
+		fingerprint = Filesystem.getSha256(stamps.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void addDirectory(Path dir, StringBuilder stamps) throws IOException {
+		stamps.append(dir.toAbsolutePath()).append('\n');
+		try (Stream<Path> paths = Files.walk(dir)) {
+			paths.filter(Files::isRegularFile).sorted().forEach(path -> {
+				String name = dir.relativize(path).toString().replace(File.separatorChar, '/');
+				File file = path.toFile();
+				add(name, new FileSource(file));
+				stamp(stamps, name, file);
+			});
+		}
+	}
+
+	private void addZip(File pack, StringBuilder stamps) throws IOException {
+		stamp(stamps, pack.getAbsolutePath(), pack);
+		ZipFile zip = new ZipFile(pack);
+		zips.add(zip);
+		Enumeration<? extends ZipEntry> entries = zip.entries();
+		while (entries.hasMoreElements()) {
+			ZipEntry entry = entries.nextElement();
+			if (!entry.isDirectory())
+				add(entry.getName(), new ZipSource(zip, entry));
+		}
+	}
+
+	private static void stamp(StringBuilder stamps, String name, File file) {
+		stamps.append(name).append('\t').append(file.length()).append('\t').append(file.lastModified()).append('\n');
+	}
+
+	private void add(String name, Source source) {
+		List<Source> sources = files.get(name);
+		if (sources == null) {
+			// nearly all files are only in one pack
+			sources = new ArrayList<>(1);
+			files.put(name, sources);
+		}
+		sources.add(source);
+	}
+
+	/**
+	 * @return true if the index was built from the same packs, in the same order
+	 */
+	boolean isFor(List<File> packs) {
+		// iterates a snapshot of the argument, Options.resourcePacks is copy on write
+		return this.packs.equals(packs);
+	}
+
+	/**
+	 * Registers a lookup, it must be followed by {@link #release()}.
+	 * @return false if the index was retired, a new one has to be used
+	 */
+	boolean acquire() {
+		while (true) {
+			int state = users.get();
+			if ((state & 1) != 0)
+				return false;
+			if (users.compareAndSet(state, state + 2))
+				return true;
+		}
+	}
+
+	/**
+	 * Ends a lookup, closes the index if it was the last one on a retired index.
+	 */
+	void release() {
+		if (users.addAndGet(-2) == 1)
+			close();
+	}
+
+	/**
+	 * Stops new lookups on the index. The zip packs are closed right away if
+	 * nothing is reading them, else when the last lookup ends.
+	 */
+	void retire() {
+		if (users.getAndUpdate(state -> state | 1) == 0)
+			close();
+	}
+
+	/**
+	 * @return hash of the names, sizes and modification times of the packs and
+	 *         the files in the folder packs, changes whenever their contents
+	 *         might have
+	 */
+	String getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * @param filePath path of the file in the packs
+	 * @return the file from the first pack that has it and can read it, or
+	 *         null if none do
+	 */
+	byte[] load(String filePath) {
+		List<Source> sources = files.get(filePath);
+		if (sources == null)
+			return null;
+		for (Source source : sources) {
+			try {
+				return source.read();
+			} catch (IOException e) {
+				continue;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param filePath path of the file in the packs
+	 * @return the file from every pack that has it and can read it, highest
+	 *         priority first
+	 */
+	List<byte[]> loadAll(String filePath) {
+		List<Source> sources = files.get(filePath);
+		if (sources == null)
+			return Collections.emptyList();
+		List<byte[]> result = new ArrayList<>(sources.size());
+		for (Source source : sources) {
+			try {
+				result.add(source.read());
+			} catch (IOException e) {
+				continue;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Closes the zip packs.
+	 */
+	@Override
+	public void close() {
+		for (ZipFile zip : zips) {
+			try {
+				zip.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+}
@@ -3,6 +3,8 @@ package org.jmc.util;
 import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -130,4 +132,38 @@ public class Xml {
 		return attr.getNodeValue();
 	}
 	
+	/**
+	 * Gets the child elements with the given name, in document order.
+	 * Same as evaluating the XPath 'name' on the node, without the cost of XPath.
+	 * 
+	 * @param node DOM node
+	 * @param name Element name
+	 * @return The matching children, empty if there are none
+	 */
+	public static List<Node> getChildElements(Node node, String name)
+	{
+		List<Node> result = new ArrayList<Node>();
+		for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE && child.getNodeName().equals(name))
+				result.add(child);
+		}
+		return result;
+	}
+	
+	/**
+	 * Gets the text of the first child element with the given name.
+	 * 
+	 * @param node DOM node
+	 * @param name Element name
+	 * @return Text content of the element, or "" if there is none
+	 */
+	public static String getChildText(Node node, String name)
+	{
+		for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE && child.getNodeName().equals(name))
+				return child.getTextContent();
+		}
+		return "";
+	}
+	
 }